@@ -0,0 +1,96 @@
+package model;
+
+import market.OrderBook;
+import order.Order;
+import order.Parameter;
+import order.Urgency;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import slice.SliceManager;
+import util.Logger;
+import util.TimerService;
+import volume.LinearProfile;
+import volume.VolumeTracker;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VwapBenchmark {
+
+    private static final Instant START = Instant.parse("2020-03-30T01:00:00Z");
+    private static final Instant END = START.plus(Duration.ofHours(7));
+
+    @Param({"1", "100", "1000"})
+    public int openSlices;
+
+    private Instant now = START;
+    private Vwap vwap;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+
+        final TimerService timer = () -> now;
+        final Logger logger = new Logger(timer, util.Level.OFF);
+        final Order order = new Order(START, END, 1.0e9, 10.0, true);
+        final SliceManager sliceManager = new SliceManager(logger);
+        final Parameter parameter = new Parameter() {
+            @Override
+            public boolean getDone() {
+                return true;
+            }
+
+            @Override
+            public Urgency getUrgency() {
+                return Urgency.HIGH;
+            }
+
+            @Override
+            public double getMaxPct() {
+                return 100.0;
+            }
+        };
+
+        vwap = new Vwap(new LinearProfile(START, END), order, timer, new VolumeTracker(timer), sliceManager,
+                new OrderBook(10.0, 10.1), parameter, logger);
+
+        // create the first interval and layer it, then rest open slices at the passive touch
+        vwap.run();
+        for (int i = 1; i < openSlices; i++) {
+            sliceManager.entry(100.0, 10.0, "Slice");
+        }
+
+        // before crossing start so that a dirty run walks the peg loop only
+        now = START.plus(Duration.ofMinutes(10));
+        vwap.run();
+    }
+
+    // nothing changed since the last run
+    @Benchmark
+    public void runQuiet() {
+        vwap.run();
+    }
+
+    // full evaluation, as after a touch move or fill
+    @Benchmark
+    public void runDirty() {
+        vwap.markDirty();
+        vwap.run();
+    }
+}
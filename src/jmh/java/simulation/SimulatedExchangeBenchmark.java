@@ -0,0 +1,78 @@
+package simulation;
+
+import market.OrderBook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import slice.SliceManager;
+import util.Logger;
+import volume.TradeEvent;
+import volume.TradeEventNotifier;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SimulatedExchangeBenchmark {
+
+    // slices resting behind the one being filled
+    @Param({"1", "100"})
+    public int restingSlices;
+
+    private final TradeEvent trade = new TradeEvent() {
+        @Override
+        public double getTradePrice() {
+            return 10.0;
+        }
+
+        @Override
+        public double getTradeSize() {
+            return 100.0;
+        }
+    };
+
+    private SimulationKernel kernel;
+    private SliceManager sliceManager;
+    private SimulatedExchange exchange;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+
+        kernel = new SimulationKernel(new SimulationClock(0L));
+        sliceManager = new SliceManager(new Logger(kernel.getClock(), util.Level.OFF));
+        final OrderBook orderBook = new OrderBook(10.0, 10.1);
+        final TradeEventNotifier prints = event -> { };
+        exchange = new SimulatedExchange(kernel, sliceManager, orderBook, prints, true, 1L, 1L);
+
+        // resting slices behind the touch never fill
+        for (int i = 0; i < restingSlices; i++) {
+            sliceManager.entry(100.0, 9.0, "Slice");
+        }
+        kernel.run(kernel.now() + 2L);
+        sliceManager.drainCommands();
+    }
+
+    // entry, arrival, ack, trade, fill report: four kernel events and one passive match
+    @Benchmark
+    public long entryTradeAndFill() {
+        sliceManager.entry(100.0, 10.0, "Slice");
+        kernel.run(kernel.now() + 1L);
+        exchange.onTradeEvent(trade);
+        kernel.run(kernel.now() + 1L);
+        sliceManager.drainCommands();
+        return sliceManager.getFilledShares();
+    }
+}
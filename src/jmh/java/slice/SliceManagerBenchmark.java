@@ -0,0 +1,80 @@
+package slice;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import util.Logger;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SliceManagerBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int openSlices;
+
+    // slices already sent and done before measuring
+    @Param({"0", "100000"})
+    public int historyLength;
+
+    private SliceManager sliceManager;
+    private long[] openIds;
+    private int next;
+    private double price = 10.0;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+
+        sliceManager = new SliceManager(new Logger(() -> Instant.EPOCH, util.Level.OFF));
+        for (int i = 0; i < historyLength; i++) {
+            final long sliceId = sliceManager.entry(100.0, 10.0, "Slice");
+            sliceManager.fill(sliceId, 100.0, 10.0);
+        }
+
+        openIds = new long[openSlices];
+        for (int i = 0; i < openSlices; i++) {
+            openIds[i] = sliceManager.entry(100.0, 10.0, "Slice");
+        }
+    }
+
+    @Benchmark
+    public long entryAndFill() {
+        final long sliceId = sliceManager.entry(100.0, 10.0, "Slice");
+        sliceManager.fill(sliceId, 100.0, 10.0);
+        return sliceId;
+    }
+
+    @Benchmark
+    public void amend() {
+        price = price == 10.0 ? 10.1 : 10.0;
+        sliceManager.amend(openIds[next++ % openIds.length], price);
+    }
+
+    @Benchmark
+    public double totals() {
+        return sliceManager.getOpenQty() + sliceManager.getFilledQty();
+    }
+
+    @Benchmark
+    public void iterateOpenSlices(final Blackhole blackhole) {
+        for (int i = 0; i < sliceManager.getOpenSliceCount(); i++) {
+            blackhole.consume(sliceManager.getOpenSlice(i).getSlicePrice());
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormatterBenchmark {
+
+    private final StringBuilder sb = new StringBuilder(64);
+    private final Instant instant = Instant.parse("2020-03-30T01:23:45.678Z");
+    private final long epochMillis = instant.toEpochMilli();
+    private double price = 10.15;
+
+    @Benchmark
+    public String formatPrice() {
+        return Formatter.formatPrice(price);
+    }
+
+    @Benchmark
+    public StringBuilder appendPrice() {
+        sb.setLength(0);
+        return Formatter.appendPrice(sb, price);
+    }
+
+    @Benchmark
+    public String formatQuantity() {
+        return Formatter.formatQuantity(15873.02);
+    }
+
+    @Benchmark
+    public String formatInstant() {
+        return Formatter.formatInstant(instant);
+    }
+
+    @Benchmark
+    public StringBuilder appendInstant() {
+        sb.setLength(0);
+        return Formatter.appendInstant(sb, epochMillis);
+    }
+}
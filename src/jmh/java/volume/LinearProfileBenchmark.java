@@ -0,0 +1,42 @@
+package volume;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LinearProfileBenchmark {
+
+    private static final Instant START = Instant.parse("2020-03-30T01:00:00Z");
+    private static final Instant END = START.plus(Duration.ofHours(7));
+
+    private final LinearProfile profile = new LinearProfile(START, END);
+    private final Instant time = START.plus(Duration.ofMinutes(90));
+    private long timeMillis = time.toEpochMilli();
+
+    @Benchmark
+    public double getVolumeInstant() {
+        return profile.getVolume(time);
+    }
+
+    // interval targets shift the due time, measure the long path including the offset
+    @Benchmark
+    public double getVolumeMillis() {
+        return profile.getVolume(timeMillis + 400_000L);
+    }
+}
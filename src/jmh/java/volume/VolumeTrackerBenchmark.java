@@ -0,0 +1,67 @@
+package volume;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VolumeTrackerBenchmark {
+
+    // trade prints already seen by the tracker
+    @Param({"0", "1000000"})
+    public int historyLength;
+
+    private final MutableTrade trade = new MutableTrade();
+    private VolumeTracker volumeTracker;
+
+    private static final class MutableTrade implements TradeEvent {
+
+        private double price;
+        private double size;
+
+        @Override
+        public double getTradePrice() {
+            return price;
+        }
+
+        @Override
+        public double getTradeSize() {
+            return size;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+
+        volumeTracker = new VolumeTracker();
+        for (int i = 0; i < historyLength; i++) {
+            trade.price = 10.0 + (i % 3) * 0.1;
+            trade.size = 100.0;
+            volumeTracker.onTradeEvent(trade);
+        }
+    }
+
+    @Benchmark
+    public double onTradeEvent() {
+        trade.price = trade.price == 10.0 ? 10.1 : 10.0;
+        trade.size = 100.0;
+        volumeTracker.onTradeEvent(trade);
+        return volumeTracker.getBenchmarkPrice();
+    }
+}
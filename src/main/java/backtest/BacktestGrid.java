@@ -0,0 +1,81 @@
+package backtest;
+
+import model.VwapConfig;
+import order.Urgency;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Cartesian grid of Vwap settings to sweep.
+ * Each crossing divisor set is {low, medium, high}, see {@link VwapConfig#getCrossingDivisor(Urgency)}.
+ */
+public class BacktestGrid {
+
+    private final List<Duration> intervalLengths = new ArrayList<>();
+    private final List<Duration> lowerCurveDelays = new ArrayList<>();
+    private final List<Duration> upperCurveAheads = new ArrayList<>();
+    private final List<int[]> crossingDivisors = new ArrayList<>();
+    private final List<Urgency> urgencies = new ArrayList<>();
+
+    public BacktestGrid intervalLengths(final Duration... values) {
+        intervalLengths.addAll(Arrays.asList(values));
+        return this;
+    }
+
+    public BacktestGrid lowerCurveDelays(final Duration... values) {
+        lowerCurveDelays.addAll(Arrays.asList(values));
+        return this;
+    }
+
+    public BacktestGrid upperCurveAheads(final Duration... values) {
+        upperCurveAheads.addAll(Arrays.asList(values));
+        return this;
+    }
+
+    public BacktestGrid crossingDivisors(final int low, final int medium, final int high) {
+        crossingDivisors.add(new int[]{low, medium, high});
+        return this;
+    }
+
+    public BacktestGrid urgencies(final Urgency... values) {
+        urgencies.addAll(Arrays.asList(values));
+        return this;
+    }
+
+    // an empty dimension falls back to the Vwap default
+    public List<VwapConfig> getConfigs() {
+
+        final VwapConfig defaults = VwapConfig.DEFAULT;
+        final List<Duration> lengths = orDefault(intervalLengths, defaults.getIntervalLength());
+        final List<Duration> delays = orDefault(lowerCurveDelays, defaults.getLowerCurveDelay());
+        final List<Duration> aheads = orDefault(upperCurveAheads, defaults.getUpperCurveAhead());
+        final List<int[]> divisors = orDefault(crossingDivisors, new int[]{
+                defaults.getCrossingDivisor(Urgency.LOW),
+                defaults.getCrossingDivisor(Urgency.MEDIUM),
+                defaults.getCrossingDivisor(Urgency.HIGH)});
+
+        final List<VwapConfig> configs = new ArrayList<>();
+        for (Duration length : lengths) {
+            for (Duration delay : delays) {
+                for (Duration ahead : aheads) {
+                    for (int[] divisor : divisors) {
+                        configs.add(new VwapConfig(length, delay, ahead, divisor[0], divisor[1], divisor[2]));
+                    }
+                }
+            }
+        }
+        return configs;
+    }
+
+    public List<Urgency> getUrgencies() {
+        return orDefault(urgencies, Urgency.HIGH);
+    }
+
+    private static <T> List<T> orDefault(final List<T> values, final T defaultValue) {
+        return values.isEmpty() ? Collections.singletonList(defaultValue) : values;
+    }
+}
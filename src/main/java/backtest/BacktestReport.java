@@ -0,0 +1,127 @@
+package backtest;
+
+import model.VwapConfig;
+import order.Urgency;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Results of a sweep aggregated per setting (config and urgency) across scenarios.
+ */
+public class BacktestReport {
+
+    public static final class Row {
+
+        private final VwapConfig config;
+        private final Urgency urgency;
+        private int runs;
+        private double fillRateSum;
+        private double slippageSum;
+        private double slippageSquareSum;
+        private double worstSlippage = Double.NEGATIVE_INFINITY;
+        private long sliceCount;
+
+        Row(final VwapConfig config, final Urgency urgency) {
+            this.config = config;
+            this.urgency = urgency;
+        }
+
+        void add(final BacktestResult result) {
+            runs++;
+            fillRateSum += result.getFillRate();
+            slippageSum += result.getSlippageBps();
+            slippageSquareSum += result.getSlippageBps() * result.getSlippageBps();
+            worstSlippage = Math.max(worstSlippage, result.getSlippageBps());
+            sliceCount += result.getSliceCount();
+        }
+
+        public VwapConfig getConfig() {
+            return config;
+        }
+
+        public Urgency getUrgency() {
+            return urgency;
+        }
+
+        public int getRuns() {
+            return runs;
+        }
+
+        public double getMeanFillRate() {
+            return fillRateSum / runs;
+        }
+
+        public double getMeanSlippageBps() {
+            return slippageSum / runs;
+        }
+
+        public double getSlippageStdDevBps() {
+            final double mean = getMeanSlippageBps();
+            return Math.sqrt(Math.max(0.0, slippageSquareSum / runs - mean * mean));
+        }
+
+        public double getWorstSlippageBps() {
+            return worstSlippage;
+        }
+
+        public double getMeanSliceCount() {
+            return (double) sliceCount / runs;
+        }
+    }
+
+    private final List<BacktestResult> results;
+    private final List<Row> rows;
+
+    BacktestReport(final List<BacktestResult> results) {
+
+        this.results = Collections.unmodifiableList(results);
+
+        final Map<List<Object>, Row> byKey = new LinkedHashMap<>();
+        for (BacktestResult result : results) {
+            final List<Object> key = new ArrayList<>();
+            key.add(result.getConfig());
+            key.add(result.getUrgency());
+            byKey.computeIfAbsent(key, k -> new Row(result.getConfig(), result.getUrgency())).add(result);
+        }
+        this.rows = Collections.unmodifiableList(new ArrayList<>(byKey.values()));
+    }
+
+    public List<BacktestResult> getResults() {
+        return results;
+    }
+
+    public List<Row> getRows() {
+        return rows;
+    }
+
+    // lowest mean slippage among settings that filled every scenario completely, null when none did
+    public Row getBestRow() {
+
+        Row best = null;
+        for (Row row : rows) {
+            if (Double.compare(row.getMeanFillRate(), 1.0) >= 0
+                    && (best == null || row.getMeanSlippageBps() < best.getMeanSlippageBps())) {
+                best = row;
+            }
+        }
+        return best;
+    }
+
+    public void print(final PrintStream out) {
+
+        out.println(String.format("%-8s %5s %9s %10s %10s %10s %8s  %s",
+                "urgency", "runs", "fill%", "slip(bps)", "stdev", "worst", "slices", "config"));
+        for (Row row : rows) {
+            out.println(String.format("%-8s %5d %9.2f %10.2f %10.2f %10.2f %8.1f  %s",
+                    row.getUrgency(), row.getRuns(), row.getMeanFillRate() * 100,
+                    row.getMeanSlippageBps(), row.getSlippageStdDevBps(), row.getWorstSlippageBps(),
+                    row.getMeanSliceCount(), Objects.toString(row.getConfig())));
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package backtest;
+
+import model.VwapConfig;
+import order.Urgency;
+
+/**
+ * Outcome of one scenario under one setting.
+ * Slippage is a cost in basis points against the VolumeTracker benchmark, positive means worse than benchmark.
+ */
+public class BacktestResult {
+
+    private final String scenario;
+    private final VwapConfig config;
+    private final Urgency urgency;
+    private final double orderQuantity;
+    private final double filledQuantity;
+    private final double avgFilledPrice;
+    private final double benchmarkPrice;
+    private final double slippageBps;
+    private final long sliceCount;
+    private final long algoRunCount;
+
+    public BacktestResult(final String scenario,
+                          final VwapConfig config,
+                          final Urgency urgency,
+                          final double orderQuantity,
+                          final double filledQuantity,
+                          final double avgFilledPrice,
+                          final double benchmarkPrice,
+                          final double slippageBps,
+                          final long sliceCount,
+                          final long algoRunCount) {
+        this.scenario = scenario;
+        this.config = config;
+        this.urgency = urgency;
+        this.orderQuantity = orderQuantity;
+        this.filledQuantity = filledQuantity;
+        this.avgFilledPrice = avgFilledPrice;
+        this.benchmarkPrice = benchmarkPrice;
+        this.slippageBps = slippageBps;
+        this.sliceCount = sliceCount;
+        this.algoRunCount = algoRunCount;
+    }
+
+    public String getScenario() {
+        return scenario;
+    }
+
+    public VwapConfig getConfig() {
+        return config;
+    }
+
+    public Urgency getUrgency() {
+        return urgency;
+    }
+
+    public double getOrderQuantity() {
+        return orderQuantity;
+    }
+
+    public double getFilledQuantity() {
+        return filledQuantity;
+    }
+
+    public double getFillRate() {
+        return orderQuantity > 0.0 ? filledQuantity / orderQuantity : 0.0;
+    }
+
+    public double getAvgFilledPrice() {
+        return avgFilledPrice;
+    }
+
+    public double getBenchmarkPrice() {
+        return benchmarkPrice;
+    }
+
+    public double getSlippageBps() {
+        return slippageBps;
+    }
+
+    public long getSliceCount() {
+        return sliceCount;
+    }
+
+    public long getAlgoRunCount() {
+        return algoRunCount;
+    }
+}
@@ -0,0 +1,197 @@
+package backtest;
+
+import market.OrderBook;
+import model.ScheduleCache;
+import model.Vwap;
+import model.VwapConfig;
+import order.Order;
+import order.Parameter;
+import order.Urgency;
+import outbound.VenueThrottle;
+import simulation.SimulatedExchange;
+import simulation.SimulationClock;
+import simulation.SimulationKernel;
+import slice.SliceManager;
+import tca.TransactionCost;
+import util.Level;
+import util.Logger;
+import volume.LinearProfile;
+import volume.TradeEvent;
+import volume.VolumeTracker;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs every scenario under every setting of a {@link BacktestGrid} in parallel on a fork join pool.
+ *
+ * Each run builds its own clock, simulation kernel, order book, VolumeTracker, SliceManager and
+ * (silent) Logger, so runs share nothing but the read only scenario and the runner's {@link ScheduleCache}.
+ */
+public class BacktestRunner {
+
+    private static final Duration WARM_UP = Duration.ofSeconds(60);
+    private static final long ORDER_ENTRY_LATENCY_MILLIS = 1L;
+    private static final long ACK_LATENCY_MILLIS = 1L;
+
+    private final ForkJoinPool pool;
+    private final ScheduleCache scheduleCache = new ScheduleCache();
+
+    public BacktestRunner(final int parallelism) {
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    public BacktestReport run(final BacktestGrid grid, final List<BacktestScenario> scenarios) {
+
+        final List<Run> runs = new ArrayList<>();
+        for (VwapConfig config : grid.getConfigs()) {
+            for (Urgency urgency : grid.getUrgencies()) {
+                for (BacktestScenario scenario : scenarios) {
+                    runs.add(new Run(scenario, config, urgency));
+                }
+            }
+        }
+
+        final BacktestResult[] results = new BacktestResult[runs.size()];
+        pool.invoke(new RunTask(runs, results, 0, runs.size(), scheduleCache));
+        return new BacktestReport(Arrays.asList(results));
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    public static BacktestResult runOne(final BacktestScenario scenario, final VwapConfig config, final Urgency urgency) {
+        return runOne(scenario, config, urgency, new ScheduleCache(1));
+    }
+
+    public static BacktestResult runOne(final BacktestScenario scenario,
+                                        final VwapConfig config,
+                                        final Urgency urgency,
+                                        final ScheduleCache scheduleCache) {
+
+        final long startMillis = scenario.getStartTime().toEpochMilli();
+        final long endMillis = scenario.getEndTime().toEpochMilli();
+
+        final SimulationClock clock = new SimulationClock(startMillis - WARM_UP.toMillis());
+        final SimulationKernel kernel = new SimulationKernel(clock);
+        final Logger logger = new Logger(clock, Level.OFF);
+
+        final Order order = new Order(scenario.getStartTime(), scenario.getEndTime(), scenario.getQuantity(),
+                scenario.getLimit(), scenario.isBuy());
+        final OrderBook orderBook = new OrderBook(scenario.getInitialBid(), scenario.getInitialAsk());
+        final VolumeTracker volumeTracker = new VolumeTracker(clock);
+        final SliceManager sliceManager = new SliceManager(logger);
+        final Parameter parameter = new Parameter() {
+            @Override
+            public boolean getDone() {
+                return true;
+            }
+
+            @Override
+            public Urgency getUrgency() {
+                return urgency;
+            }
+
+            @Override
+            public double getMaxPct() {
+                return 100.0;
+            }
+        };
+
+        final Vwap vwap = new Vwap(new LinearProfile(scenario.getStartTime(), scenario.getEndTime()), order, clock,
+                volumeTracker, sliceManager, orderBook, parameter, logger, config, VenueThrottle.UNLIMITED, scheduleCache);
+        orderBook.addListener(vwap);
+        volumeTracker.addListener(vwap);
+        final SimulatedExchange exchange = new SimulatedExchange(kernel, sliceManager, orderBook, volumeTracker,
+                order.isBuy(), ORDER_ENTRY_LATENCY_MILLIS, ACK_LATENCY_MILLIS);
+        orderBook.addListener(exchange);
+        volumeTracker.addListener(exchange);
+        kernel.register(vwap);
+
+        for (BacktestScenario.MarketMove move : scenario.getMarketMoves()) {
+            kernel.schedule(startMillis + move.getOffsetMillis(), () -> orderBook.update(move.getBid(), move.getAsk()));
+        }
+        for (BacktestScenario.MarketTrade trade : scenario.getMarketTrades()) {
+            kernel.schedule(startMillis + trade.getOffsetMillis(), () -> volumeTracker.onTradeEvent(new TradeEvent() {
+                @Override
+                public double getTradePrice() {
+                    return trade.getPrice();
+                }
+
+                @Override
+                public double getTradeSize() {
+                    return trade.getSize();
+                }
+            }));
+        }
+
+        kernel.run(endMillis + WARM_UP.toMillis());
+
+        final TransactionCost transactionCost = vwap.getTransactionCost();
+        final double avgFilledPrice = transactionCost.getAvgFilledPrice();
+        final double benchmarkPrice = transactionCost.getBenchmarkPrice();
+        final double slippageBps = transactionCost.getSlippageBps();
+
+        return new BacktestResult(scenario.getName(), config, urgency, order.getQuantity(), sliceManager.getFilledQty(),
+                avgFilledPrice, benchmarkPrice, slippageBps, sliceManager.getSliceCount(), kernel.getAlgoRunCount());
+    }
+
+    private static final class Run {
+
+        private final BacktestScenario scenario;
+        private final VwapConfig config;
+        private final Urgency urgency;
+
+        private Run(final BacktestScenario scenario, final VwapConfig config, final Urgency urgency) {
+            this.scenario = scenario;
+            this.config = config;
+            this.urgency = urgency;
+        }
+    }
+
+    // split the run list in halves down to single runs, each writes its own result slot
+    private static final class RunTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<Run> runs;
+        private final BacktestResult[] results;
+        private final int from;
+        private final int to;
+        private final ScheduleCache scheduleCache;
+
+        private RunTask(final List<Run> runs,
+                        final BacktestResult[] results,
+                        final int from,
+                        final int to,
+                        final ScheduleCache scheduleCache) {
+            this.runs = runs;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+            this.scheduleCache = scheduleCache;
+        }
+
+        @Override
+        protected void compute() {
+
+            if (to - from == 1) {
+                final Run run = runs.get(from);
+                results[from] = runOne(run.scenario, run.config, run.urgency, scheduleCache);
+                return;
+            }
+            if (to <= from) {
+                return;
+            }
+
+            final int middle = (from + to) >>> 1;
+            invokeAll(new RunTask(runs, results, from, middle, scheduleCache),
+                    new RunTask(runs, results, middle, to, scheduleCache));
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package backtest;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Order and scripted market path of one backtest.
+ * Built once before a sweep and only read by the runs, so it can be shared across threads.
+ */
+public class BacktestScenario {
+
+    public static final class MarketMove {
+
+        private final long offsetMillis;
+        private final double bid;
+        private final double ask;
+
+        MarketMove(final long offsetMillis, final double bid, final double ask) {
+            this.offsetMillis = offsetMillis;
+            this.bid = bid;
+            this.ask = ask;
+        }
+
+        public long getOffsetMillis() {
+            return offsetMillis;
+        }
+
+        public double getBid() {
+            return bid;
+        }
+
+        public double getAsk() {
+            return ask;
+        }
+    }
+
+    public static final class MarketTrade {
+
+        private final long offsetMillis;
+        private final double price;
+        private final double size;
+
+        MarketTrade(final long offsetMillis, final double price, final double size) {
+            this.offsetMillis = offsetMillis;
+            this.price = price;
+            this.size = size;
+        }
+
+        public long getOffsetMillis() {
+            return offsetMillis;
+        }
+
+        public double getPrice() {
+            return price;
+        }
+
+        public double getSize() {
+            return size;
+        }
+    }
+
+    private final String name;
+    private final Instant startTime;
+    private final Instant endTime;
+    private final double quantity;
+    private final double limit;
+    private final boolean isBuy;
+    private final double initialBid;
+    private final double initialAsk;
+    private final List<MarketMove> marketMoves = new ArrayList<>();
+    private final List<MarketTrade> marketTrades = new ArrayList<>();
+
+    public BacktestScenario(final String name,
+                            final Instant startTime,
+                            final Instant endTime,
+                            final double quantity,
+                            final double limit,
+                            final boolean isBuy,
+                            final double initialBid,
+                            final double initialAsk) {
+        this.name = name;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.quantity = quantity;
+        this.limit = limit;
+        this.isBuy = isBuy;
+        this.initialBid = initialBid;
+        this.initialAsk = initialAsk;
+    }
+
+    // offsets are from order start time
+    public BacktestScenario addMarketMove(final Duration offset, final double bid, final double ask) {
+        marketMoves.add(new MarketMove(offset.toMillis(), bid, ask));
+        return this;
+    }
+
+    public BacktestScenario addMarketTrade(final Duration offset, final double price, final double size) {
+        marketTrades.add(new MarketTrade(offset.toMillis(), price, size));
+        return this;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Instant getStartTime() {
+        return startTime;
+    }
+
+    public Instant getEndTime() {
+        return endTime;
+    }
+
+    public double getQuantity() {
+        return quantity;
+    }
+
+    public double getLimit() {
+        return limit;
+    }
+
+    public boolean isBuy() {
+        return isBuy;
+    }
+
+    public double getInitialBid() {
+        return initialBid;
+    }
+
+    public double getInitialAsk() {
+        return initialAsk;
+    }
+
+    public List<MarketMove> getMarketMoves() {
+        return Collections.unmodifiableList(marketMoves);
+    }
+
+    public List<MarketTrade> getMarketTrades() {
+        return Collections.unmodifiableList(marketTrades);
+    }
+}
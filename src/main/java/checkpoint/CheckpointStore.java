@@ -0,0 +1,270 @@
+package checkpoint;
+
+import model.Vwap;
+import outbound.VenueThrottle;
+import util.Logger;
+import volume.VolumeTracker;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodic checkpoint of live orders to one file, and restore at startup.
+ *
+ * Every interval the writer thread asks each registered Vwap for a checkpoint, which the algo thread
+ * captures on its next run into a reused buffer, then writes the latest checkpoint of all orders to a temporary
+ * file moved over the previous checkpoint. File access never happens on an algo thread.
+ *
+ * State shared by several orders is written once, not per order: the volume tracker of each symbol, with its
+ * rolling windows, and the throttle of each venue. Both are thread safe and written by the writer thread.
+ *
+ *   file    : int magic, int version, orders, trackers, throttles
+ *   orders  : int count, then per order : long order id, int length, bytes
+ *   shared  : int count, then per symbol or venue : short name length, name bytes, int length, bytes
+ */
+public class CheckpointStore implements Runnable {
+
+    private static final int MAGIC = 0x56434B50; // "VCKP"
+    private static final int VERSION = 2;
+    private static final int INITIAL_CAPACITY = 64 * 1024;
+
+    private final Path path;
+    private final long intervalMillis;
+    private final Logger logger;
+    private final Map<Long, Vwap> orders = new ConcurrentHashMap<>();
+    private final Map<String, VolumeTracker> trackers = new ConcurrentHashMap<>();
+    private final Map<String, VenueThrottle> throttles = new ConcurrentHashMap<>();
+    private ByteBuffer fileBuffer = ByteBuffer.allocate(INITIAL_CAPACITY);
+    private volatile boolean running;
+    private Thread thread;
+
+    public CheckpointStore(final Path path, final long intervalMillis, final Logger logger) {
+        this.path = path;
+        this.intervalMillis = intervalMillis;
+        this.logger = logger;
+    }
+
+    public void register(final Vwap vwap) {
+        orders.put(vwap.getOrder().getOrderId(), vwap);
+        vwap.requestCheckpoint();
+    }
+
+    public void unregister(final Vwap vwap) {
+        orders.remove(vwap.getOrder().getOrderId());
+    }
+
+    // one tracker per symbol, whatever the number of orders sharing it
+    public void register(final String symbol, final VolumeTracker tracker) {
+        trackers.put(symbol, tracker);
+    }
+
+    public void register(final VenueThrottle throttle) {
+        throttles.put(throttle.getVenue(), throttle);
+    }
+
+    public void start() {
+        running = true;
+        thread = new Thread(this, "checkpoint-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void stop() throws InterruptedException {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            thread.join();
+        }
+    }
+
+    @Override
+    public void run() {
+
+        while (running) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(intervalMillis);
+            } catch (InterruptedException e) {
+                break;
+            }
+            try {
+                write();
+            } catch (IOException e) {
+                logger.atWarn().append("Failed to write checkpoint ").append(path.toString())
+                        .append(": ").append(String.valueOf(e)).commit();
+            }
+            for (Vwap vwap : orders.values()) {
+                vwap.requestCheckpoint();
+            }
+        }
+    }
+
+    // write the latest captured checkpoint of every registered order, return number of orders written
+    public int write() throws IOException {
+
+        int count;
+        while (true) {
+            fileBuffer.clear();
+            try {
+                count = writeTo(fileBuffer);
+                break;
+            } catch (BufferOverflowException e) {
+                fileBuffer = ByteBuffer.allocate(fileBuffer.capacity() * 2);
+            }
+        }
+        fileBuffer.flip();
+
+        final Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (fileBuffer.hasRemaining()) {
+                channel.write(fileBuffer);
+            }
+            channel.force(false);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return count;
+    }
+
+    // counts are patched in after each section, registrations may change while writing
+    private int writeTo(final ByteBuffer buffer) {
+
+        buffer.putInt(MAGIC).putInt(VERSION);
+        int countPosition = buffer.position();
+        int count = 0;
+        buffer.putInt(0);
+        for (Map.Entry<Long, Vwap> entry : orders.entrySet()) {
+            final ByteBuffer checkpoint = entry.getValue().getCheckpoint();
+            if (checkpoint != null) {
+                buffer.putLong(entry.getKey()).putInt(checkpoint.remaining()).put(checkpoint);
+                count++;
+            }
+        }
+        buffer.putInt(countPosition, count);
+        final int orderCount = count;
+
+        countPosition = buffer.position();
+        count = 0;
+        buffer.putInt(0);
+        for (Map.Entry<String, VolumeTracker> entry : trackers.entrySet()) {
+            final int lengthPosition = putName(buffer, entry.getKey());
+            entry.getValue().writeCheckpoint(buffer);
+            buffer.putInt(lengthPosition, buffer.position() - lengthPosition - 4);
+            count++;
+        }
+        buffer.putInt(countPosition, count);
+
+        countPosition = buffer.position();
+        count = 0;
+        buffer.putInt(0);
+        for (Map.Entry<String, VenueThrottle> entry : throttles.entrySet()) {
+            final int lengthPosition = putName(buffer, entry.getKey());
+            entry.getValue().writeCheckpoint(buffer);
+            buffer.putInt(lengthPosition, buffer.position() - lengthPosition - 4);
+            count++;
+        }
+        buffer.putInt(countPosition, count);
+        return orderCount;
+    }
+
+    // name then a length placeholder, return the position of the placeholder
+    private static int putName(final ByteBuffer buffer, final String name) {
+        final byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short) bytes.length).put(bytes);
+        final int lengthPosition = buffer.position();
+        buffer.putInt(0);
+        return lengthPosition;
+    }
+
+    // checkpoint of each order by order id, the buffers are slices of the file content
+    public static Map<Long, ByteBuffer> read(final Path path) throws IOException {
+        return readOrders(open(path));
+    }
+
+    // restore the shared trackers and throttles found in the checkpoint file, then every order,
+    // return how many orders were restored
+    public static int restore(final Path path,
+                              final Collection<Vwap> vwaps,
+                              final Map<String, VolumeTracker> symbolTrackers,
+                              final Collection<VenueThrottle> venueThrottles) throws IOException {
+
+        final ByteBuffer buffer = open(path);
+        final Map<Long, ByteBuffer> checkpoints = readOrders(buffer);
+        final Map<String, ByteBuffer> trackerCheckpoints = readShared(buffer);
+        final Map<String, ByteBuffer> throttleCheckpoints = readShared(buffer);
+
+        for (Map.Entry<String, VolumeTracker> entry : symbolTrackers.entrySet()) {
+            final ByteBuffer checkpoint = trackerCheckpoints.get(entry.getKey());
+            if (checkpoint != null) {
+                entry.getValue().readCheckpoint(checkpoint);
+            }
+        }
+        for (VenueThrottle throttle : venueThrottles) {
+            final ByteBuffer checkpoint = throttleCheckpoints.get(throttle.getVenue());
+            if (checkpoint != null) {
+                throttle.readCheckpoint(checkpoint);
+            }
+        }
+
+        int restored = 0;
+        for (Vwap vwap : vwaps) {
+            final ByteBuffer checkpoint = checkpoints.get(vwap.getOrder().getOrderId());
+            if (checkpoint != null) {
+                vwap.readCheckpoint(checkpoint);
+                restored++;
+            }
+        }
+        return restored;
+    }
+
+    private static ByteBuffer open(final Path path) throws IOException {
+
+        final ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            throw new IOException("Not a checkpoint file: " + path);
+        }
+        return buffer;
+    }
+
+    private static Map<Long, ByteBuffer> readOrders(final ByteBuffer buffer) {
+
+        final int count = buffer.getInt();
+        final Map<Long, ByteBuffer> checkpoints = new HashMap<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            final long orderId = buffer.getLong();
+            checkpoints.put(orderId, slice(buffer, buffer.getInt()));
+        }
+        return checkpoints;
+    }
+
+    private static Map<String, ByteBuffer> readShared(final ByteBuffer buffer) {
+
+        final int count = buffer.getInt();
+        final Map<String, ByteBuffer> checkpoints = new HashMap<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            final byte[] name = new byte[buffer.getShort()];
+            buffer.get(name);
+            checkpoints.put(new String(name, StandardCharsets.UTF_8), slice(buffer, buffer.getInt()));
+        }
+        return checkpoints;
+    }
+
+    // next length bytes as their own buffer, the source moves past them
+    private static ByteBuffer slice(final ByteBuffer buffer, final int length) {
+        final ByteBuffer checkpoint = buffer.slice();
+        checkpoint.limit(length);
+        buffer.position(buffer.position() + length);
+        return checkpoint;
+    }
+}
@@ -0,0 +1,203 @@
+package engine;
+
+import model.Vwap;
+import util.Logger;
+import util.TimerService;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Single threaded event loop owning a shard of orders.
+ * Every Vwap registered here only ever runs on this loop's thread.
+ *
+ * Orders made dirty by market data or fills set a bit in a preallocated bitset from the publishing
+ * thread; the loop picks the bits up on its next tick and runs those orders straight away.
+ */
+class EventLoop implements Runnable {
+
+    private static final int WHEEL_SLOTS = 256;
+    private static final int WHEEL_LEVELS = 4;
+
+    private final int index;
+    private final TimerService timerService;
+    private final Logger logger;
+    private final long pollIntervalMillis;
+    private final long overrunThresholdNanos;
+    private final TimerWheel wheel;
+    private final Queue<OrderTask> registrations = new ConcurrentLinkedQueue<>();
+    private final OrderTask[] tasks;
+    private final AtomicLongArray dirtyWords;
+    private final AtomicInteger nextSlot = new AtomicInteger();
+    private final AtomicLong overrunCount = new AtomicLong();
+    private final AtomicLong activeCount = new AtomicLong();
+    private final AtomicLong runCount = new AtomicLong();
+    private volatile long maxLagMillis;
+    private volatile boolean running = true;
+    private Thread thread;
+
+    EventLoop(final int index,
+              final TimerService timerService,
+              final Logger logger,
+              final long tickMillis,
+              final long pollIntervalMillis,
+              final long overrunThresholdNanos,
+              final int maxOrders) {
+
+        this.index = index;
+        this.tasks = new OrderTask[maxOrders];
+        this.dirtyWords = new AtomicLongArray((maxOrders + 63) >>> 6);
+        this.timerService = timerService;
+        this.logger = logger;
+        this.pollIntervalMillis = pollIntervalMillis;
+        this.overrunThresholdNanos = overrunThresholdNanos;
+        this.wheel = new TimerWheel(tickMillis, WHEEL_SLOTS, WHEEL_LEVELS, timerService.nowMillis());
+    }
+
+    void start() {
+        thread = new Thread(this, "vwap-loop-" + index);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void stop() throws InterruptedException {
+        running = false;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            thread.join();
+        }
+    }
+
+    // may be called from any thread
+    void register(final Vwap vwap) {
+
+        final int slot = nextSlot.getAndIncrement();
+        if (slot >= tasks.length) {
+            throw new IllegalStateException("Event loop " + index + " is full, max orders " + tasks.length);
+        }
+        activeCount.incrementAndGet();
+        registrations.add(new OrderTask(vwap, this, slot));
+    }
+
+    // may be called from any thread
+    void markDirty(final int slot) {
+
+        final int word = slot >>> 6;
+        final long bit = 1L << slot;
+        long current;
+        do {
+            current = dirtyWords.get(word);
+            if ((current & bit) != 0) {
+                return;
+            }
+        } while (!dirtyWords.compareAndSet(word, current, current | bit));
+    }
+
+    @Override
+    public void run() {
+
+        final long tickNanos = TimeUnit.MILLISECONDS.toNanos(wheel.getTickMillis());
+
+        while (running) {
+            tick(timerService.nowMillis());
+            LockSupport.parkNanos(tickNanos);
+        }
+    }
+
+    // one pass of the loop: take new orders, bring dirty ones forward and expire what is due
+    void tick(final long now) {
+
+        OrderTask task;
+        while ((task = registrations.poll()) != null) {
+            tasks[task.getSlot()] = task;
+            task.getVwap().addListener(task);
+            wheel.schedule(task, now);
+        }
+
+        runDirty(now);
+
+        final long lag = now - wheel.getCurrentTimeMillis();
+        if (lag > maxLagMillis) {
+            maxLagMillis = lag;
+        }
+        wheel.advance(now);
+    }
+
+    // bring dirty orders forward to now, done orders are no longer on the wheel and stay put
+    private void runDirty(final long now) {
+
+        for (int word = 0; word < dirtyWords.length(); word++) {
+
+            if (dirtyWords.get(word) == 0) {
+                continue;
+            }
+            long bits = dirtyWords.getAndSet(word, 0);
+            while (bits != 0) {
+                final int slot = (word << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+
+                final OrderTask task = tasks[slot];
+                if (task != null && task.isScheduled() && task.getDeadline() > now) {
+                    wheel.schedule(task, now);
+                }
+            }
+        }
+    }
+
+    void schedule(final OrderTask task, final long deadlineMillis) {
+        wheel.schedule(task, deadlineMillis);
+    }
+
+    void onRun() {
+        runCount.incrementAndGet();
+    }
+
+    void onDone(final OrderTask task) {
+        activeCount.decrementAndGet();
+        logger.atInfo().append("Order ").append(task.getVwap().getOrder().getOrderId())
+                .append(" is done after ").append(task.getRunCount()).append(" runs, max run ")
+                .append(TimeUnit.NANOSECONDS.toMicros(task.getMaxRunNanos())).append("us").commit();
+    }
+
+    void onOverrun(final OrderTask task, final long elapsedNanos) {
+        overrunCount.incrementAndGet();
+        logger.atWarn().append("Tick overrun on ").append(thread == null ? "" : thread.getName())
+                .append(" order ").append(task.getVwap().getOrder().getOrderId())
+                .append(" took ").append(TimeUnit.NANOSECONDS.toMicros(elapsedNanos)).append("us").commit();
+    }
+
+    void onError(final OrderTask task, final RuntimeException e) {
+        logger.atWarn().append("Order ").append(task.getVwap().getOrder().getOrderId())
+                .append(" failed to run: ").append(String.valueOf(e)).commit();
+    }
+
+    long getPollIntervalMillis() {
+        return pollIntervalMillis;
+    }
+
+    long getOverrunThresholdNanos() {
+        return overrunThresholdNanos;
+    }
+
+    long getOverrunCount() {
+        return overrunCount.get();
+    }
+
+    long getActiveCount() {
+        return activeCount.get();
+    }
+
+    long getRunCount() {
+        return runCount.get();
+    }
+
+    // worst delay between wall clock and the wheel, a loop falling behind shows up here
+    long getMaxLagMillis() {
+        return maxLagMillis;
+    }
+}
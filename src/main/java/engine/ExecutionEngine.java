@@ -0,0 +1,159 @@
+package engine;
+
+import model.ScheduleCache;
+import model.Vwap;
+import util.CoarseTimer;
+import util.Logger;
+import util.TimerService;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs many Vwap orders on a fixed pool of event loop threads.
+ *
+ * Orders are sharded by order id, each loop drives its orders from a hierarchical timer wheel:
+ * an order runs every poll interval and exactly at its own deadlines (order start, crossing start,
+ * interval rollover), and straight away when the order is marked dirty by market data or a fill.
+ * A run longer than the overrun threshold is counted and logged,
+ * so one slow order shows up instead of silently delaying the others on its loop.
+ *
+ * A live engine created with {@link #ExecutionEngine(int)} runs on its own {@link CoarseTimer} ticking at the wheel
+ * resolution; give its timer service and logger to the orders so every thread reads the same cheap clock.
+ * Orders of one engine share compiled schedules through its {@link ScheduleCache}.
+ */
+public class ExecutionEngine {
+
+    public static final long DEFAULT_TICK_MILLIS = 1;
+    public static final long DEFAULT_POLL_INTERVAL_MILLIS = 1000;
+    public static final long DEFAULT_OVERRUN_THRESHOLD_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    public static final int DEFAULT_MAX_ORDERS_PER_THREAD = 16384;
+
+    private final EventLoop[] loops;
+    private final TimerService timerService;
+    private final Logger logger;
+    private final CoarseTimer ownedTimer;
+    private final ScheduleCache scheduleCache = new ScheduleCache();
+
+    public ExecutionEngine(final int threads) {
+        this(threads, new CoarseTimer(DEFAULT_TICK_MILLIS));
+    }
+
+    private ExecutionEngine(final int threads, final CoarseTimer timer) {
+        this(threads, timer, new Logger(timer), DEFAULT_TICK_MILLIS, DEFAULT_POLL_INTERVAL_MILLIS,
+                DEFAULT_OVERRUN_THRESHOLD_NANOS, DEFAULT_MAX_ORDERS_PER_THREAD, timer);
+    }
+
+    public ExecutionEngine(final int threads, final TimerService timerService, final Logger logger) {
+        this(threads, timerService, logger, DEFAULT_TICK_MILLIS, DEFAULT_POLL_INTERVAL_MILLIS,
+                DEFAULT_OVERRUN_THRESHOLD_NANOS, DEFAULT_MAX_ORDERS_PER_THREAD);
+    }
+
+    public ExecutionEngine(final int threads,
+                           final TimerService timerService,
+                           final Logger logger,
+                           final long tickMillis,
+                           final long pollIntervalMillis,
+                           final long overrunThresholdNanos,
+                           final int maxOrdersPerThread) {
+        this(threads, timerService, logger, tickMillis, pollIntervalMillis, overrunThresholdNanos, maxOrdersPerThread,
+                null);
+    }
+
+    private ExecutionEngine(final int threads,
+                            final TimerService timerService,
+                            final Logger logger,
+                            final long tickMillis,
+                            final long pollIntervalMillis,
+                            final long overrunThresholdNanos,
+                            final int maxOrdersPerThread,
+                            final CoarseTimer ownedTimer) {
+
+        this.timerService = timerService;
+        this.logger = logger;
+        this.ownedTimer = ownedTimer;
+        loops = new EventLoop[threads];
+        for (int i = 0; i < threads; i++) {
+            loops[i] = new EventLoop(i, timerService, logger, tickMillis, pollIntervalMillis,
+                    overrunThresholdNanos, maxOrdersPerThread);
+        }
+    }
+
+    public void start() {
+        for (EventLoop loop : loops) {
+            loop.start();
+        }
+    }
+
+    public void stop() throws InterruptedException {
+        for (EventLoop loop : loops) {
+            loop.stop();
+        }
+        if (ownedTimer != null) {
+            ownedTimer.close();
+        }
+    }
+
+    // clock of the loops, the one orders of this engine should run on
+    public TimerService getTimerService() {
+        return timerService;
+    }
+
+    public Logger getLogger() {
+        return logger;
+    }
+
+    // schedules shared by the orders of this engine, give it to the orders it runs
+    public ScheduleCache getScheduleCache() {
+        return scheduleCache;
+    }
+
+    // the order's SliceManager and VolumeTracker must not be shared with orders on other loops
+    public void register(final Vwap vwap) {
+        loops[shardOf(vwap.getOrder().getOrderId())].register(vwap);
+    }
+
+    public int getThreadCount() {
+        return loops.length;
+    }
+
+    public long getActiveOrderCount() {
+        long count = 0;
+        for (EventLoop loop : loops) {
+            count += loop.getActiveCount();
+        }
+        return count;
+    }
+
+    // number of algo runs, rescheduling an order is not a run
+    public long getRunCount() {
+        long count = 0;
+        for (EventLoop loop : loops) {
+            count += loop.getRunCount();
+        }
+        return count;
+    }
+
+    public long getOverrunCount() {
+        long count = 0;
+        for (EventLoop loop : loops) {
+            count += loop.getOverrunCount();
+        }
+        return count;
+    }
+
+    public long getMaxLagMillis() {
+        long lag = 0;
+        for (EventLoop loop : loops) {
+            lag = Math.max(lag, loop.getMaxLagMillis());
+        }
+        return lag;
+    }
+
+    EventLoop getLoop(final int index) {
+        return loops[index];
+    }
+
+    private int shardOf(final long orderId) {
+        return (int) Math.floorMod(orderId, (long) loops.length);
+    }
+}
@@ -0,0 +1,81 @@
+package engine;
+
+import model.Vwap;
+import model.VwapListener;
+
+/**
+ * Wheel timer driving one Vwap on its event loop.
+ * Runs the algo on expiry and schedules the next run at the earlier of the poll interval and the algo deadline.
+ * When the order is marked dirty, the loop moves the next run forward to now.
+ */
+final class OrderTask extends TimerWheel.Timer implements VwapListener {
+
+    private final Vwap vwap;
+    private final EventLoop loop;
+    private final int slot;
+    private long runCount;
+    private long overrunCount;
+    private long maxRunNanos;
+
+    OrderTask(final Vwap vwap, final EventLoop loop, final int slot) {
+        this.vwap = vwap;
+        this.loop = loop;
+        this.slot = slot;
+    }
+
+    @Override
+    public void onIntervalCreated(final long dueTimeMillis, final double targetQuantity) {
+    }
+
+    @Override
+    public void onDirty() {
+        loop.markDirty(slot);
+    }
+
+    @Override
+    protected void onExpiry(final long now) {
+
+        final long startNanos = System.nanoTime();
+        try {
+            vwap.run();
+        } catch (RuntimeException e) {
+            loop.onError(this, e);
+        }
+        final long elapsedNanos = System.nanoTime() - startNanos;
+
+        runCount++;
+        loop.onRun();
+        maxRunNanos = Math.max(maxRunNanos, elapsedNanos);
+        if (elapsedNanos > loop.getOverrunThresholdNanos()) {
+            overrunCount++;
+            loop.onOverrun(this, elapsedNanos);
+        }
+
+        final long deadline = vwap.getNextDeadlineMillis(now);
+        if (deadline == Long.MAX_VALUE) {
+            loop.onDone(this);
+            return;
+        }
+        loop.schedule(this, Math.min(deadline, now + loop.getPollIntervalMillis()));
+    }
+
+    int getSlot() {
+        return slot;
+    }
+
+    Vwap getVwap() {
+        return vwap;
+    }
+
+    long getRunCount() {
+        return runCount;
+    }
+
+    long getOverrunCount() {
+        return overrunCount;
+    }
+
+    long getMaxRunNanos() {
+        return maxRunNanos;
+    }
+}
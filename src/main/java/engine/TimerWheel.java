@@ -0,0 +1,180 @@
+package engine;
+
+/**
+ * Hierarchical timer wheel.
+ *
+ * Level 0 has one slot per tick, each upper level slot covers a full rotation of the level below.
+ * Timers far in the future sit in an upper level and are cascaded down as the wheel turns,
+ * so scheduling, cancelling and expiring are O(1) regardless of the number of timers.
+ * Timers are intrusive nodes, nothing is allocated after construction. Not thread safe,
+ * a wheel is owned by one event loop.
+ */
+public class TimerWheel {
+
+    public abstract static class Timer {
+
+        private long deadline;
+        private Timer next;
+        private Timer prev;
+        private int level = -1;
+        private int slot;
+
+        public boolean isScheduled() {
+            return level >= 0;
+        }
+
+        public long getDeadline() {
+            return deadline;
+        }
+
+        protected abstract void onExpiry(final long now);
+    }
+
+    private final long tickMillis;
+    private final int bits;
+    private final int mask;
+    private final int levels;
+    private final Timer[][] heads;
+    private long currentTick;
+    private int size;
+    private boolean expiring;
+
+    public TimerWheel(final long tickMillis, final int slotsPerLevel, final int levels, final long startTimeMillis) {
+
+        if (Integer.bitCount(slotsPerLevel) != 1) {
+            throw new IllegalArgumentException("Slots per level must be a power of two: " + slotsPerLevel);
+        }
+
+        this.tickMillis = tickMillis;
+        this.bits = Integer.numberOfTrailingZeros(slotsPerLevel);
+        this.mask = slotsPerLevel - 1;
+        this.levels = levels;
+        this.heads = new Timer[levels][slotsPerLevel];
+        this.currentTick = startTimeMillis / tickMillis;
+    }
+
+    public void schedule(final Timer timer, final long deadlineMillis) {
+
+        if (timer.isScheduled()) {
+            cancel(timer);
+        }
+        timer.deadline = deadlineMillis;
+        insert(timer);
+        size++;
+    }
+
+    public void cancel(final Timer timer) {
+
+        if (!timer.isScheduled()) {
+            return;
+        }
+        unlink(timer);
+        size--;
+    }
+
+    // expire every timer due at or before now, return number of expired timers
+    public int advance(final long nowMillis) {
+
+        final long nowTick = nowMillis / tickMillis;
+        int expired = 0;
+
+        while (currentTick <= nowTick) {
+
+            final int slot = (int) (currentTick & mask);
+            Timer timer;
+            expiring = true;
+            while ((timer = heads[0][slot]) != null) {
+                unlink(timer);
+                size--;
+                expired++;
+                timer.onExpiry(nowMillis);
+            }
+            expiring = false;
+
+            currentTick++;
+            if ((currentTick & mask) == 0) {
+                cascade();
+            }
+        }
+        return expired;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getTickMillis() {
+        return tickMillis;
+    }
+
+    // time of the current, not yet expired, tick
+    public long getCurrentTimeMillis() {
+        return currentTick * tickMillis;
+    }
+
+    private void cascade() {
+
+        for (int level = 1; level < levels; level++) {
+
+            final int slot = (int) ((currentTick >>> (bits * level)) & mask);
+            Timer timer = heads[level][slot];
+            heads[level][slot] = null;
+
+            while (timer != null) {
+                final Timer next = timer.next;
+                timer.next = null;
+                timer.prev = null;
+                insert(timer);
+                timer = next;
+            }
+
+            if (slot != 0) {
+                break;
+            }
+        }
+    }
+
+    private void insert(final Timer timer) {
+
+        // a timer rescheduled from its own expiry goes to the next tick at the earliest
+        long expiryTick = Math.max(timer.deadline / tickMillis, expiring ? currentTick + 1 : currentTick);
+        final long delta = expiryTick - currentTick;
+
+        int level = 0;
+        while (level < levels - 1 && delta >= (1L << (bits * (level + 1)))) {
+            level++;
+        }
+
+        // beyond the top level, park in the furthest slot and cascade again later
+        final long topSpan = 1L << (bits * levels);
+        if (delta >= topSpan) {
+            expiryTick = currentTick + topSpan - 1;
+        }
+
+        final int slot = (int) ((expiryTick >>> (bits * level)) & mask);
+        final Timer head = heads[level][slot];
+        timer.next = head;
+        timer.prev = null;
+        if (head != null) {
+            head.prev = timer;
+        }
+        heads[level][slot] = timer;
+        timer.level = level;
+        timer.slot = slot;
+    }
+
+    private void unlink(final Timer timer) {
+
+        if (timer.prev != null) {
+            timer.prev.next = timer.next;
+        } else {
+            heads[timer.level][timer.slot] = timer.next;
+        }
+        if (timer.next != null) {
+            timer.next.prev = timer.prev;
+        }
+        timer.next = null;
+        timer.prev = null;
+        timer.level = -1;
+    }
+}
@@ -0,0 +1,189 @@
+package journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Append only binary journal of slice lifecycle events backed by a memory mapped file.
+ *
+ * Every record has the same 64 byte layout (see offsets below) so it can be decoded
+ * offline with {@link JournalReader}. The file is mapped one segment at a time and the
+ * next segment is mapped when the current one is full; appending within a segment does not allocate.
+ * An existing journal is reopened for append: new records continue after the last complete record.
+ * Interval records keep their due time as a long in the price slot, see {@link #appendInterval}.
+ * A journal has a single writer, use one journal per algo thread.
+ */
+public class ExecutionJournal implements Closeable {
+
+    public static final int MAGIC = 0x564A4E4C; // "VJNL"
+    public static final int VERSION = 2;
+    public static final int HEADER_LENGTH = 64;
+    public static final int RECORD_LENGTH = 64;
+
+    public static final int TIMESTAMP_OFFSET = 0;
+    public static final int ORDER_ID_OFFSET = 8;
+    public static final int SLICE_ID_OFFSET = 16;
+    public static final int ACTION_OFFSET = 24;
+    public static final int QUANTITY_OFFSET = 32;
+    public static final int PRICE_OFFSET = 40;
+    public static final int DUE_TIME_OFFSET = PRICE_OFFSET;
+    public static final int BID_OFFSET = 48;
+    public static final int ASK_OFFSET = 56;
+
+    private static final int DEFAULT_SEGMENT_LENGTH = 64 * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final int segmentLength;
+    private MappedByteBuffer segment;
+    private long segmentStart;
+    private int position;
+    private long recordCount;
+
+    public ExecutionJournal(final Path path) throws IOException {
+        this(path, DEFAULT_SEGMENT_LENGTH);
+    }
+
+    public ExecutionJournal(final Path path, final int segmentLength) throws IOException {
+
+        if (segmentLength < HEADER_LENGTH || segmentLength % RECORD_LENGTH != 0) {
+            throw new IllegalArgumentException("Segment length must be a multiple of " + RECORD_LENGTH + ": " + segmentLength);
+        }
+
+        this.segmentLength = segmentLength;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        try {
+            final long size = channel.size();
+            mapSegment(0);
+            if (size == 0) {
+                segment.putInt(0, MAGIC);
+                segment.putInt(4, VERSION);
+                segment.putInt(8, RECORD_LENGTH);
+                position = HEADER_LENGTH;
+            } else {
+                checkHeader(path, size);
+                resume(size);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public void append(final long timestamp,
+                       final long orderId,
+                       final long sliceId,
+                       final JournalAction action,
+                       final double quantity,
+                       final double price,
+                       final double bid,
+                       final double ask) {
+
+        final int offset = claim(timestamp, orderId, sliceId, quantity, bid, ask);
+        segment.putDouble(offset + PRICE_OFFSET, price);
+        commit(offset, action);
+    }
+
+    // interval record has no slice, its due time is kept exactly as a long in the price slot
+    public void appendInterval(final long timestamp,
+                               final long orderId,
+                               final long dueTimeMillis,
+                               final double targetQuantity,
+                               final double bid,
+                               final double ask) {
+
+        final int offset = claim(timestamp, orderId, 0L, targetQuantity, bid, ask);
+        segment.putLong(offset + DUE_TIME_OFFSET, dueTimeMillis);
+        commit(offset, JournalAction.INTERVAL);
+    }
+
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    // force written records to the storage device
+    public void force() {
+        segment.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    private int claim(final long timestamp,
+                      final long orderId,
+                      final long sliceId,
+                      final double quantity,
+                      final double bid,
+                      final double ask) {
+
+        if (position == segmentLength) {
+            nextSegment();
+        }
+
+        final int offset = position;
+        segment.putLong(offset + TIMESTAMP_OFFSET, timestamp);
+        segment.putLong(offset + ORDER_ID_OFFSET, orderId);
+        segment.putLong(offset + SLICE_ID_OFFSET, sliceId);
+        segment.putDouble(offset + QUANTITY_OFFSET, quantity);
+        segment.putDouble(offset + BID_OFFSET, bid);
+        segment.putDouble(offset + ASK_OFFSET, ask);
+        return offset;
+    }
+
+    private void commit(final int offset, final JournalAction action) {
+        // action last, a non zero action marks a complete record for a concurrent reader
+        segment.putInt(offset + ACTION_OFFSET, action.getCode());
+        position += RECORD_LENGTH;
+        recordCount++;
+    }
+
+    private void checkHeader(final Path path, final long size) throws IOException {
+
+        if (size < HEADER_LENGTH || segment.getInt(0) != MAGIC) {
+            throw new IOException("Not an execution journal: " + path);
+        }
+        if (segment.getInt(4) != VERSION || segment.getInt(8) != RECORD_LENGTH) {
+            throw new IOException("Unsupported journal version " + segment.getInt(4) + " in " + path);
+        }
+    }
+
+    // skip complete records, a record without a known action is the unwritten or torn tail and is overwritten
+    private void resume(final long size) throws IOException {
+
+        position = HEADER_LENGTH;
+        while (true) {
+            while (position < segmentLength
+                    && JournalAction.fromCode(segment.getInt(position + ACTION_OFFSET)) != null) {
+                position += RECORD_LENGTH;
+                recordCount++;
+            }
+            if (position < segmentLength || segmentStart + segmentLength >= size) {
+                return;
+            }
+            mapSegment(segmentStart + segmentLength);
+            position = 0;
+        }
+    }
+
+    private void nextSegment() {
+        try {
+            segment.force();
+            mapSegment(segmentStart + segmentLength);
+            position = 0;
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to map next journal segment", e);
+        }
+    }
+
+    private void mapSegment(final long start) throws IOException {
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, start, segmentLength);
+        segmentStart = start;
+    }
+}
@@ -0,0 +1,28 @@
+package journal;
+
+public enum JournalAction {
+    ENTRY(1), AMEND(2), FILL(3), INTERVAL(4), ACK(5), REJECT(6);
+
+    private static final JournalAction[] BY_CODE = new JournalAction[7];
+
+    static {
+        for (JournalAction action : values()) {
+            BY_CODE[action.code] = action;
+        }
+    }
+
+    private final int code;
+
+    JournalAction(final int code) {
+        this.code = code;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    // return null for unknown code, 0 marks the unwritten tail of a journal
+    public static JournalAction fromCode(final int code) {
+        return code > 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+    }
+}
@@ -0,0 +1,6 @@
+package journal;
+
+public interface JournalHandler {
+
+    void onRecord(final JournalRecord record);
+}
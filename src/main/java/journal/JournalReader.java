@@ -0,0 +1,67 @@
+package journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Offline decoder of {@link ExecutionJournal} files.
+ * The file is mapped read only in chunks and records are visited through a reused {@link JournalRecord}.
+ */
+public class JournalReader implements Closeable {
+
+    private static final long CHUNK_LENGTH = 1L << 30;
+
+    private final FileChannel channel;
+    private final JournalRecord record = new JournalRecord();
+
+    public JournalReader(final Path path) throws IOException {
+
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+
+        final MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, ExecutionJournal.HEADER_LENGTH);
+        if (header.getInt(0) != ExecutionJournal.MAGIC) {
+            channel.close();
+            throw new IOException("Not an execution journal: " + path);
+        }
+        if (header.getInt(4) != ExecutionJournal.VERSION || header.getInt(8) != ExecutionJournal.RECORD_LENGTH) {
+            channel.close();
+            throw new IOException("Unsupported journal version " + header.getInt(4) + " in " + path);
+        }
+    }
+
+    // visit records in append order until the unwritten tail, return number of records visited
+    public long forEach(final JournalHandler handler) throws IOException {
+
+        final long size = channel.size();
+        long count = 0;
+        long chunkStart = 0;
+
+        while (chunkStart < size) {
+
+            final long chunkLength = Math.min(CHUNK_LENGTH, size - chunkStart);
+            final MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, chunkStart, chunkLength);
+
+            int offset = chunkStart == 0 ? ExecutionJournal.HEADER_LENGTH : 0;
+            for (; offset + ExecutionJournal.RECORD_LENGTH <= chunkLength; offset += ExecutionJournal.RECORD_LENGTH) {
+
+                if (chunk.getInt(offset + ExecutionJournal.ACTION_OFFSET) == 0) {
+                    return count;
+                }
+                record.wrap(chunk, offset);
+                handler.onRecord(record);
+                count++;
+            }
+            chunkStart += chunkLength;
+        }
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
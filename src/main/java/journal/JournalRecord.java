@@ -0,0 +1,56 @@
+package journal;
+
+import java.nio.ByteBuffer;
+
+import static journal.ExecutionJournal.*;
+
+/**
+ * Flyweight over one journal record, valid only during the {@link JournalHandler} callback.
+ */
+public final class JournalRecord {
+
+    private ByteBuffer buffer;
+    private int offset;
+
+    void wrap(final ByteBuffer buffer, final int offset) {
+        this.buffer = buffer;
+        this.offset = offset;
+    }
+
+    public long getTimestamp() {
+        return buffer.getLong(offset + TIMESTAMP_OFFSET);
+    }
+
+    public long getOrderId() {
+        return buffer.getLong(offset + ORDER_ID_OFFSET);
+    }
+
+    public long getSliceId() {
+        return buffer.getLong(offset + SLICE_ID_OFFSET);
+    }
+
+    public JournalAction getAction() {
+        return JournalAction.fromCode(buffer.getInt(offset + ACTION_OFFSET));
+    }
+
+    public double getQuantity() {
+        return buffer.getDouble(offset + QUANTITY_OFFSET);
+    }
+
+    public double getPrice() {
+        return buffer.getDouble(offset + PRICE_OFFSET);
+    }
+
+    // only meaningful for INTERVAL records
+    public long getDueTimeMillis() {
+        return buffer.getLong(offset + DUE_TIME_OFFSET);
+    }
+
+    public double getBid() {
+        return buffer.getDouble(offset + BID_OFFSET);
+    }
+
+    public double getAsk() {
+        return buffer.getDouble(offset + ASK_OFFSET);
+    }
+}
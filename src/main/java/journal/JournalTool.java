@@ -0,0 +1,94 @@
+package journal;
+
+import util.Formatter;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Command line query tool for execution journals.
+ *
+ * Usage: JournalTool file [--order id] [--slice id] [--action ENTRY|AMEND|FILL|INTERVAL|ACK|REJECT] [--summary]
+ * Matching records are printed as csv, the price column of an interval is its due time, --summary prints the number of matches per action instead.
+ */
+public class JournalTool {
+
+    public static void main(String[] args) throws IOException {
+
+        if (args.length == 0) {
+            System.err.println("Usage: JournalTool file [--order id] [--slice id] [--action name] [--summary]");
+            System.exit(1);
+        }
+
+        long orderId = -1;
+        long sliceId = -1;
+        JournalAction action = null;
+        boolean summary = false;
+
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--order":
+                    orderId = Long.parseLong(args[++i]);
+                    break;
+                case "--slice":
+                    sliceId = Long.parseLong(args[++i]);
+                    break;
+                case "--action":
+                    action = JournalAction.valueOf(args[++i]);
+                    break;
+                case "--summary":
+                    summary = true;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        final long orderFilter = orderId;
+        final long sliceFilter = sliceId;
+        final JournalAction actionFilter = action;
+        final boolean printRecords = !summary;
+        final Map<JournalAction, Long> counts = new EnumMap<>(JournalAction.class);
+        final StringBuilder line = new StringBuilder(128);
+
+        if (printRecords) {
+            System.out.println("time,order,slice,action,quantity,price,bid,ask");
+        }
+
+        try (JournalReader reader = new JournalReader(Paths.get(args[0]))) {
+            reader.forEach(record -> {
+
+                if ((orderFilter >= 0 && record.getOrderId() != orderFilter)
+                        || (sliceFilter >= 0 && record.getSliceId() != sliceFilter)
+                        || (actionFilter != null && record.getAction() != actionFilter)) {
+                    return;
+                }
+
+                counts.merge(record.getAction(), 1L, Long::sum);
+                if (printRecords) {
+                    line.setLength(0);
+                    Formatter.appendInstant(line, record.getTimestamp());
+                    line.append(',').append(record.getOrderId())
+                            .append(',').append(record.getSliceId())
+                            .append(',').append(record.getAction())
+                            .append(',').append(record.getQuantity())
+                            .append(',');
+                    if (record.getAction() == JournalAction.INTERVAL) {
+                        Formatter.appendInstant(line, record.getDueTimeMillis());
+                    } else {
+                        line.append(record.getPrice());
+                    }
+                    line.append(',').append(record.getBid())
+                            .append(',').append(record.getAsk());
+                    System.out.println(line);
+                }
+            });
+        }
+
+        if (summary) {
+            counts.forEach((key, count) -> System.out.println(key + "," + count));
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package journal;
+
+import market.OrderBookQuery;
+import market.TopOfBook;
+import model.VwapListener;
+import slice.Slice;
+import slice.SliceListener;
+import slice.SliceManager;
+import tca.FillLedger;
+import util.TimerService;
+
+import java.io.IOException;
+
+/**
+ * Binds an {@link ExecutionJournal} to one order.
+ * Register it on the order's SliceManager and Vwap to journal every slice action and interval.
+ */
+public class OrderJournal implements SliceListener, VwapListener {
+
+    private final ExecutionJournal journal;
+    private final long orderId;
+    private final TimerService timerService;
+    private final OrderBookQuery orderBook;
+    private final TopOfBook touch = new TopOfBook();
+
+    public OrderJournal(final ExecutionJournal journal,
+                        final long orderId,
+                        final TimerService timerService,
+                        final OrderBookQuery orderBook) {
+        this.journal = journal;
+        this.orderId = orderId;
+        this.timerService = timerService;
+        this.orderBook = orderBook;
+    }
+
+    @Override
+    public void onEntry(final Slice slice) {
+        append(slice.getSliceId(), JournalAction.ENTRY, slice.getSliceQuantity(), slice.getSlicePrice());
+    }
+
+    @Override
+    public void onAmend(final Slice slice) {
+        append(slice.getSliceId(), JournalAction.AMEND, slice.getOpenQuantity(), slice.getSlicePrice());
+    }
+
+    @Override
+    public void onFill(final Slice slice, final double filledQuantity, final double filledPrice) {
+        append(slice.getSliceId(), JournalAction.FILL, filledQuantity, filledPrice);
+    }
+
+    @Override
+    public void onAck(final Slice slice) {
+        append(slice.getSliceId(), JournalAction.ACK, slice.getOpenQuantity(), slice.getSlicePrice());
+    }
+
+    // quantity is the open quantity released by the reject
+    @Override
+    public void onReject(final Slice slice, final String reason) {
+        append(slice.getSliceId(), JournalAction.REJECT, slice.getOpenQuantity(), slice.getSlicePrice());
+    }
+
+    @Override
+    public void onIntervalCreated(final long dueTimeMillis, final double targetQuantity) {
+        orderBook.read(touch);
+        journal.appendInterval(timerService.nowMillis(), orderId, dueTimeMillis, targetQuantity,
+                touch.getBid(), touch.getAsk());
+    }
+
+    // rebuild the fill ledger of one order after a checkpoint restore, the checkpoint only keeps the totals
+    public static void replayFills(final JournalReader reader,
+                                   final long orderId,
+                                   final SliceManager sliceManager,
+                                   final FillLedger ledger) throws IOException {
+        reader.forEach(record -> {
+            if (record.getOrderId() == orderId && record.getAction() == JournalAction.FILL) {
+                final long quantity = Math.round(record.getQuantity());
+                final long ticks = sliceManager.toTicks(record.getPrice());
+                if (quantity > 0 && ticks > 0) {
+                    ledger.append(record.getTimestamp(), record.getSliceId(), quantity, ticks);
+                }
+            }
+        });
+    }
+
+    private void append(final long sliceId, final JournalAction action, final double quantity, final double price) {
+        orderBook.read(touch);
+        journal.append(timerService.nowMillis(), orderId, sliceId, action, quantity, price,
+                touch.getBid(), touch.getAsk());
+    }
+}
@@ -0,0 +1,24 @@
+package market;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One latest-value {@link OrderBook} per symbol, shared by the feed and the algos of that symbol.
+ * The feed thread overwrites the touch and readers only ever see the newest one, so bursts are conflated
+ * instead of queued and memory does not grow with the update rate. Single writer per symbol.
+ *
+ * A book starts without a touch. The feed looks its books up once with getBook, at subscription, and then
+ * updates them directly, so there is no map lookup per update.
+ */
+public class ConflatedMarketData {
+
+    private final ConcurrentHashMap<String, OrderBook> books = new ConcurrentHashMap<>();
+
+    public OrderBook getBook(final String symbol) {
+        return books.computeIfAbsent(symbol, s -> new OrderBook(Double.NaN, Double.NaN));
+    }
+
+    public int getSymbolCount() {
+        return books.size();
+    }
+}
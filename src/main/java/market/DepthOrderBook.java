@@ -0,0 +1,347 @@
+package market;
+
+import util.MathUtil;
+
+import java.util.Arrays;
+
+/**
+ * Full depth (L2) book of one symbol held in preallocated primitive arrays indexed by tick offset
+ * from a base price, so a level update is O(1) array access with no boxing or allocation.
+ * Updates outside the price window are dropped and counted.
+ *
+ * Our own resting slices can be tracked to estimate their queue position: a slice joins behind the
+ * quantity already at its level and behind our earlier slices at that level, trades hitting its side
+ * consume the queue ahead of it, and a shrinking level is assumed to cancel from the back unless it drops
+ * below the queue ahead. Level quantities are the market's, our own quantity is tracked on top of them.
+ *
+ * Updates and own slice tracking are single writer (the market data thread). Top of book reads are safe
+ * from any thread, read(TopOfBook) is consistent across bid, ask and sizes. Depth and queue reads only from
+ * the writer thread.
+ */
+public class DepthOrderBook implements OrderBookQuery {
+
+    private final double tickSize;
+    private final long baseTicks;
+    private final int levels;
+    private final long[] bidQty;
+    private final long[] askQty;
+
+    // best level index, -1 when the side is empty
+    private int bestBidIndex = -1;
+    private int bestAskIndex = -1;
+    private final SeqLockTouch touch = new SeqLockTouch(Double.NaN, Double.NaN);
+    private long droppedUpdates;
+
+    // own slices in dense arrays, removed by swapping in the last entry
+    private long[] ownSliceIds;
+    private boolean[] ownIsBuy;
+    private int[] ownIndex;
+    private long[] ownAhead;
+    private long[] ownQty;
+    private long[] ownTime;
+    private int ownCount;
+    private long ownSequence;
+
+    private volatile OrderBookListener[] listeners = new OrderBookListener[0];
+
+    public DepthOrderBook(final double basePrice, final double tickSize, final int levels) {
+
+        this.tickSize = tickSize;
+        this.baseTicks = MathUtil.toTicks(basePrice, tickSize);
+        this.levels = levels;
+        this.bidQty = new long[levels];
+        this.askQty = new long[levels];
+
+        final int ownCapacity = 16;
+        this.ownSliceIds = new long[ownCapacity];
+        this.ownIsBuy = new boolean[ownCapacity];
+        this.ownIndex = new int[ownCapacity];
+        this.ownAhead = new long[ownCapacity];
+        this.ownQty = new long[ownCapacity];
+        this.ownTime = new long[ownCapacity];
+    }
+
+    public synchronized void addListener(final OrderBookListener listener) {
+        final OrderBookListener[] updated = Arrays.copyOf(listeners, listeners.length + 1);
+        updated[listeners.length] = listener;
+        listeners = updated;
+    }
+
+    // set the total quantity at a price level, zero removes the level
+    public void updateBid(final double price, final long quantity) {
+        final int index = toIndex(price);
+        if (index < 0) {
+            droppedUpdates++;
+            return;
+        }
+        onLevelChange(true, index, bidQty[index], quantity);
+        bidQty[index] = quantity;
+        if (quantity > 0 && index > bestBidIndex) {
+            bestBidIndex = index;
+        } else if (quantity == 0 && index == bestBidIndex) {
+            while (bestBidIndex >= 0 && bidQty[bestBidIndex] == 0) {
+                bestBidIndex--;
+            }
+        }
+        publishTouch();
+    }
+
+    public void updateAsk(final double price, final long quantity) {
+        final int index = toIndex(price);
+        if (index < 0) {
+            droppedUpdates++;
+            return;
+        }
+        onLevelChange(false, index, askQty[index], quantity);
+        askQty[index] = quantity;
+        if (quantity > 0 && (bestAskIndex < 0 || index < bestAskIndex)) {
+            bestAskIndex = index;
+        } else if (quantity == 0 && index == bestAskIndex) {
+            while (bestAskIndex < levels && askQty[bestAskIndex] == 0) {
+                bestAskIndex++;
+            }
+            if (bestAskIndex == levels) {
+                bestAskIndex = -1;
+            }
+        }
+        publishTouch();
+    }
+
+    // a trade print at a price consumes the queue ahead of our slices resting on the passive side at that price,
+    // a buy aggressor trades against sells and a sell aggressor against buys
+    public void onTrade(final double price, final long quantity, final boolean isBuyAggressor) {
+        final int index = toIndex(price);
+        if (index < 0) {
+            return;
+        }
+        for (int i = 0; i < ownCount; i++) {
+            if (ownIndex[i] == index && ownIsBuy[i] != isBuyAggressor) {
+                ownAhead[i] = Math.max(0L, ownAhead[i] - quantity);
+            }
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(bidQty, 0L);
+        Arrays.fill(askQty, 0L);
+        bestBidIndex = -1;
+        bestAskIndex = -1;
+        ownCount = 0;
+        publishTouch();
+    }
+
+    @Override
+    public double getBid() {
+        return touch.getBid();
+    }
+
+    @Override
+    public double getAsk() {
+        return touch.getAsk();
+    }
+
+    @Override
+    public TopOfBook read(final TopOfBook snapshot) {
+        return touch.read(snapshot);
+    }
+
+    // quantity at a price on one side, 0 when the level is empty or outside the window
+    public long getBidQuantity(final double price) {
+        final int index = toIndex(price);
+        return index < 0 ? 0L : bidQty[index];
+    }
+
+    public long getAskQuantity(final double price) {
+        final int index = toIndex(price);
+        return index < 0 ? 0L : askQty[index];
+    }
+
+    // price of the n-th non empty level from the touch, NaN when the book is not that deep
+    public double getBidPrice(final int depth) {
+        int found = -1;
+        for (int i = bestBidIndex; i >= 0; i--) {
+            if (bidQty[i] > 0 && ++found == depth) {
+                return toPrice(i);
+            }
+        }
+        return Double.NaN;
+    }
+
+    public double getAskPrice(final int depth) {
+        if (bestAskIndex < 0) {
+            return Double.NaN;
+        }
+        int found = -1;
+        for (int i = bestAskIndex; i < levels; i++) {
+            if (askQty[i] > 0 && ++found == depth) {
+                return toPrice(i);
+            }
+        }
+        return Double.NaN;
+    }
+
+    // total quantity of the first n non empty levels
+    public long getBidDepth(final int depth) {
+        long total = 0;
+        int found = 0;
+        for (int i = bestBidIndex; i >= 0 && found < depth; i--) {
+            if (bidQty[i] > 0) {
+                total += bidQty[i];
+                found++;
+            }
+        }
+        return total;
+    }
+
+    public long getAskDepth(final int depth) {
+        long total = 0;
+        int found = 0;
+        for (int i = Math.max(bestAskIndex, 0); bestAskIndex >= 0 && i < levels && found < depth; i++) {
+            if (askQty[i] > 0) {
+                total += askQty[i];
+                found++;
+            }
+        }
+        return total;
+    }
+
+    // start tracking one of our slices, it queues behind what is already displayed at its price
+    public void addOwnSlice(final long sliceId, final boolean isBuy, final double price, final long quantity) {
+
+        final int index = toIndex(price);
+        if (index < 0) {
+            throw new IllegalArgumentException("Price " + price + " outside of book window");
+        }
+        if (ownCount == ownSliceIds.length) {
+            final int capacity = ownCount * 2;
+            ownSliceIds = Arrays.copyOf(ownSliceIds, capacity);
+            ownIsBuy = Arrays.copyOf(ownIsBuy, capacity);
+            ownIndex = Arrays.copyOf(ownIndex, capacity);
+            ownAhead = Arrays.copyOf(ownAhead, capacity);
+            ownQty = Arrays.copyOf(ownQty, capacity);
+            ownTime = Arrays.copyOf(ownTime, capacity);
+        }
+        ownSliceIds[ownCount] = sliceId;
+        ownIsBuy[ownCount] = isBuy;
+        ownIndex[ownCount] = index;
+        ownAhead[ownCount] = isBuy ? bidQty[index] : askQty[index];
+        ownQty[ownCount] = quantity;
+        ownTime[ownCount] = ownSequence++;
+        ownCount++;
+    }
+
+    // amending to a new price loses the queue position
+    public void amendOwnSlice(final long sliceId, final double price) {
+        final int i = findOwn(sliceId);
+        if (i < 0) {
+            return;
+        }
+        final int index = toIndex(price);
+        if (index != ownIndex[i]) {
+            final boolean isBuy = ownIsBuy[i];
+            final long quantity = ownQty[i];
+            removeAt(i);
+            addOwnSlice(sliceId, isBuy, price, quantity);
+        }
+    }
+
+    // a fill reduces our quantity ahead of later slices, a fully filled slice is no longer tracked
+    public void fillOwnSlice(final long sliceId, final long filledQuantity) {
+        final int i = findOwn(sliceId);
+        if (i < 0) {
+            return;
+        }
+        ownQty[i] -= filledQuantity;
+        if (ownQty[i] <= 0) {
+            removeAt(i);
+        }
+    }
+
+    public void removeOwnSlice(final long sliceId) {
+        final int i = findOwn(sliceId);
+        if (i >= 0) {
+            removeAt(i);
+        }
+    }
+
+    // estimated quantity queued ahead of our slice at its level including our own earlier slices,
+    // -1 when the slice is not tracked
+    public long getQueueAhead(final long sliceId) {
+        final int i = findOwn(sliceId);
+        if (i < 0) {
+            return -1L;
+        }
+        long ahead = ownAhead[i];
+        for (int j = 0; j < ownCount; j++) {
+            if (ownIndex[j] == ownIndex[i] && ownIsBuy[j] == ownIsBuy[i] && ownTime[j] < ownTime[i]) {
+                ahead += ownQty[j];
+            }
+        }
+        return ahead;
+    }
+
+    public int getOwnSliceCount() {
+        return ownCount;
+    }
+
+    public double getTickSize() {
+        return tickSize;
+    }
+
+    public long getDroppedUpdates() {
+        return droppedUpdates;
+    }
+
+    private void onLevelChange(final boolean isBuy, final int index, final long before, final long after) {
+        if (after >= before) {
+            return;
+        }
+        for (int i = 0; i < ownCount; i++) {
+            if (ownIndex[i] == index && ownIsBuy[i] == isBuy && ownAhead[i] > after) {
+                ownAhead[i] = after;
+            }
+        }
+    }
+
+    private void publishTouch() {
+
+        final double newBid = bestBidIndex < 0 ? Double.NaN : toPrice(bestBidIndex);
+        final double newAsk = bestAskIndex < 0 ? Double.NaN : toPrice(bestAskIndex);
+        final long bidSize = bestBidIndex < 0 ? 0L : bidQty[bestBidIndex];
+        final long askSize = bestAskIndex < 0 ? 0L : askQty[bestAskIndex];
+        if (!touch.write(newBid, newAsk, bidSize, askSize)) {
+            return;
+        }
+        for (OrderBookListener listener : listeners) {
+            listener.onOrderBookUpdate(this);
+        }
+    }
+
+    private int findOwn(final long sliceId) {
+        for (int i = 0; i < ownCount; i++) {
+            if (ownSliceIds[i] == sliceId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void removeAt(final int i) {
+        final int last = --ownCount;
+        ownSliceIds[i] = ownSliceIds[last];
+        ownIsBuy[i] = ownIsBuy[last];
+        ownIndex[i] = ownIndex[last];
+        ownAhead[i] = ownAhead[last];
+        ownQty[i] = ownQty[last];
+        ownTime[i] = ownTime[last];
+    }
+
+    private int toIndex(final double price) {
+        final long offset = MathUtil.toTicks(price, tickSize) - baseTicks;
+        return offset < 0 || offset >= levels ? -1 : (int) offset;
+    }
+
+    private double toPrice(final int index) {
+        return MathUtil.toPrice(baseTicks + index, tickSize);
+    }
+}
@@ -0,0 +1,58 @@
+package market;
+
+import java.util.Arrays;
+
+/**
+ * Top of book maintained by the market data thread.
+ * Listeners are notified on the market data thread whenever the touch changes.
+ * read(TopOfBook) gives readers on other threads a consistent bid, ask and sizes.
+ */
+public class OrderBook implements OrderBookQuery {
+
+    private final SeqLockTouch touch;
+    private volatile OrderBookListener[] listeners = new OrderBookListener[0];
+
+    public OrderBook(final double bid, final double ask) {
+        this.touch = new SeqLockTouch(bid, ask);
+    }
+
+    public synchronized void addListener(final OrderBookListener listener) {
+        final OrderBookListener[] updated = Arrays.copyOf(listeners, listeners.length + 1);
+        updated[listeners.length] = listener;
+        listeners = updated;
+    }
+
+    public void update(final double newBid, final double newAsk) {
+        update(newBid, newAsk, 0L, 0L);
+    }
+
+    public void update(final double newBid, final double newAsk, final long bidSize, final long askSize) {
+
+        if (!touch.write(newBid, newAsk, bidSize, askSize)) {
+            return;
+        }
+        for (OrderBookListener listener : listeners) {
+            listener.onOrderBookUpdate(this);
+        }
+    }
+
+    @Override
+    public TopOfBook read(final TopOfBook snapshot) {
+        return touch.read(snapshot);
+    }
+
+    // number of updates published so far
+    public long getSequence() {
+        return touch.getSequence();
+    }
+
+    @Override
+    public double getBid() {
+        return touch.getBid();
+    }
+
+    @Override
+    public double getAsk() {
+        return touch.getAsk();
+    }
+}
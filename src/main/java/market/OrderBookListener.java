@@ -0,0 +1,6 @@
+package market;
+
+public interface OrderBookListener {
+
+    void onOrderBookUpdate(final OrderBookQuery orderBook);
+}
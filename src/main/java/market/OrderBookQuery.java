@@ -5,4 +5,10 @@ public interface OrderBookQuery {
     double getBid();
 
     double getAsk();
+
+    // bid, ask and sizes of one update, books written by another thread override this with a consistent read
+    default TopOfBook read(final TopOfBook snapshot) {
+        snapshot.set(getBid(), getAsk(), 0L, 0L, -1L);
+        return snapshot;
+    }
 }
@@ -0,0 +1,69 @@
+package market;
+
+/**
+ * Touch guarded by a sequence lock, shared by the book implementations.
+ * The sequence is odd while a write is in progress, a reader retries until it sees the same even sequence
+ * before and after reading the fields. All fields are volatile so the reads cannot be reordered around the
+ * sequence (no fences before Java 9). Single writer, any number of wait-free-for-the-writer readers.
+ */
+class SeqLockTouch {
+
+    private volatile long sequence;
+    private volatile double bid;
+    private volatile double ask;
+    private volatile long bidSize;
+    private volatile long askSize;
+
+    SeqLockTouch(final double bid, final double ask) {
+        this.bid = bid;
+        this.ask = ask;
+    }
+
+    // return true when the touch changed
+    boolean write(final double newBid, final double newAsk, final long newBidSize, final long newAskSize) {
+
+        if (Double.compare(bid, newBid) == 0 && Double.compare(ask, newAsk) == 0
+                && bidSize == newBidSize && askSize == newAskSize) {
+            return false;
+        }
+
+        final long current = sequence;
+        sequence = current + 1;
+        bid = newBid;
+        ask = newAsk;
+        bidSize = newBidSize;
+        askSize = newAskSize;
+        sequence = current + 2;
+        return true;
+    }
+
+    TopOfBook read(final TopOfBook snapshot) {
+
+        while (true) {
+            final long before = sequence;
+            if ((before & 1L) == 0) {
+                final double readBid = bid;
+                final double readAsk = ask;
+                final long readBidSize = bidSize;
+                final long readAskSize = askSize;
+                if (before == sequence) {
+                    snapshot.set(readBid, readAsk, readBidSize, readAskSize, before >>> 1);
+                    return snapshot;
+                }
+            }
+            Thread.yield();
+        }
+    }
+
+    double getBid() {
+        return bid;
+    }
+
+    double getAsk() {
+        return ask;
+    }
+
+    long getSequence() {
+        return sequence >>> 1;
+    }
+}
@@ -0,0 +1,51 @@
+package market;
+
+/**
+ * Mutable snapshot of the touch, filled by a consistent read and reused by the reader to stay allocation free.
+ */
+public class TopOfBook {
+
+    private double bid = Double.NaN;
+    private double ask = Double.NaN;
+    private long bidSize;
+    private long askSize;
+    private long sequence = -1L;
+
+    void set(final double bid, final double ask, final long bidSize, final long askSize, final long sequence) {
+        this.bid = bid;
+        this.ask = ask;
+        this.bidSize = bidSize;
+        this.askSize = askSize;
+        this.sequence = sequence;
+    }
+
+    public double getBid() {
+        return bid;
+    }
+
+    public double getAsk() {
+        return ask;
+    }
+
+    // quantity at the touch in shares, 0 when the book does not carry sizes
+    public long getBidSize() {
+        return bidSize;
+    }
+
+    public long getAskSize() {
+        return askSize;
+    }
+
+    // number of updates published before this snapshot, -1 when the book is not sequenced
+    public long getSequence() {
+        return sequence;
+    }
+
+    public double getPassivePrice(final boolean isBuy) {
+        return isBuy ? bid : ask;
+    }
+
+    public double getFarTouch(final boolean isBuy) {
+        return isBuy ? ask : bid;
+    }
+}
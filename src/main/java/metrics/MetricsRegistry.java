@@ -0,0 +1,169 @@
+package metrics;
+
+import util.LatencyHistogram;
+import volume.VolumeTracker;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToLongFunction;
+
+/**
+ * Publishes metrics as JMX MBeans: one per order (vwap:type=Order,orderId=...), one per symbol
+ * (vwap:type=Symbol,name=...) and this registry itself (vwap:type=Orders) aggregating all registered orders.
+ * Aggregates are computed when read, the hot path only updates the per order metrics.
+ */
+public class MetricsRegistry implements MetricsRegistryMBean {
+
+    private static final String DOMAIN = "vwap";
+
+    private static volatile MetricsRegistry defaultRegistry;
+
+    private final MBeanServer server;
+    private final Map<Long, OrderMetrics> orders = new ConcurrentHashMap<>();
+
+    public MetricsRegistry(final MBeanServer server) {
+        this.server = server;
+        register(this, DOMAIN + ":type=Orders");
+    }
+
+    // process wide registry on the platform MBean server
+    public static MetricsRegistry getDefault() {
+
+        if (defaultRegistry == null) {
+            synchronized (MetricsRegistry.class) {
+                if (defaultRegistry == null) {
+                    defaultRegistry = new MetricsRegistry(ManagementFactory.getPlatformMBeanServer());
+                }
+            }
+        }
+        return defaultRegistry;
+    }
+
+    public void register(final OrderMetrics metrics) {
+        orders.put(metrics.getOrderId(), metrics);
+        register(metrics, DOMAIN + ":type=Order,orderId=" + metrics.getOrderId());
+    }
+
+    public void unregister(final OrderMetrics metrics) {
+        orders.remove(metrics.getOrderId());
+        unregister(DOMAIN + ":type=Order,orderId=" + metrics.getOrderId());
+    }
+
+    public void register(final String symbol, final VolumeTracker volumeTracker) {
+        register(new SymbolMetrics(volumeTracker), DOMAIN + ":type=Symbol,name=" + ObjectName.quote(symbol));
+    }
+
+    @Override
+    public int getOrderCount() {
+        return orders.size();
+    }
+
+    @Override
+    public long getRunCount() {
+        return sum(OrderMetrics::getRunCount);
+    }
+
+    @Override
+    public long getEvaluationCount() {
+        return sum(OrderMetrics::getEvaluationCount);
+    }
+
+    @Override
+    public long getLayerCount() {
+        return sum(OrderMetrics::getLayerCount);
+    }
+
+    @Override
+    public long getPegCount() {
+        return sum(OrderMetrics::getPegCount);
+    }
+
+    @Override
+    public long getCrossCount() {
+        return sum(OrderMetrics::getCrossCount);
+    }
+
+    @Override
+    public long getEntryCount() {
+        return sum(OrderMetrics::getEntryCount);
+    }
+
+    @Override
+    public long getAmendCount() {
+        return sum(OrderMetrics::getAmendCount);
+    }
+
+    @Override
+    public long getFillCount() {
+        return sum(OrderMetrics::getFillCount);
+    }
+
+    @Override
+    public long getRejectCount() {
+        return sum(OrderMetrics::getRejectCount);
+    }
+
+    @Override
+    public long getOpenSliceCount() {
+        return sum(OrderMetrics::getOpenSliceCount);
+    }
+
+    @Override
+    public long getRunLatencyP50Nanos() {
+        return getRunLatency().getPercentile(50.0);
+    }
+
+    @Override
+    public long getRunLatencyP99Nanos() {
+        return getRunLatency().getPercentile(99.0);
+    }
+
+    @Override
+    public long getRunLatencyMaxNanos() {
+        return getRunLatency().getMax();
+    }
+
+    // all orders merged into one histogram
+    public LatencyHistogram getRunLatency() {
+        final LatencyHistogram merged = new LatencyHistogram();
+        for (OrderMetrics metrics : orders.values()) {
+            merged.add(metrics.getRunLatency());
+        }
+        return merged;
+    }
+
+    private long sum(final ToLongFunction<OrderMetrics> getter) {
+        long total = 0;
+        for (OrderMetrics metrics : orders.values()) {
+            total += getter.applyAsLong(metrics);
+        }
+        return total;
+    }
+
+    private void register(final Object mbean, final String name) {
+        try {
+            final ObjectName objectName = new ObjectName(name);
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+            server.registerMBean(mbean, objectName);
+        } catch (JMException e) {
+            throw new IllegalStateException("Failed to register MBean " + name, e);
+        }
+    }
+
+    private void unregister(final String name) {
+        try {
+            final ObjectName objectName = new ObjectName(name);
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Failed to unregister MBean " + name, e);
+        }
+    }
+}
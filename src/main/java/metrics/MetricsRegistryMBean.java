@@ -0,0 +1,32 @@
+package metrics;
+
+public interface MetricsRegistryMBean {
+
+    int getOrderCount();
+
+    long getRunCount();
+
+    long getEvaluationCount();
+
+    long getLayerCount();
+
+    long getPegCount();
+
+    long getCrossCount();
+
+    long getEntryCount();
+
+    long getAmendCount();
+
+    long getFillCount();
+
+    long getRejectCount();
+
+    long getOpenSliceCount();
+
+    long getRunLatencyP50Nanos();
+
+    long getRunLatencyP99Nanos();
+
+    long getRunLatencyMaxNanos();
+}
@@ -0,0 +1,221 @@
+package metrics;
+
+import slice.Slice;
+import slice.SliceListener;
+import slice.SliceManager;
+import tca.TransactionCost;
+import util.LatencyHistogram;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Run latency and action counters of one order.
+ * Updated by the algo thread, read from any thread (JMX, see {@link MetricsRegistry}). A counter has a single
+ * writer, so it is bumped with a plain read and an ordered lazySet instead of a locked read-modify-write.
+ * Slice actions are counted as a listener of the order's SliceManager, transaction cost is read from
+ * the order's TransactionCost when there is one.
+ */
+public class OrderMetrics implements OrderMetricsMBean, SliceListener {
+
+    private final long orderId;
+    private final SliceManager sliceManager;
+    private final TransactionCost transactionCost;
+    private final LatencyHistogram runLatency = new LatencyHistogram();
+    private final AtomicLong evaluations = new AtomicLong();
+    private final AtomicLong layers = new AtomicLong();
+    private final AtomicLong pegs = new AtomicLong();
+    private final AtomicLong crosses = new AtomicLong();
+    private final AtomicLong entries = new AtomicLong();
+    private final AtomicLong amends = new AtomicLong();
+    private final AtomicLong fills = new AtomicLong();
+    private final AtomicLong rejects = new AtomicLong();
+
+    public OrderMetrics(final long orderId, final SliceManager sliceManager) {
+        this(orderId, sliceManager, null);
+    }
+
+    public OrderMetrics(final long orderId, final SliceManager sliceManager, final TransactionCost transactionCost) {
+        this.orderId = orderId;
+        this.sliceManager = sliceManager;
+        this.transactionCost = transactionCost;
+        sliceManager.addListener(this);
+    }
+
+    public void onRun(final long elapsedNanos, final boolean evaluated) {
+        runLatency.record(elapsedNanos);
+        if (evaluated) {
+            increment(evaluations);
+        }
+    }
+
+    public void onLayer() {
+        increment(layers);
+    }
+
+    public void onPeg() {
+        increment(pegs);
+    }
+
+    public void onCross() {
+        increment(crosses);
+    }
+
+    @Override
+    public void onEntry(final Slice slice) {
+        increment(entries);
+    }
+
+    @Override
+    public void onAmend(final Slice slice) {
+        increment(amends);
+    }
+
+    @Override
+    public void onFill(final Slice slice, final double filledQuantity, final double filledPrice) {
+        increment(fills);
+    }
+
+    @Override
+    public void onReject(final Slice slice, final String reason) {
+        increment(rejects);
+    }
+
+    public LatencyHistogram getRunLatency() {
+        return runLatency;
+    }
+
+    @Override
+    public long getOrderId() {
+        return orderId;
+    }
+
+    @Override
+    public long getRunCount() {
+        return runLatency.getCount();
+    }
+
+    @Override
+    public long getEvaluationCount() {
+        return evaluations.get();
+    }
+
+    @Override
+    public long getLayerCount() {
+        return layers.get();
+    }
+
+    @Override
+    public long getPegCount() {
+        return pegs.get();
+    }
+
+    @Override
+    public long getCrossCount() {
+        return crosses.get();
+    }
+
+    @Override
+    public long getEntryCount() {
+        return entries.get();
+    }
+
+    @Override
+    public long getAmendCount() {
+        return amends.get();
+    }
+
+    @Override
+    public long getFillCount() {
+        return fills.get();
+    }
+
+    @Override
+    public long getRejectCount() {
+        return rejects.get();
+    }
+
+    // racy read of the owner thread's state, good enough for monitoring
+    @Override
+    public int getOpenSliceCount() {
+        return sliceManager.getOpenSliceCount();
+    }
+
+    @Override
+    public long getRunLatencyMeanNanos() {
+        return runLatency.getMean();
+    }
+
+    @Override
+    public long getRunLatencyP50Nanos() {
+        return runLatency.getPercentile(50.0);
+    }
+
+    @Override
+    public long getRunLatencyP99Nanos() {
+        return runLatency.getPercentile(99.0);
+    }
+
+    @Override
+    public long getRunLatencyMaxNanos() {
+        return runLatency.getMax();
+    }
+
+    @Override
+    public long getEntryLatencyP99Nanos() {
+        return sliceManager.getEntryLatency().getPercentile(99.0);
+    }
+
+    @Override
+    public long getEntryLatencyMaxNanos() {
+        return sliceManager.getEntryLatency().getMax();
+    }
+
+    @Override
+    public long getAmendLatencyP99Nanos() {
+        return sliceManager.getAmendLatency().getPercentile(99.0);
+    }
+
+    @Override
+    public long getAmendLatencyMaxNanos() {
+        return sliceManager.getAmendLatency().getMax();
+    }
+
+    @Override
+    public long getFillLatencyP99Nanos() {
+        return sliceManager.getFillLatency().getPercentile(99.0);
+    }
+
+    @Override
+    public long getFillLatencyMaxNanos() {
+        return sliceManager.getFillLatency().getMax();
+    }
+
+    @Override
+    public double getAvgFilledPrice() {
+        return transactionCost == null ? Double.NaN : transactionCost.getAvgFilledPrice();
+    }
+
+    @Override
+    public double getSlippageBps() {
+        return transactionCost == null ? Double.NaN : transactionCost.getSlippageBps();
+    }
+
+    @Override
+    public double getShortfallBps() {
+        return transactionCost == null ? Double.NaN : transactionCost.getShortfallBps();
+    }
+
+    @Override
+    public double getTotalShortfallBps() {
+        return transactionCost == null ? Double.NaN : transactionCost.getTotalShortfallBps();
+    }
+
+    @Override
+    public double getParticipationPct() {
+        return transactionCost == null ? Double.NaN : transactionCost.getParticipationPct();
+    }
+
+    private static void increment(final AtomicLong counter) {
+        counter.lazySet(counter.get() + 1);
+    }
+}
@@ -0,0 +1,56 @@
+package metrics;
+
+public interface OrderMetricsMBean {
+
+    long getOrderId();
+
+    long getRunCount();
+
+    long getEvaluationCount();
+
+    long getLayerCount();
+
+    long getPegCount();
+
+    long getCrossCount();
+
+    long getEntryCount();
+
+    long getAmendCount();
+
+    long getFillCount();
+
+    long getRejectCount();
+
+    int getOpenSliceCount();
+
+    long getRunLatencyMeanNanos();
+
+    long getRunLatencyP50Nanos();
+
+    long getRunLatencyP99Nanos();
+
+    long getRunLatencyMaxNanos();
+
+    long getEntryLatencyP99Nanos();
+
+    long getEntryLatencyMaxNanos();
+
+    long getAmendLatencyP99Nanos();
+
+    long getAmendLatencyMaxNanos();
+
+    long getFillLatencyP99Nanos();
+
+    long getFillLatencyMaxNanos();
+
+    double getAvgFilledPrice();
+
+    double getSlippageBps();
+
+    double getShortfallBps();
+
+    double getTotalShortfallBps();
+
+    double getParticipationPct();
+}
@@ -0,0 +1,43 @@
+package metrics;
+
+import volume.VolumeSnapshot;
+import volume.VolumeTracker;
+
+/**
+ * Trade print handling of one symbol's VolumeTracker.
+ */
+public class SymbolMetrics implements SymbolMetricsMBean {
+
+    private final VolumeTracker volumeTracker;
+
+    public SymbolMetrics(final VolumeTracker volumeTracker) {
+        this.volumeTracker = volumeTracker;
+    }
+
+    @Override
+    public long getTradeCount() {
+        final VolumeSnapshot snapshot = new VolumeSnapshot();
+        volumeTracker.getSnapshot(snapshot);
+        return snapshot.getTradeCount();
+    }
+
+    @Override
+    public long getVolume() {
+        return volumeTracker.getCumulativeVolume();
+    }
+
+    @Override
+    public long getTradeLatencyP50Nanos() {
+        return volumeTracker.getTradeLatency().getPercentile(50.0);
+    }
+
+    @Override
+    public long getTradeLatencyP99Nanos() {
+        return volumeTracker.getTradeLatency().getPercentile(99.0);
+    }
+
+    @Override
+    public long getTradeLatencyMaxNanos() {
+        return volumeTracker.getTradeLatency().getMax();
+    }
+}
@@ -0,0 +1,14 @@
+package metrics;
+
+public interface SymbolMetricsMBean {
+
+    long getTradeCount();
+
+    long getVolume();
+
+    long getTradeLatencyP50Nanos();
+
+    long getTradeLatencyP99Nanos();
+
+    long getTradeLatencyMaxNanos();
+}
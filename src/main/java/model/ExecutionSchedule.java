@@ -0,0 +1,116 @@
+package model;
+
+import order.Urgency;
+import volume.VolumeProfile;
+
+/**
+ * Precompiled plan of an order: interval due times, crossing start times and low, desire and upper
+ * target fractions of the order quantity per interval, held in primitive arrays.
+ *
+ * Intervals are aligned on the order start, interval i runs up to and including its due time
+ * start + (i + 1) * interval length. A schedule only depends on the profile, the order window, the config,
+ * the urgency and get done, so orders sharing those share one instance through a {@link ScheduleCache}.
+ */
+public final class ExecutionSchedule {
+
+    private final long startMillis;
+    private final long intervalMillis;
+    private final Urgency urgency;
+    private final boolean done;
+    private final long[] dueMillis;
+    private final long[] crossingMillis;
+    private final double[] lowerFractions;
+    private final double[] desireFractions;
+    private final double[] upperFractions;
+    private final double[] targetFractions;
+
+    ExecutionSchedule(final VolumeProfile profile,
+                      final long startMillis,
+                      final long endMillis,
+                      final VwapConfig config,
+                      final Urgency urgency,
+                      final boolean done) {
+
+        this.startMillis = startMillis;
+        this.intervalMillis = config.getIntervalLength().toMillis();
+        this.urgency = urgency;
+        this.done = done;
+
+        final int count = (int) Math.max(1L, (endMillis - startMillis + intervalMillis - 1) / intervalMillis);
+        final long lowerDelayMillis = config.getLowerCurveDelay().toMillis();
+        final long upperAheadMillis = config.getUpperCurveAhead().toMillis();
+        final long crossingOffsetMillis = config.getCrossingStartOffset(urgency).toMillis();
+
+        dueMillis = new long[count];
+        crossingMillis = new long[count];
+        lowerFractions = new double[count];
+        desireFractions = new double[count];
+        upperFractions = new double[count];
+        targetFractions = new double[count];
+        for (int i = 0; i < count; i++) {
+            final long due = startMillis + (i + 1) * intervalMillis;
+            dueMillis[i] = due;
+            crossingMillis[i] = due - crossingOffsetMillis;
+            lowerFractions[i] = profile.getVolume(due - lowerDelayMillis);
+            desireFractions[i] = profile.getVolume(due);
+            upperFractions[i] = profile.getVolume(due + upperAheadMillis);
+            targetFractions[i] = selectTarget(i);
+        }
+    }
+
+    // index of the interval now falls in, a time exactly on a due time still belongs to that interval
+    public int getIntervalIndex(final long nowMillis) {
+        if (nowMillis <= startMillis) {
+            return 0;
+        }
+        return (int) Math.min((nowMillis - startMillis - 1) / intervalMillis, dueMillis.length - 1);
+    }
+
+    public int getIntervalCount() {
+        return dueMillis.length;
+    }
+
+    public long getDueMillis(final int index) {
+        return dueMillis[index];
+    }
+
+    // crossing starts once now is strictly after this time
+    public long getCrossingMillis(final int index) {
+        return crossingMillis[index];
+    }
+
+    public double getLowerFraction(final int index) {
+        return lowerFractions[index];
+    }
+
+    public double getDesireFraction(final int index) {
+        return desireFractions[index];
+    }
+
+    public double getUpperFraction(final int index) {
+        return upperFractions[index];
+    }
+
+    // fraction of the order quantity to have filled or open by the due time, based on urgency and get done
+    public double getTargetFraction(final int index) {
+        return targetFractions[index];
+    }
+
+    public boolean isCompiledFor(final Urgency urgency, final boolean done) {
+        return this.urgency == urgency && this.done == done;
+    }
+
+    private double selectTarget(final int index) {
+
+        switch (urgency) {
+
+            case LOW:
+                return upperFractions[index];
+            case MEDIUM:
+                return desireFractions[index];
+            case HIGH:
+            default:
+                return done ? upperFractions[index] : lowerFractions[index];
+        }
+    }
+}
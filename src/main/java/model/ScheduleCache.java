@@ -0,0 +1,106 @@
+package model;
+
+import order.Urgency;
+import volume.VolumeProfile;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Compiled {@link ExecutionSchedule}s shared by the orders of one owner, an engine or a backtest, instead of
+ * process wide, so owners never see each other's schedules or keep them alive.
+ *
+ * Bounded: past the capacity the least recently used schedule is evicted, and with it the reference to its
+ * profile (a {@link volume.HistoricalProfile} maps its file). Lookups are synchronized, they only happen when an
+ * order compiles its schedule, at its first run or when its urgency changes.
+ */
+public class ScheduleCache {
+
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private final Map<Key, ExecutionSchedule> schedules;
+
+    public ScheduleCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ScheduleCache(final int capacity) {
+
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Invalid schedule cache capacity " + capacity);
+        }
+        schedules = new LinkedHashMap<Key, ExecutionSchedule>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Key, ExecutionSchedule> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    // shared schedule for the given inputs, compiled on first use
+    public synchronized ExecutionSchedule get(final VolumeProfile profile,
+                                              final long startMillis,
+                                              final long endMillis,
+                                              final VwapConfig config,
+                                              final Urgency urgency,
+                                              final boolean done) {
+
+        final Key key = new Key(profile, startMillis, endMillis, config, urgency, done);
+        ExecutionSchedule schedule = schedules.get(key);
+        if (schedule == null) {
+            schedule = new ExecutionSchedule(profile, startMillis, endMillis, config, urgency, done);
+            schedules.put(key, schedule);
+        }
+        return schedule;
+    }
+
+    public synchronized int size() {
+        return schedules.size();
+    }
+
+    private static final class Key {
+
+        private final VolumeProfile profile;
+        private final long startMillis;
+        private final long endMillis;
+        private final VwapConfig config;
+        private final Urgency urgency;
+        private final boolean done;
+
+        Key(final VolumeProfile profile, final long startMillis, final long endMillis, final VwapConfig config,
+            final Urgency urgency, final boolean done) {
+            this.profile = profile;
+            this.startMillis = startMillis;
+            this.endMillis = endMillis;
+            this.config = config;
+            this.urgency = urgency;
+            this.done = done;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key that = (Key) o;
+            return startMillis == that.startMillis
+                    && endMillis == that.endMillis
+                    && done == that.done
+                    && urgency == that.urgency
+                    && profile.equals(that.profile)
+                    && config.equals(that.config);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(profile, startMillis, endMillis, config, urgency, done);
+        }
+    }
+}
@@ -1,19 +1,33 @@
 package model;
 
+import market.OrderBookListener;
 import market.OrderBookQuery;
+import market.TopOfBook;
+import metrics.OrderMetrics;
 import order.Order;
 import order.Parameter;
+import order.Urgency;
+import outbound.OutboundActions;
+import outbound.VenueThrottle;
 import slice.Slice;
+import slice.SliceListener;
 import slice.SliceManager;
-import util.Formatter;
+import tca.TransactionCost;
 import util.Logger;
+import util.MathUtil;
 import util.TimerService;
+import volume.TradeEvent;
+import volume.TradeEventNotifier;
 import volume.VolumeProfile;
 import volume.VolumeTracker;
+import volume.VolumeWindow;
 
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 import java.time.Duration;
-import java.time.Instant;
+import java.util.Arrays;
 import java.util.TimerTask;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  *  The implementation of VWAP algorithm
@@ -25,14 +39,26 @@ import java.util.TimerTask;
  *  (4) Cross passive slice when crossing time is reached
  *  (5) VWAP logic run between start time and end time only
  *  (6) Support three target curve ( low, desire, upper) use by different urgent setting
+ *  (7) Cap executed plus open quantity to max participation of the last 5 minutes market volume, max pct of 100 or more is unlimited
+ *  (8) Slice actions of one run are coalesced and sent within the venue message budget, see OutboundActions
+ *  (9) State can be checkpointed on the algo thread and restored after a restart, see CheckpointStore
+ *  (10) Transaction cost (slippage, shortfall, participation) is updated on every fill, see TransactionCost
+ *
+ *  The algo only re-evaluates when something changed: the touch moved, a trade or fill arrived
+ *  (register it on the order book and volume tracker to be pushed those), or an interval or crossing
+ *  deadline passed. Other calls to run() return after a few field reads.
  *
  *  Please run VwapTest.testVwap() for quick simulation
  */
-public class Vwap extends TimerTask {
+public class Vwap extends TimerTask implements OrderBookListener, TradeEventNotifier {
 
     public static final Duration INTERVAL_LENGTH = Duration.ofSeconds(3600);
     public static final Duration LOWER_CURVE_DELAY = Duration.ofSeconds(600);
     public static final Duration UPPER_CURVE_AHEAD = Duration.ofSeconds(400);
+    // market volume window the max participation applies to
+    public static final long PARTICIPATION_WINDOW_MILLIS = VolumeTracker.FIVE_MINUTES;
+    private static final int PARTICIPATION_BUCKETS = 60;
+    private static final int CHECKPOINT_CAPACITY = 4096;
 
     private final Order order;
     private final VolumeProfile volumeProfile;
@@ -42,7 +68,36 @@ public class Vwap extends TimerTask {
     private final OrderBookQuery orderBook;
     private final Parameter parameter;
     private final Logger logger;
+    private final VwapConfig config;
+    private final ScheduleCache scheduleCache;
+    private final OutboundActions actions;
+    private final TransactionCost transactionCost;
+    private final OrderMetrics metrics;
+    // own fills over the participation window, fills are applied on the algo thread
+    private final VolumeWindow executedWindow = new VolumeWindow(PARTICIPATION_WINDOW_MILLIS, PARTICIPATION_BUCKETS);
+    private final long startMillis;
+    private final long endMillis;
+    private ExecutionSchedule schedule;
     private Interval interval;
+    private volatile VwapListener[] listeners = new VwapListener[0];
+
+    // set from market data and fill threads, taken and cleared atomically by the algo thread when it evaluates
+    private final AtomicBoolean dirty = new AtomicBoolean(true);
+    private long nextDeadlineMillis;
+    // next attempt when actions were held back by the venue throttle
+    private long retryAtMillis = Long.MAX_VALUE;
+
+    // checkpoint is captured on the algo thread on request into one of two preallocated buffers, which take
+    // turns so the one published last is not written while a reader copies it
+    private final ByteBuffer[] checkpointBuffers = {
+            ByteBuffer.allocate(CHECKPOINT_CAPACITY), ByteBuffer.allocate(CHECKPOINT_CAPACITY)};
+    private int checkpointIndex;
+    private volatile boolean checkpointRequested;
+    private volatile ByteBuffer checkpoint;
+    // one consistent touch per run, every price decision of the run uses it
+    private final TopOfBook touch = new TopOfBook();
+    private double lastBid = Double.NaN;
+    private double lastAsk = Double.NaN;
 
     public Vwap(final VolumeProfile volumeProfile,
                 final Order order,
@@ -52,6 +107,48 @@ public class Vwap extends TimerTask {
                 final OrderBookQuery orderBook,
                 final Parameter parameter,
                 final Logger logger) {
+        this(volumeProfile, order, timerService, volumeTracker, sliceManager, orderBook, parameter, logger, VwapConfig.DEFAULT);
+    }
+
+    public Vwap(final VolumeProfile volumeProfile,
+                final Order order,
+                final TimerService timerService,
+                final VolumeTracker volumeTracker,
+                final SliceManager sliceManager,
+                final OrderBookQuery orderBook,
+                final Parameter parameter,
+                final Logger logger,
+                final VwapConfig config) {
+        this(volumeProfile, order, timerService, volumeTracker, sliceManager, orderBook, parameter, logger, config,
+                VenueThrottle.UNLIMITED);
+    }
+
+    public Vwap(final VolumeProfile volumeProfile,
+                final Order order,
+                final TimerService timerService,
+                final VolumeTracker volumeTracker,
+                final SliceManager sliceManager,
+                final OrderBookQuery orderBook,
+                final Parameter parameter,
+                final Logger logger,
+                final VwapConfig config,
+                final VenueThrottle throttle) {
+        // an order on its own compiles its schedule for itself, the engine or backtest passes a shared cache
+        this(volumeProfile, order, timerService, volumeTracker, sliceManager, orderBook, parameter, logger, config,
+                throttle, new ScheduleCache(1));
+    }
+
+    public Vwap(final VolumeProfile volumeProfile,
+                final Order order,
+                final TimerService timerService,
+                final VolumeTracker volumeTracker,
+                final SliceManager sliceManager,
+                final OrderBookQuery orderBook,
+                final Parameter parameter,
+                final Logger logger,
+                final VwapConfig config,
+                final VenueThrottle throttle,
+                final ScheduleCache scheduleCache) {
 
         this.volumeProfile = volumeProfile;
         this.order = order;
@@ -61,167 +158,391 @@ public class Vwap extends TimerTask {
         this.orderBook = orderBook;
         this.parameter = parameter;
         this.logger = logger;
+        this.config = config;
+        this.scheduleCache = scheduleCache;
+        this.transactionCost = new TransactionCost(order.isBuy(), order.getQuantityShares(), sliceManager, timerService, orderBook, volumeTracker);
+        this.metrics = new OrderMetrics(order.getOrderId(), sliceManager, transactionCost);
+        this.actions = new OutboundActions(sliceManager, throttle, metrics, logger);
+        this.startMillis = order.getStartTime().toEpochMilli();
+        this.endMillis = order.getEndTime().toEpochMilli();
+
+        sliceManager.addListener(new SliceListener() {
+            @Override
+            public void onEntry(final Slice slice) {
+            }
+
+            @Override
+            public void onAmend(final Slice slice) {
+            }
+
+            @Override
+            public void onFill(final Slice slice, final double filledQuantity, final double filledPrice) {
+                executedWindow.add(timerService.nowMillis(), Math.round(filledQuantity), 0L);
+                markDirty();
+            }
+
+            @Override
+            public void onReject(final Slice slice, final String reason) {
+                markDirty();
+            }
+
+            // fills and acks from the gateway are applied at the start of the next run
+            @Override
+            public void onCommandQueued() {
+                markDirty();
+            }
+        });
     }
 
-    private boolean isActive() {
+    public synchronized void addListener(final VwapListener listener) {
+        final VwapListener[] updated = Arrays.copyOf(listeners, listeners.length + 1);
+        updated[listeners.length] = listener;
+        listeners = updated;
+    }
 
-        Instant now = timerService.now();
-        return !now.isBefore(order.getStartTime()) && !now.isAfter(order.getEndTime());
+    // request an evaluation on the next run, may be called from any thread
+    public void markDirty() {
+        dirty.set(true);
+        for (VwapListener listener : listeners) {
+            listener.onDirty();
+        }
     }
 
+    @Override
+    public void onOrderBookUpdate(final OrderBookQuery orderBook) {
+        markDirty();
+    }
+
+    @Override
+    public void onTradeEvent(final TradeEvent trade) {
+        markDirty();
+    }
+
+    public Order getOrder() {
+        return order;
+    }
+
+    public VwapConfig getConfig() {
+        return config;
+    }
+
+    public OutboundActions getActions() {
+        return actions;
+    }
+
+    // register with MetricsRegistry to publish over JMX
+    public OrderMetrics getMetrics() {
+        return metrics;
+    }
+
+    public TransactionCost getTransactionCost() {
+        return transactionCost;
+    }
+
+    // earliest time after now at which run() would act on time alone:
+    // order start, crossing start or interval rollover. Return Long.MAX_VALUE once the order is over
+    public long getNextDeadlineMillis(final long nowMillis) {
+
+        if (nowMillis < startMillis) {
+            return startMillis;
+        }
+        if (nowMillis >= endMillis || isOrderFullyFilled()) {
+            return Long.MAX_VALUE;
+        }
+        if (interval == null) {
+            return nowMillis;
+        }
+
+        // rollover and crossing are triggered once now is strictly after the boundary
+        final long dueMillis = interval.dueMillis;
+        final long crossingMillis = getSchedule().getCrossingMillis(interval.index);
+        long deadline = dueMillis + 1;
+        if (nowMillis <= crossingMillis) {
+            deadline = crossingMillis + 1;
+        }
+        return Math.min(Math.min(deadline, endMillis), retryAtMillis);
+    }
+
+    private boolean isActive(final long nowMillis) {
+        return nowMillis >= startMillis && nowMillis <= endMillis;
+    }
+
+    // interval of the compiled schedule, targets are table lookups
     class Interval {
 
-        private final Instant dueTime;
+        private final int index;
+        private final long dueMillis;
 
-        public Interval(final Instant dueTime) {
-            this.dueTime = dueTime;
+        public Interval(final int index) {
+            this.index = index;
+            this.dueMillis = getSchedule().getDueMillis(index);
         }
 
         public double getLowerTargetQuantity() {
-            return volumeProfile.getVolume(dueTime.minus(LOWER_CURVE_DELAY)) * order.getQuantity();
+            return getSchedule().getLowerFraction(index) * order.getQuantity();
         }
 
         public double getDesireTargetQuantity() {
-            return volumeProfile.getVolume(dueTime) * order.getQuantity();
+            return getSchedule().getDesireFraction(index) * order.getQuantity();
         }
 
         public double getUpperTargetQuantity() {
-            return volumeProfile.getVolume(dueTime.plus(UPPER_CURVE_AHEAD)) * order.getQuantity();
+            return getSchedule().getUpperFraction(index) * order.getQuantity();
         }
 
-        public Instant getDueTime() {
-            return dueTime;
+        public long getDueMillis() {
+            return dueMillis;
         }
 
         public void printInfo() {
-            logger.debug("Interval Targets :[ "
-                    + "low:" + Formatter.formatQuantity(getLowerTargetQuantity()) + " , "
-                    + "desire" + Formatter.formatQuantity(getDesireTargetQuantity()) + " , "
-                    + "up:" + Formatter.formatQuantity(getUpperTargetQuantity()) + " ] "
-                    + "Interval due time : " + Formatter.formatInstant(getDueTime()));
+            logger.atDebug().append("Interval Targets :[ ")
+                    .append("low:").appendQuantity(getLowerTargetQuantity()).append(" , ")
+                    .append("desire").appendQuantity(getDesireTargetQuantity()).append(" , ")
+                    .append("up:").appendQuantity(getUpperTargetQuantity()).append(" ] ")
+                    .append("Interval due time : ").appendInstant(dueMillis).commit();
         }
     }
 
     @Override
     public void run() {
 
-        if (!isActive()) {
-            return;
+        final long startNanos = System.nanoTime();
+        final boolean evaluated = runOnce();
+        metrics.onRun(System.nanoTime() - startNanos, evaluated);
+
+        if (checkpointRequested) {
+            checkpointRequested = false;
+            checkpoint = captureCheckpoint();
+        }
+    }
+
+    // ask for a checkpoint to be captured on the next run, may be called from any thread
+    public void requestCheckpoint() {
+        checkpointRequested = true;
+    }
+
+    // latest captured checkpoint, null before the first one
+    // the content is valid until the next checkpoint is requested, copy it out before asking for another one
+    public ByteBuffer getCheckpoint() {
+        final ByteBuffer latest = checkpoint;
+        return latest == null ? null : latest.asReadOnlyBuffer();
+    }
+
+    // the volume tracker and the venue throttle are shared with other orders, they are checkpointed on their own
+
+    public void writeCheckpoint(final ByteBuffer buffer) {
+        buffer.putLong(order.getOrderId());
+        buffer.putLong(interval == null ? Long.MIN_VALUE : interval.dueMillis);
+        buffer.putLong(nextDeadlineMillis);
+        buffer.putLong(retryAtMillis);
+        executedWindow.writeCheckpoint(buffer);
+        sliceManager.writeCheckpoint(buffer);
+        transactionCost.writeCheckpoint(buffer);
+    }
+
+    // restore a checkpoint of this order before the first run
+    public void readCheckpoint(final ByteBuffer buffer) {
+
+        final long orderId = buffer.getLong();
+        if (orderId != order.getOrderId()) {
+            throw new IllegalArgumentException("Checkpoint of order " + orderId + " does not match order " + order.getOrderId());
+        }
+        final long dueMillis = buffer.getLong();
+        interval = dueMillis == Long.MIN_VALUE ? null : new Interval(getSchedule().getIntervalIndex(dueMillis));
+        nextDeadlineMillis = buffer.getLong();
+        retryAtMillis = buffer.getLong();
+        executedWindow.readCheckpoint(buffer);
+        sliceManager.readCheckpoint(buffer);
+        transactionCost.readCheckpoint(buffer);
+        markDirty();
+    }
+
+    private ByteBuffer captureCheckpoint() {
+
+        ByteBuffer buffer = checkpointBuffers[checkpointIndex];
+        while (true) {
+            buffer.clear();
+            try {
+                writeCheckpoint(buffer);
+                break;
+            } catch (BufferOverflowException e) {
+                // only grows with the number of open slices, rare after the first few checkpoints
+                buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+                checkpointBuffers[checkpointIndex] = buffer;
+            }
+        }
+        buffer.flip();
+        checkpointIndex ^= 1;
+        return buffer;
+    }
+
+    // return true when the algo evaluated
+    private boolean runOnce() {
+
+        sliceManager.drainCommands();
+
+        // one clock read per run, all deadline maths is done in epoch millis
+        final long nowMillis = timerService.nowMillis();
+        if (!isActive(nowMillis)) {
+            return false;
         }
 
         if (isOrderFullyFilled()) {
-            return;
+            return false;
         }
 
-        Instant now = timerService.now();
+        if (!isEvaluationDue(nowMillis)) {
+            return false;
+        }
+
+        evaluate(nowMillis);
+        nextDeadlineMillis = getNextDeadlineMillis(nowMillis);
+        return true;
+    }
+
+    // nothing to do unless marked dirty, the touch moved or a deadline passed
+    private boolean isEvaluationDue(final long nowMillis) {
+
+        // a mark set after the get is kept for the next run, getAndSet only runs when there is one to take
+        boolean due = dirty.get() && dirty.getAndSet(false);
+        due |= nowMillis >= nextDeadlineMillis;
+
+        // pull books don't push updates, compare the touch with the last evaluation
+        orderBook.read(touch);
+        final double bid = touch.getBid();
+        final double ask = touch.getAsk();
+        if (Double.compare(bid, lastBid) != 0 || Double.compare(ask, lastAsk) != 0) {
+            lastBid = bid;
+            lastAsk = ask;
+            due = true;
+        }
+        return due;
+    }
+
+    private void evaluate(final long nowMillis) {
 
         // Divide order Horizon into interval
         // Aim for reduce market impact
-        if (interval == null || now.isAfter(interval.getDueTime())) {
-            interval = new Interval(now.plus(getIntervalLength()));
+        final int intervalIndex = getSchedule().getIntervalIndex(nowMillis);
+        if (interval == null || intervalIndex != interval.index) {
+            interval = new Interval(intervalIndex);
             logger.debug("Create a new interval");
-            interval.printInfo();
+            if (logger.isDebugEnabled()) {
+                interval.printInfo();
+            }
+            if (listeners.length > 0) {
+                final long dueTimeMillis = interval.dueMillis;
+                final double intervalTarget = getTargetQuantity(interval);
+                for (VwapListener listener : listeners) {
+                    listener.onIntervalCreated(dueTimeMillis, intervalTarget);
+                }
+            }
         }
 
-        final double filledQty = sliceManager.getFilledQty();
-        final double openQty = sliceManager.getOpenQty();
-        final double target = getTargetQuantity(interval);
-        final double behindQty = target - filledQty - openQty;
+        final long targetShares = (long) getTargetQuantity(interval);
+        final long behindShares = targetShares - sliceManager.getFilledShares() - sliceManager.getOpenShares();
 
         // LAYERING : put quantity in passive touch price
         // Aim for getting Price improvement
-        if (Double.compare(behindQty, order.getLotSize()) > 0) {
-
-            final double sliceQty = order.roundDownToLotSize(behindQty);
-            final double slicePrice = getPassivePrice();
-            sliceManager.entry(sliceQty, slicePrice, "Slice");
-            printInfo();
-            return;
+        if (behindShares > order.getLotShares()) {
+
+            final long sliceQty = capToParticipation(order.roundDownToLots(behindShares), nowMillis);
+            if (sliceQty > 0) {
+                actions.entry(sliceQty, sliceManager.toTicks(getPassivePrice()));
+                flushActions(nowMillis);
+                if (logger.isDebugEnabled()) {
+                    printInfo();
+                }
+                // evaluate peg and crossing on the next run, as before layering was gated
+                dirty.set(true);
+                return;
+            }
         }
 
         // PEG to passive touch price
         // Aim to get price improvement
-        for (Slice slice : sliceManager.getOpenSlice()) {
-            final double passiveTouch = getPassivePrice();
-            if (isAggressive(order.isBuy(), slice.getSlicePrice(), passiveTouch)) {
-                sliceManager.amend(slice, passiveTouch);
-                logger.debug(slice.getSliceRef() + " is pegged to " + passiveTouch);
+        final long passiveTicks = sliceManager.toTicks(getPassivePrice());
+        for (int i = 0; i < sliceManager.getOpenSliceCount(); i++) {
+            final Slice slice = sliceManager.getOpenSlice(i);
+            if (MathUtil.isAggressive(order.isBuy(), slice.getPriceTicks(), passiveTicks)) {
+                actions.peg(slice.getSliceId(), passiveTicks);
             }
         }
 
         // Crossing passive slice
         // Aim to get Done
-        boolean crossingTimeReached = now.isAfter(interval.dueTime.minus(getCrossingStartOffset()));
+        boolean crossingTimeReached = nowMillis > schedule.getCrossingMillis(interval.index);
         if (crossingTimeReached){
-            for (Slice slice : sliceManager.getOpenSlice()) {
-                final double farTouch = getFarTouch();
+            final long farTicks = sliceManager.toTicks(getFarTouch());
+            for (int i = 0; i < sliceManager.getOpenSliceCount(); i++) {
+                final Slice slice = sliceManager.getOpenSlice(i);
                 //todo: existing logic is one step crossing, enhance to multiple steps crossing to get price improvement
-                sliceManager.amend(slice, farTouch);
-                logger.debug(slice.getSliceRef() + " is amended to cross the spread");
+                actions.cross(slice.getSliceId(), farTicks);
             }
         }
+        flushActions(nowMillis);
 
         //todo: add IWould feature , aim for getting price improvment
         //todo: add end game logic, to reserve certain quantity close to the end time
     }
 
-    private boolean isOrderFullyFilled() {
-        return Double.compare(sliceManager.getFilledQty(), order.getQuantity()) == 0;
+    private void flushActions(final long nowMillis) {
+        retryAtMillis = actions.flush(nowMillis) > 0 ? actions.getNextPermitMillis(nowMillis) : Long.MAX_VALUE;
     }
 
-    private Duration getIntervalLength() {
-        return INTERVAL_LENGTH;
+    // limit executed plus open quantity to max pct of recent market volume, trades arriving later mark the order
+    // dirty to layer again. Until the window has a print, one lot at a time is allowed so the order does not stall.
+    // See VwapConfig for why 100% is unlimited
+    private long capToParticipation(final long quantity, final long nowMillis) {
+
+        final double maxPct = parameter.getMaxPct();
+        if (Double.compare(maxPct, VwapConfig.UNLIMITED_PARTICIPATION_PCT) >= 0) {
+            return quantity;
+        }
+
+        final long openShares = sliceManager.getOpenShares();
+        final long marketVolume = volumeTracker.getRecentVolume(PARTICIPATION_WINDOW_MILLIS);
+        if (marketVolume <= 0) {
+            return openShares > 0 ? 0L : Math.min(quantity, order.getLotShares());
+        }
+        final long allowed = (long) (marketVolume * maxPct / 100.0) - executedWindow.getVolume(nowMillis) - openShares;
+        return allowed > 0 ? Math.min(quantity, order.roundDownToLots(allowed)) : 0L;
     }
 
-    private boolean isAggressive(final boolean isBuy, final double price1, final double price2) {
-        return isBuy
-                ? Double.compare(price1, price2) > 0
-                : Double.compare(price2, price1) > 0;
+    private boolean isOrderFullyFilled() {
+        return sliceManager.getFilledShares() >= order.getQuantityShares();
     }
 
     private void printInfo() {
         sliceManager.printInfo();
-        logger.debug("Order book status "
-                + "- Bid: " + Formatter.formatPrice(orderBook.getBid())
-                + ", Ask: " + Formatter.formatPrice(orderBook.getAsk()));
+        logger.atDebug().append("Order book status ")
+                .append("- Bid: ").appendPrice(touch.getBid())
+                .append(", Ask: ").appendPrice(touch.getAsk()).commit();
     }
 
-    // return offset used to determine the start of crossing time in each interval
-    private Duration getCrossingStartOffset() {
-
-        switch (parameter.getUrgency()) {
+    // compiled plan for the current urgency and get done, recompiled (or taken from the cache) when they change
+    private ExecutionSchedule getSchedule() {
 
-            case LOW:
-                return INTERVAL_LENGTH.dividedBy(6);
-            case MEDIUM:
-                return INTERVAL_LENGTH.dividedBy(3);
-            case HIGH:
-            default:
-                return INTERVAL_LENGTH.dividedBy(2);
+        final Urgency urgency = parameter.getUrgency();
+        final boolean done = parameter.getDone();
+        if (schedule == null || !schedule.isCompiledFor(urgency, done)) {
+            schedule = scheduleCache.get(volumeProfile, startMillis, endMillis, config, urgency, done);
         }
+        return schedule;
     }
 
     // Return target quantity based on Urgency and Get Done parameter
     public double getTargetQuantity(Interval interval) {
-
-        switch (parameter.getUrgency()) {
-
-            case LOW:
-                return interval.getUpperTargetQuantity();
-            case MEDIUM:
-                return interval.getDesireTargetQuantity();
-            case HIGH:
-            default:
-                return  parameter.getDone() ? interval.getUpperTargetQuantity() : interval.getLowerTargetQuantity();
-        }
+        return getSchedule().getTargetFraction(interval.index) * order.getQuantity();
     }
 
+    // prices of the touch read at the start of the current run
     public double getPassivePrice() {
-        return order.isBuy() ? orderBook.getBid() : orderBook.getAsk();
+        return touch.getPassivePrice(order.isBuy());
     }
 
     public double getFarTouch() {
-        return order.isBuy() ? orderBook.getAsk() : orderBook.getBid();
+        return touch.getFarTouch(order.isBuy());
     }
 }
 
@@ -0,0 +1,115 @@
+package model;
+
+import order.Urgency;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Tunable settings of a Vwap instance: interval length, target curve offsets
+ * and the crossing start offset per urgency, expressed as a divisor of the interval length.
+ *
+ * Max participation comes from the order {@link order.Parameter#getMaxPct()} and caps the quantity executed in the
+ * last {@link Vwap#PARTICIPATION_WINDOW_MILLIS} plus the open quantity to that percentage of the market volume of
+ * the same window. The order's own fills are part of the market volume, so participation can never exceed 100%:
+ * a max pct of {@link #UNLIMITED_PARTICIPATION_PCT} or more disables the cap. Below it, an order keeps at most one
+ * lot open while no trade printed in the window and layers again once trades arrive.
+ */
+public class VwapConfig {
+
+    public static final double UNLIMITED_PARTICIPATION_PCT = 100.0;
+
+    public static final VwapConfig DEFAULT = new VwapConfig(Vwap.INTERVAL_LENGTH, Vwap.LOWER_CURVE_DELAY,
+            Vwap.UPPER_CURVE_AHEAD, 6, 3, 2);
+
+    private final Duration intervalLength;
+    private final Duration lowerCurveDelay;
+    private final Duration upperCurveAhead;
+    private final int lowCrossingDivisor;
+    private final int mediumCrossingDivisor;
+    private final int highCrossingDivisor;
+
+    public VwapConfig(final Duration intervalLength,
+                      final Duration lowerCurveDelay,
+                      final Duration upperCurveAhead,
+                      final int lowCrossingDivisor,
+                      final int mediumCrossingDivisor,
+                      final int highCrossingDivisor) {
+
+        if (intervalLength.isNegative() || intervalLength.isZero()) {
+            throw new IllegalArgumentException("Interval length must be positive: " + intervalLength);
+        }
+        if (lowCrossingDivisor <= 0 || mediumCrossingDivisor <= 0 || highCrossingDivisor <= 0) {
+            throw new IllegalArgumentException("Crossing divisors must be positive");
+        }
+
+        this.intervalLength = intervalLength;
+        this.lowerCurveDelay = lowerCurveDelay;
+        this.upperCurveAhead = upperCurveAhead;
+        this.lowCrossingDivisor = lowCrossingDivisor;
+        this.mediumCrossingDivisor = mediumCrossingDivisor;
+        this.highCrossingDivisor = highCrossingDivisor;
+    }
+
+    public Duration getIntervalLength() {
+        return intervalLength;
+    }
+
+    public Duration getLowerCurveDelay() {
+        return lowerCurveDelay;
+    }
+
+    public Duration getUpperCurveAhead() {
+        return upperCurveAhead;
+    }
+
+    public int getCrossingDivisor(final Urgency urgency) {
+
+        switch (urgency) {
+
+            case LOW:
+                return lowCrossingDivisor;
+            case MEDIUM:
+                return mediumCrossingDivisor;
+            case HIGH:
+            default:
+                return highCrossingDivisor;
+        }
+    }
+
+    // offset before interval due time at which crossing starts
+    public Duration getCrossingStartOffset(final Urgency urgency) {
+        return intervalLength.dividedBy(getCrossingDivisor(urgency));
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof VwapConfig)) {
+            return false;
+        }
+        final VwapConfig that = (VwapConfig) o;
+        return lowCrossingDivisor == that.lowCrossingDivisor
+                && mediumCrossingDivisor == that.mediumCrossingDivisor
+                && highCrossingDivisor == that.highCrossingDivisor
+                && intervalLength.equals(that.intervalLength)
+                && lowerCurveDelay.equals(that.lowerCurveDelay)
+                && upperCurveAhead.equals(that.upperCurveAhead);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(intervalLength, lowerCurveDelay, upperCurveAhead,
+                lowCrossingDivisor, mediumCrossingDivisor, highCrossingDivisor);
+    }
+
+    @Override
+    public String toString() {
+        return "interval=" + intervalLength.getSeconds() + "s"
+                + " lowerDelay=" + lowerCurveDelay.getSeconds() + "s"
+                + " upperAhead=" + upperCurveAhead.getSeconds() + "s"
+                + " crossing=1/" + lowCrossingDivisor + ",1/" + mediumCrossingDivisor + ",1/" + highCrossingDivisor;
+    }
+}
@@ -0,0 +1,10 @@
+package model;
+
+public interface VwapListener {
+
+    void onIntervalCreated(final long dueTimeMillis, final double targetQuantity);
+
+    // called on the thread that made the order dirty (market data, fills), the order wants to run soon
+    default void onDirty() {
+    }
+}
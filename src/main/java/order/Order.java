@@ -1,29 +1,65 @@
 package order;
 
 import util.Formatter;
+import util.MathUtil;
 
 import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class Order {
 
+    public static final double DEFAULT_TICK_SIZE = 0.1;
+    public static final double DEFAULT_LOT_SIZE = 100.0;
+
+    private static final AtomicLong NEXT_ORDER_ID = new AtomicLong(1);
+
+    private final long orderId;
     private final Instant startTime;
     private final Instant endTime;
-    private final double quantity;
+    // quantities in whole shares and the tick size in fixed point ticks, doubles are only taken and returned
+    private final long quantityShares;
+    private final long lotShares;
+    private final long tickSizeTicks;
     private final double limit;
     private final boolean isBuy;
 
     public Order(final Instant startTime, final Instant endTime, final double quantity, final double limit, final boolean isBuy) {
+        this(NEXT_ORDER_ID.getAndIncrement(), startTime, endTime, quantity, limit, isBuy);
+    }
+
+    public Order(final long orderId, final Instant startTime, final Instant endTime, final double quantity, final double limit, final boolean isBuy) {
+        this(orderId, startTime, endTime, quantity, limit, isBuy, DEFAULT_TICK_SIZE, DEFAULT_LOT_SIZE);
+    }
+
+    public Order(final long orderId,
+                 final Instant startTime,
+                 final Instant endTime,
+                 final double quantity,
+                 final double limit,
+                 final boolean isBuy,
+                 final double tickSize,
+                 final double lotSize) {
 
+        this.orderId = orderId;
         this.startTime = startTime;
         this.endTime = endTime;
-        this.quantity = quantity;
+        this.quantityShares = Math.round(quantity);
+        this.lotShares = Math.round(lotSize);
+        this.tickSizeTicks = MathUtil.toTicks(tickSize, MathUtil.FIXED_POINT_TICK);
         this.limit = limit;
         this.isBuy = isBuy;
 
+        if (lotShares <= 0 || tickSizeTicks <= 0) {
+            throw new IllegalArgumentException("Invalid lot size " + lotSize + " or tick size " + tickSize);
+        }
+    }
+
+    public long getOrderId() {
+        return orderId;
     }
 
     public double getQuantity() {
-        return quantity;
+        return quantityShares;
     }
 
     public Instant getStartTime() {
@@ -39,19 +75,32 @@ public class Order {
     }
 
     public double getTickSize() {
-        return 0.1;
-    }  // hardcode
+        return MathUtil.toPrice(tickSizeTicks, MathUtil.FIXED_POINT_TICK);
+    }
 
     public double getLotSize() {
-        return 100.0;
-    } // hardcode
+        return lotShares;
+    }
+
+    // order quantity in whole shares, for exact fill accounting
+    public long getQuantityShares() {
+        return quantityShares;
+    }
+
+    public long getLotShares() {
+        return lotShares;
+    }
 
     public boolean isBuy() {
         return isBuy;
     }
 
     public double roundDownToLotSize(double decimal) {
-        return decimal - decimal % getLotSize();
+        return roundDownToLots((long) decimal);
+    }
+
+    public long roundDownToLots(final long shares) {
+        return shares - shares % lotShares;
     }
 
     public void printInfo() {
@@ -59,6 +108,7 @@ public class Order {
         System.out.println("=================");
         System.out.println("Order Information");
         System.out.println("=================");
+        System.out.println("Order id:" + getOrderId());
         System.out.println("Start time:" + Formatter.formatInstant(getStartTime()));
         System.out.println("End time:" + Formatter.formatInstant(getEndTime()));
         System.out.println("Limit price:" + getLimit());
@@ -0,0 +1,167 @@
+package outbound;
+
+import metrics.OrderMetrics;
+import slice.Slice;
+import slice.SliceManager;
+import util.Logger;
+import util.MathUtil;
+
+import java.util.Arrays;
+
+/**
+ * Actions one algo run intends to send, collected and flushed to the SliceManager once per run.
+ *
+ * Several amends of the same slice collapse into the last one, a cross always wins over a peg,
+ * and amends leaving the price unchanged are dropped. Sending is limited by the venue throttle:
+ * crosses go first, then new slices, then pegs. Actions without a permit are dropped,
+ * the algo decides again on its next run. Layers, pegs and crosses are counted in the order metrics once sent.
+ */
+public class OutboundActions {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final SliceManager sliceManager;
+    private final VenueThrottle throttle;
+    private final OrderMetrics metrics;
+    private final Logger logger;
+
+    private long[] amendSliceIds = new long[INITIAL_CAPACITY];
+    private long[] amendPriceTicks = new long[INITIAL_CAPACITY];
+    private boolean[] amendIsCross = new boolean[INITIAL_CAPACITY];
+    private int amendCount;
+
+    private long[] entryQuantities = new long[INITIAL_CAPACITY];
+    private long[] entryPriceTicks = new long[INITIAL_CAPACITY];
+    private int entryCount;
+
+    private long sentCount;
+    private long coalescedCount;
+    private long throttledCount;
+
+    public OutboundActions(final SliceManager sliceManager,
+                           final VenueThrottle throttle,
+                           final OrderMetrics metrics,
+                           final Logger logger) {
+        this.sliceManager = sliceManager;
+        this.throttle = throttle;
+        this.metrics = metrics;
+        this.logger = logger;
+    }
+
+    public void entry(final long quantity, final long priceTicks) {
+        if (entryCount == entryQuantities.length) {
+            entryQuantities = Arrays.copyOf(entryQuantities, entryCount * 2);
+            entryPriceTicks = Arrays.copyOf(entryPriceTicks, entryCount * 2);
+        }
+        entryQuantities[entryCount] = quantity;
+        entryPriceTicks[entryCount] = priceTicks;
+        entryCount++;
+    }
+
+    // amend to the passive touch
+    public void peg(final long sliceId, final long priceTicks) {
+        amend(sliceId, priceTicks, false);
+    }
+
+    // amend to the far touch
+    public void cross(final long sliceId, final long priceTicks) {
+        amend(sliceId, priceTicks, true);
+    }
+
+    // send collected actions, return how many were held back by the throttle
+    public int flush(final long nowMillis) {
+
+        int throttled = 0;
+        for (int i = 0; i < amendCount; i++) {
+            if (amendIsCross[i]) {
+                throttled += sendAmend(i, nowMillis);
+            }
+        }
+        for (int i = 0; i < entryCount; i++) {
+            if (throttle.tryAcquire(nowMillis)) {
+                sliceManager.entryTicks(entryQuantities[i], entryPriceTicks[i], "Slice");
+                metrics.onLayer();
+                sentCount++;
+            } else {
+                throttled++;
+            }
+        }
+        for (int i = 0; i < amendCount; i++) {
+            if (!amendIsCross[i]) {
+                throttled += sendAmend(i, nowMillis);
+            }
+        }
+
+        amendCount = 0;
+        entryCount = 0;
+        throttledCount += throttled;
+        return throttled;
+    }
+
+    // earliest time the throttle has a permit again
+    public long getNextPermitMillis(final long nowMillis) {
+        return throttle.getNextPermitMillis(nowMillis);
+    }
+
+    public long getSentCount() {
+        return sentCount;
+    }
+
+    // amends saved by collapsing or dropping unchanged prices
+    public long getCoalescedCount() {
+        return coalescedCount;
+    }
+
+    public long getThrottledCount() {
+        return throttledCount;
+    }
+
+    private void amend(final long sliceId, final long priceTicks, final boolean isCross) {
+
+        for (int i = 0; i < amendCount; i++) {
+            if (amendSliceIds[i] == sliceId) {
+                if (isCross || !amendIsCross[i]) {
+                    amendPriceTicks[i] = priceTicks;
+                    amendIsCross[i] = isCross;
+                }
+                coalescedCount++;
+                return;
+            }
+        }
+
+        if (amendCount == amendSliceIds.length) {
+            amendSliceIds = Arrays.copyOf(amendSliceIds, amendCount * 2);
+            amendPriceTicks = Arrays.copyOf(amendPriceTicks, amendCount * 2);
+            amendIsCross = Arrays.copyOf(amendIsCross, amendCount * 2);
+        }
+        amendSliceIds[amendCount] = sliceId;
+        amendPriceTicks[amendCount] = priceTicks;
+        amendIsCross[amendCount] = isCross;
+        amendCount++;
+    }
+
+    // return 1 when throttled
+    private int sendAmend(final int i, final long nowMillis) {
+
+        final Slice slice = sliceManager.getSlice(amendSliceIds[i]);
+        if (slice == null || slice.getPriceTicks() == amendPriceTicks[i]) {
+            coalescedCount++;
+            return 0;
+        }
+        if (!throttle.tryAcquire(nowMillis)) {
+            return 1;
+        }
+
+        sliceManager.amendTicks(amendSliceIds[i], amendPriceTicks[i]);
+        sentCount++;
+        if (amendIsCross[i]) {
+            metrics.onCross();
+            logger.atDebug().append(slice.getSliceRef()).append(" is amended to cross the spread").commit();
+        } else {
+            metrics.onPeg();
+            logger.atDebug().append(slice.getSliceRef()).append(" is pegged to ")
+                    .append(MathUtil.toPrice(amendPriceTicks[i], sliceManager.getTickSize())).commit();
+        }
+        return 0;
+    }
+}
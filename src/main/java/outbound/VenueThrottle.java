@@ -0,0 +1,86 @@
+package outbound;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Messages per second budget of one venue, shared by every order sending there.
+ *
+ * Token bucket kept as a single theoretical arrival time (GCRA), so acquiring a permit is one CAS
+ * from any thread. The bucket allows bursts of up to burst messages and refills at messagesPerSecond.
+ */
+public class VenueThrottle {
+
+    public static final VenueThrottle UNLIMITED = new VenueThrottle("unlimited", 0, 0);
+
+    private static final long MICROS_PER_SECOND = 1_000_000L;
+
+    private final String venue;
+    private final long intervalMicros;
+    private final long burstMicros;
+    private final AtomicLong theoreticalArrivalMicros = new AtomicLong(Long.MIN_VALUE);
+    private final AtomicLong throttledCount = new AtomicLong();
+
+    // a rate of 0 disables throttling
+    public VenueThrottle(final String venue, final int messagesPerSecond, final int burst) {
+
+        if (messagesPerSecond < 0 || (messagesPerSecond > 0 && burst <= 0)) {
+            throw new IllegalArgumentException("Invalid throttle " + messagesPerSecond + "/s burst " + burst);
+        }
+        this.venue = venue;
+        this.intervalMicros = messagesPerSecond == 0 ? 0L : MICROS_PER_SECOND / messagesPerSecond;
+        this.burstMicros = intervalMicros * burst;
+    }
+
+    public boolean tryAcquire(final long nowMillis) {
+
+        if (intervalMicros == 0) {
+            return true;
+        }
+
+        final long nowMicros = nowMillis * 1000;
+        while (true) {
+            final long tat = theoreticalArrivalMicros.get();
+            final long next = Math.max(tat, nowMicros) + intervalMicros;
+            if (next - nowMicros > burstMicros) {
+                throttledCount.incrementAndGet();
+                return false;
+            }
+            if (theoreticalArrivalMicros.compareAndSet(tat, next)) {
+                return true;
+            }
+        }
+    }
+
+    // earliest time a permit is available, now when one is available already
+    public long getNextPermitMillis(final long nowMillis) {
+
+        if (intervalMicros == 0) {
+            return nowMillis;
+        }
+        final long tat = theoreticalArrivalMicros.get();
+        if (tat == Long.MIN_VALUE) {
+            return nowMillis;
+        }
+        final long permitMicros = tat + intervalMicros - burstMicros;
+        return Math.max(nowMillis, (permitMicros + 999) / 1000);
+    }
+
+    // shared by the orders of a venue, so checkpointed once per venue, see CheckpointStore
+    public void writeCheckpoint(final ByteBuffer buffer) {
+        buffer.putLong(theoreticalArrivalMicros.get());
+    }
+
+    // a restored budget keeps counting the messages sent before the restart
+    public void readCheckpoint(final ByteBuffer buffer) {
+        theoreticalArrivalMicros.set(buffer.getLong());
+    }
+
+    public String getVenue() {
+        return venue;
+    }
+
+    public long getThrottledCount() {
+        return throttledCount.get();
+    }
+}
@@ -0,0 +1,96 @@
+package replay;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes quotes and trades of one symbol in time order to a delta encoded tick file, see {@link TickFormat}.
+ */
+public class TickFileWriter implements Closeable {
+
+    private static final int BUFFER_LENGTH = 64 * 1024;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_LENGTH);
+    private final double tickSize;
+    private long lastTime;
+    private long lastBid;
+    private long lastTrade;
+    private long recordCount;
+
+    public TickFileWriter(final Path path, final double tickSize, final long baseTimeMillis) throws IOException {
+
+        this.tickSize = tickSize;
+        this.lastTime = baseTimeMillis;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+
+        buffer.putInt(TickFormat.MAGIC).putInt(TickFormat.VERSION).putDouble(tickSize)
+                .putLong(baseTimeMillis).putLong(0L).putLong(0L);
+    }
+
+    public void quote(final long timeMillis, final double bid, final double ask, final long bidSize, final long askSize)
+            throws IOException {
+
+        final long bidTicks = toTicks(bid);
+        final long askTicks = toTicks(ask);
+        if (askTicks < bidTicks) {
+            throw new IllegalArgumentException("Crossed quote " + bid + "/" + ask);
+        }
+
+        startRecord(TickFormat.QUOTE, timeMillis);
+        TickFormat.putZigZag(buffer, bidTicks - lastBid);
+        TickFormat.putVarLong(buffer, askTicks - bidTicks);
+        TickFormat.putVarLong(buffer, bidSize);
+        TickFormat.putVarLong(buffer, askSize);
+        lastBid = bidTicks;
+    }
+
+    public void trade(final long timeMillis, final double price, final long size) throws IOException {
+
+        final long priceTicks = toTicks(price);
+        startRecord(TickFormat.TRADE, timeMillis);
+        TickFormat.putZigZag(buffer, priceTicks - lastTrade);
+        TickFormat.putVarLong(buffer, size);
+        lastTrade = priceTicks;
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        final ByteBuffer count = ByteBuffer.allocate(Long.BYTES).putLong(0, recordCount);
+        channel.write(count, TickFormat.RECORD_COUNT_OFFSET);
+        channel.close();
+    }
+
+    private void startRecord(final byte type, final long timeMillis) throws IOException {
+
+        if (timeMillis < lastTime) {
+            throw new IllegalArgumentException("Ticks must be written in time order");
+        }
+        // a record takes at most 1 + 4 * 10 bytes
+        if (buffer.remaining() < 64) {
+            flush();
+        }
+        buffer.put(type);
+        TickFormat.putVarLong(buffer, timeMillis - lastTime);
+        lastTime = timeMillis;
+        recordCount++;
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private long toTicks(final double price) {
+        return Math.round(price / tickSize);
+    }
+}
@@ -0,0 +1,44 @@
+package replay;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Binary tick file layout shared by {@link TickFileWriter} and {@link TickReplay}.
+ *
+ *   header : int magic, int version, double tick size, long base time millis, long record count, long reserved
+ *   record : byte type, varint time delta millis from the previous record, then
+ *            QUOTE : zigzag varint bid delta ticks from the previous bid, varint spread ticks,
+ *                    varint bid size, varint ask size
+ *            TRADE : zigzag varint price delta ticks from the previous trade, varint size
+ *
+ * Prices are integer ticks and sizes whole shares, so a typical record takes 6 to 10 bytes.
+ */
+final class TickFormat {
+
+    static final int MAGIC = 0x5654434B; // "VTCK"
+    static final int VERSION = 1;
+    static final int HEADER_LENGTH = 40;
+    static final int RECORD_COUNT_OFFSET = 24;
+
+    static final byte QUOTE = 1;
+    static final byte TRADE = 2;
+
+    private TickFormat() {
+    }
+
+    static void putVarLong(final ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    static void putZigZag(final ByteBuffer buffer, final long value) {
+        putVarLong(buffer, (value << 1) ^ (value >> 63));
+    }
+
+    static long decodeZigZag(final long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
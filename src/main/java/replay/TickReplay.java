@@ -0,0 +1,189 @@
+package replay;
+
+import market.OrderBook;
+import simulation.SimulationEvent;
+import simulation.SimulationKernel;
+import volume.TradeEvent;
+import volume.TradeEventNotifier;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Replays a tick file written by {@link TickFileWriter}.
+ *
+ * The file is memory mapped and decoded in place into primitive fields; quotes update the
+ * {@link OrderBook} and trades are published to the {@link TradeEventNotifier} through this object,
+ * which is itself the (reused) TradeEvent. Nothing is allocated per tick.
+ * Drive it from a {@link SimulationKernel} with {@link #attach(SimulationKernel)}, or directly with {@link #replayUntil(long)}.
+ */
+public class TickReplay extends SimulationEvent implements TradeEvent, Closeable {
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final OrderBook orderBook;
+    private final TradeEventNotifier trades;
+    private final double tickSize;
+    private final double ticksPerUnit;
+    private final long recordCount;
+
+    // decoded state of the current record
+    private byte type;
+    private long time;
+    private long bidTicks;
+    private long askTicks;
+    private long bidSize;
+    private long askSize;
+    private long tradeTicks;
+    private long tradeSize;
+    private long position;
+    private boolean pending;
+
+    public TickReplay(final Path path, final OrderBook orderBook, final TradeEventNotifier trades) throws IOException {
+
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        this.orderBook = orderBook;
+        this.trades = trades;
+
+        if (buffer.getInt() != TickFormat.MAGIC || buffer.getInt() != TickFormat.VERSION) {
+            channel.close();
+            throw new IOException("Not a tick file: " + path);
+        }
+        tickSize = buffer.getDouble();
+        time = buffer.getLong();
+        recordCount = buffer.getLong();
+        buffer.position(TickFormat.HEADER_LENGTH);
+
+        // divide by an integral tick count where possible, 101 / 10.0 is exactly 10.1 where 101 * 0.1 is not
+        final double inverse = 1.0 / tickSize;
+        ticksPerUnit = Math.abs(inverse - Math.rint(inverse)) < 1e-9 ? Math.rint(inverse) : 0.0;
+
+        pending = decodeNext();
+    }
+
+    // schedule replay of the whole file on the kernel, each record fires at its own time
+    public void attach(final SimulationKernel kernel) {
+        if (pending) {
+            kernel.schedule(this, time);
+        }
+    }
+
+    @Override
+    protected void onEvent(final SimulationKernel kernel) {
+
+        // apply every record due now, then wait for the next timestamp
+        while (pending && time <= kernel.now()) {
+            apply();
+            pending = decodeNext();
+        }
+        if (pending) {
+            kernel.schedule(this, time);
+        }
+    }
+
+    // apply records up to and including the given time, return number of records applied
+    public long replayUntil(final long timeMillis) {
+
+        long applied = 0;
+        while (pending && time <= timeMillis) {
+            apply();
+            pending = decodeNext();
+            applied++;
+        }
+        return applied;
+    }
+
+    public boolean hasNext() {
+        return pending;
+    }
+
+    // time of the next record to apply
+    public long getNextTime() {
+        return time;
+    }
+
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    @Override
+    public double getTradePrice() {
+        return toPrice(tradeTicks);
+    }
+
+    @Override
+    public double getTradeSize() {
+        return tradeSize;
+    }
+
+    public long getBidSize() {
+        return bidSize;
+    }
+
+    public long getAskSize() {
+        return askSize;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void apply() {
+        position++;
+        if (type == TickFormat.QUOTE) {
+            orderBook.update(toPrice(bidTicks), toPrice(askTicks), bidSize, askSize);
+        } else {
+            trades.onTradeEvent(this);
+        }
+    }
+
+    private boolean decodeNext() {
+
+        if (!buffer.hasRemaining()) {
+            return false;
+        }
+
+        type = buffer.get();
+        time += readVarLong();
+
+        if (type == TickFormat.QUOTE) {
+            bidTicks += TickFormat.decodeZigZag(readVarLong());
+            askTicks = bidTicks + readVarLong();
+            bidSize = readVarLong();
+            askSize = readVarLong();
+        } else if (type == TickFormat.TRADE) {
+            tradeTicks += TickFormat.decodeZigZag(readVarLong());
+            tradeSize = readVarLong();
+        } else {
+            throw new IllegalStateException("Corrupt tick file, unknown record type " + type + " at " + buffer.position());
+        }
+        return true;
+    }
+
+    private long readVarLong() {
+
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+
+    private double toPrice(final long ticks) {
+        return ticksPerUnit > 0.0 ? ticks / ticksPerUnit : ticks * tickSize;
+    }
+}
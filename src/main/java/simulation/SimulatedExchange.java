@@ -0,0 +1,424 @@
+package simulation;
+
+import market.OrderBookListener;
+import market.OrderBookQuery;
+import market.TopOfBook;
+import slice.Slice;
+import slice.SliceListener;
+import slice.SliceManager;
+import util.MathUtil;
+import volume.TradeEvent;
+import volume.TradeEventNotifier;
+
+import java.util.Arrays;
+
+/**
+ * Matching engine stand-in for the slices of one order, driven by the {@link SimulationKernel}.
+ *
+ * Entries and amends reach the exchange after the order entry latency, acks and fills reach the
+ * SliceManager through {@link slice.SliceEvent} after the ack latency, so the algo sees them on a later run
+ * as it would from a gateway. An amend is a cancel/replace and loses queue position.
+ *
+ * Fill model:
+ * (1) a slice at or through the far touch on arrival fills in full at the far touch
+ * (2) a resting slice the touch moves through fills in full at its own price
+ * (3) a resting slice joins behind the touch size and our earlier slices at its level (only our slices inside
+ *     the spread, no market size when the book has none, unknown behind the touch until its level becomes
+ *     the touch); market trades through its price fill it directly, the rest of the trade at its price
+ *     consumes the queue ahead first. An amend moves the slice to the back of the queue at its new price
+ *
+ * Fills of (1) and (2) are published to the trade notifier as market prints, fills of (3) are already part of
+ * the trade that caused them. Market trades can be fed through onTradeEvent, also by registering the exchange
+ * on the VolumeTracker that receives the prints: it ignores its own prints.
+ *
+ * Resting slices live in primitive arrays in arrival order, indexed by the slot of their slice id. A slice that
+ * leaves the book leaves a hole, so the others keep their time priority without moving; holes are compacted when
+ * they make up half of the arrays. Messages are pooled, nothing is allocated per event once warm.
+ */
+public class SimulatedExchange implements SliceListener, OrderBookListener, TradeEventNotifier, TradeEvent {
+
+    private static final long UNKNOWN = Long.MAX_VALUE;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private static final int NEW = 1;
+    private static final int AMEND = 2;
+    private static final int ACK = 3;
+    private static final int FILL = 4;
+
+    private final SimulationKernel kernel;
+    private final SliceManager sliceManager;
+    private final OrderBookQuery orderBook;
+    private final TradeEventNotifier prints;
+    private final boolean isBuy;
+    private final long entryLatencyMillis;
+    private final long ackLatencyMillis;
+    private final TopOfBook touch = new TopOfBook();
+
+    // resting slices in arrival order, a hole has no leaves
+    private long[] sliceIds = new long[INITIAL_CAPACITY];
+    private long[] priceTicks = new long[INITIAL_CAPACITY];
+    private long[] leaves = new long[INITIAL_CAPACITY];
+    private long[] ahead = new long[INITIAL_CAPACITY];
+    private int usedCount;
+    private int holeCount;
+    // index of the resting slice by slot of its slice id, -1 when not resting
+    private int[] indexBySlot = newIndex(INITIAL_CAPACITY);
+
+    private Message[] pool = new Message[INITIAL_CAPACITY];
+    private int poolSize;
+
+    private boolean printing;
+    private double printPrice;
+    private double printSize;
+    private long passiveFilledShares;
+    private long aggressiveFilledShares;
+    private long messageCount;
+
+    public SimulatedExchange(final SimulationKernel kernel,
+                             final SliceManager sliceManager,
+                             final OrderBookQuery orderBook,
+                             final TradeEventNotifier prints,
+                             final boolean isBuy,
+                             final long entryLatencyMillis,
+                             final long ackLatencyMillis) {
+        this.kernel = kernel;
+        this.sliceManager = sliceManager;
+        this.orderBook = orderBook;
+        this.prints = prints;
+        this.isBuy = isBuy;
+        this.entryLatencyMillis = entryLatencyMillis;
+        this.ackLatencyMillis = ackLatencyMillis;
+        sliceManager.addListener(this);
+    }
+
+    @Override
+    public void onEntry(final Slice slice) {
+        send(NEW, slice.getSliceId(), slice.getSliceShares() - slice.getFilledShares(), slice.getPriceTicks(),
+                entryLatencyMillis);
+    }
+
+    @Override
+    public void onAmend(final Slice slice) {
+        send(AMEND, slice.getSliceId(), 0L, slice.getPriceTicks(), entryLatencyMillis);
+    }
+
+    @Override
+    public void onFill(final Slice slice, final double filledQuantity, final double filledPrice) {
+    }
+
+    @Override
+    public void onOrderBookUpdate(final OrderBookQuery book) {
+
+        orderBook.read(touch);
+        final long farTicks = getFarTicks();
+        final long passiveTicks = getPassiveTicks();
+
+        for (int i = 0; i < usedCount; i++) {
+            if (leaves[i] == 0L) {
+                continue;
+            }
+            if (farTicks != UNKNOWN && MathUtil.isAggressiveOrEqual(isBuy, priceTicks[i], farTicks)) {
+                fill(i, leaves[i], priceTicks[i], true);
+            } else if (priceTicks[i] == passiveTicks) {
+                // market quantity cancels from the back unless it drops below what was ahead of us
+                ahead[i] = Math.min(ahead[i], getPassiveSize() + getOwnAhead(i));
+            }
+        }
+    }
+
+    @Override
+    public void onTradeEvent(final TradeEvent trade) {
+
+        if (printing) {
+            return;
+        }
+
+        final long tradeTicks = sliceManager.toTicks(trade.getTradePrice());
+        long remaining = Math.round(trade.getTradeSize());
+
+        // slices priced through the trade fill first, in time priority
+        for (int i = 0; i < usedCount && remaining > 0; i++) {
+            if (leaves[i] > 0L && MathUtil.isAggressive(isBuy, priceTicks[i], tradeTicks)) {
+                final long quantity = Math.min(leaves[i], remaining);
+                remaining -= quantity;
+                releaseAhead(i, quantity);
+                fill(i, quantity, priceTicks[i], false);
+            }
+        }
+
+        // the rest trades at the level, ahead of each slice counts our earlier slices there as well,
+        // so every slice takes the whole remaining quantity against its own queue
+        if (remaining <= 0) {
+            return;
+        }
+        for (int i = 0; i < usedCount; i++) {
+            if (leaves[i] > 0L && priceTicks[i] == tradeTicks && ahead[i] != UNKNOWN) {
+                final long quantity = Math.min(leaves[i], Math.max(0L, remaining - ahead[i]));
+                ahead[i] = Math.max(0L, ahead[i] - remaining);
+                if (quantity > 0) {
+                    fill(i, quantity, priceTicks[i], false);
+                }
+            }
+        }
+    }
+
+    @Override
+    public double getTradePrice() {
+        return printPrice;
+    }
+
+    @Override
+    public double getTradeSize() {
+        return printSize;
+    }
+
+    public int getRestingCount() {
+        return usedCount - holeCount;
+    }
+
+    // shares ahead of a resting slice, -1 when the slice is not resting or its queue is unknown
+    public long getQueueAhead(final long sliceId) {
+        final int index = find(sliceId);
+        return index < 0 || ahead[index] == UNKNOWN ? -1L : ahead[index];
+    }
+
+    public long getPassiveFilledShares() {
+        return passiveFilledShares;
+    }
+
+    public long getAggressiveFilledShares() {
+        return aggressiveFilledShares;
+    }
+
+    public long getMessageCount() {
+        return messageCount;
+    }
+
+    private void onMessage(final Message message) {
+
+        messageCount++;
+        switch (message.type) {
+            case NEW:
+                arrive(message.sliceId, message.quantity, message.priceTicks);
+                break;
+            case AMEND:
+                amend(message.sliceId, message.priceTicks);
+                break;
+            case ACK:
+                sliceManager.onSliceAck(message.sliceId);
+                break;
+            case FILL:
+                sliceManager.onSliceFill(message.sliceId, message.quantity,
+                        MathUtil.toPrice(message.priceTicks, sliceManager.getTickSize()));
+                break;
+            default:
+                throw new IllegalStateException("Unknown exchange message " + message.type);
+        }
+    }
+
+    private void arrive(final long sliceId, final long quantity, final long ticks) {
+        final int index = append(sliceId, quantity, ticks);
+        send(ACK, sliceId, 0L, 0L, ackLatencyMillis);
+        place(index);
+    }
+
+    // a slice already filled in full is no longer here, its amend is dropped.
+    // Cancel/replace: the slice leaves its level and rejoins at the back of its new one
+    private void amend(final long sliceId, final long ticks) {
+
+        final int index = find(sliceId);
+        if (index < 0) {
+            return;
+        }
+        final long quantity = leaves[index];
+        releaseAhead(index, quantity);
+        remove(index);
+
+        final int last = append(sliceId, quantity, ticks);
+        send(ACK, sliceId, 0L, 0L, ackLatencyMillis);
+        place(last);
+    }
+
+    // add at the back of the arrival order, return its index
+    private int append(final long sliceId, final long quantity, final long ticks) {
+
+        if (holeCount * 2 > usedCount) {
+            compact();
+        }
+        if (usedCount == sliceIds.length) {
+            final int capacity = usedCount * 2;
+            sliceIds = Arrays.copyOf(sliceIds, capacity);
+            priceTicks = Arrays.copyOf(priceTicks, capacity);
+            leaves = Arrays.copyOf(leaves, capacity);
+            ahead = Arrays.copyOf(ahead, capacity);
+        }
+        final int slot = SliceManager.slotOf(sliceId);
+        if (slot >= indexBySlot.length) {
+            final int[] grown = newIndex(Math.max(slot + 1, indexBySlot.length * 2));
+            System.arraycopy(indexBySlot, 0, grown, 0, indexBySlot.length);
+            indexBySlot = grown;
+        }
+
+        final int index = usedCount++;
+        sliceIds[index] = sliceId;
+        priceTicks[index] = ticks;
+        leaves[index] = quantity;
+        indexBySlot[slot] = index;
+        return index;
+    }
+
+    // match a slice that just arrived at its price, or queue it behind the touch
+    private void place(final int index) {
+
+        orderBook.read(touch);
+        final long farTicks = getFarTicks();
+        if (farTicks != UNKNOWN && MathUtil.isAggressiveOrEqual(isBuy, priceTicks[index], farTicks)) {
+            fill(index, leaves[index], farTicks, true);
+            return;
+        }
+
+        final long passiveTicks = getPassiveTicks();
+        if (passiveTicks == UNKNOWN || MathUtil.isAggressive(isBuy, priceTicks[index], passiveTicks)) {
+            ahead[index] = getOwnAhead(index);
+        } else if (priceTicks[index] == passiveTicks) {
+            ahead[index] = getPassiveSize() + getOwnAhead(index);
+        } else {
+            ahead[index] = UNKNOWN;
+        }
+    }
+
+    // the slice is removed once filled in full
+    private void fill(final int index, final long quantity, final long ticks, final boolean aggressive) {
+
+        final long sliceId = sliceIds[index];
+        send(FILL, sliceId, quantity, ticks, ackLatencyMillis);
+
+        if (aggressive) {
+            aggressiveFilledShares += quantity;
+            printPrice = MathUtil.toPrice(ticks, sliceManager.getTickSize());
+            printSize = quantity;
+            printing = true;
+            try {
+                prints.onTradeEvent(this);
+            } finally {
+                printing = false;
+            }
+        } else {
+            passiveFilledShares += quantity;
+        }
+
+        leaves[index] -= quantity;
+        if (leaves[index] <= 0) {
+            remove(index);
+        }
+    }
+
+    // leave a hole, the other slices keep their index and arrival order, which is their time priority
+    private void remove(final int index) {
+        indexBySlot[SliceManager.slotOf(sliceIds[index])] = -1;
+        leaves[index] = 0L;
+        holeCount++;
+    }
+
+    // close the holes, only between events so no loop holds an index
+    private void compact() {
+        int live = 0;
+        for (int i = 0; i < usedCount; i++) {
+            if (leaves[i] > 0L) {
+                sliceIds[live] = sliceIds[i];
+                priceTicks[live] = priceTicks[i];
+                leaves[live] = leaves[i];
+                ahead[live] = ahead[i];
+                indexBySlot[SliceManager.slotOf(sliceIds[live])] = live;
+                live++;
+            }
+        }
+        usedCount = live;
+        holeCount = 0;
+    }
+
+    // quantity of our slices resting at the same price that arrived before this one
+    private long getOwnAhead(final int index) {
+        long quantity = 0L;
+        for (int i = 0; i < index; i++) {
+            if (priceTicks[i] == priceTicks[index]) {
+                quantity += leaves[i];
+            }
+        }
+        return quantity;
+    }
+
+    // quantity of a slice leaving its level other than by a trade at the level, later slices there move up
+    private void releaseAhead(final int index, final long quantity) {
+        for (int i = index + 1; i < usedCount; i++) {
+            if (leaves[i] > 0L && priceTicks[i] == priceTicks[index] && ahead[i] != UNKNOWN) {
+                ahead[i] = Math.max(0L, ahead[i] - quantity);
+            }
+        }
+    }
+
+    // the slot of a done slice may be reused, the id tells a stale lookup
+    private int find(final long sliceId) {
+        final int slot = SliceManager.slotOf(sliceId);
+        if (slot >= indexBySlot.length) {
+            return -1;
+        }
+        final int index = indexBySlot[slot];
+        return index >= 0 && sliceIds[index] == sliceId ? index : -1;
+    }
+
+    private static int[] newIndex(final int capacity) {
+        final int[] index = new int[capacity];
+        Arrays.fill(index, -1);
+        return index;
+    }
+
+    private long getFarTicks() {
+        final double far = touch.getFarTouch(isBuy);
+        return Double.isNaN(far) ? UNKNOWN : sliceManager.toTicks(far);
+    }
+
+    private long getPassiveTicks() {
+        final double passive = touch.getPassivePrice(isBuy);
+        return Double.isNaN(passive) ? UNKNOWN : sliceManager.toTicks(passive);
+    }
+
+    private long getPassiveSize() {
+        return isBuy ? touch.getBidSize() : touch.getAskSize();
+    }
+
+    private void send(final int type, final long sliceId, final long quantity, final long ticks, final long latencyMillis) {
+
+        final Message message = poolSize > 0 ? pool[--poolSize] : new Message();
+        message.type = type;
+        message.sliceId = sliceId;
+        message.quantity = quantity;
+        message.priceTicks = ticks;
+        kernel.schedule(message, kernel.now() + latencyMillis);
+    }
+
+    private void release(final Message message) {
+        if (poolSize == pool.length) {
+            pool = Arrays.copyOf(pool, poolSize * 2);
+        }
+        pool[poolSize++] = message;
+    }
+
+    // order entry to the exchange or report back to the SliceManager, in flight for one latency
+    private final class Message extends SimulationEvent {
+
+        private int type;
+        private long sliceId;
+        private long quantity;
+        private long priceTicks;
+
+        @Override
+        protected void onEvent(final SimulationKernel kernel) {
+            try {
+                onMessage(this);
+            } finally {
+                release(this);
+            }
+        }
+    }
+}
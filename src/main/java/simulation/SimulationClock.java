@@ -0,0 +1,39 @@
+package simulation;
+
+import util.TimerService;
+
+import java.time.Instant;
+
+/**
+ * Clock moved by the {@link SimulationKernel}, time only changes between events.
+ */
+public class SimulationClock implements TimerService {
+
+    private long nowMillis;
+    private Instant now;
+
+    public SimulationClock(final long startMillis) {
+        setTime(startMillis);
+    }
+
+    // one Instant per distinct time, algo calls within the same event share it
+    @Override
+    public Instant now() {
+        if (now == null) {
+            now = Instant.ofEpochMilli(nowMillis);
+        }
+        return now;
+    }
+
+    @Override
+    public long nowMillis() {
+        return nowMillis;
+    }
+
+    void setTime(final long timeMillis) {
+        if (timeMillis != nowMillis) {
+            nowMillis = timeMillis;
+            now = null;
+        }
+    }
+}
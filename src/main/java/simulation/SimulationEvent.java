@@ -0,0 +1,23 @@
+package simulation;
+
+/**
+ * Event on the {@link SimulationKernel} queue.
+ * An event object is scheduled at most once at a time and can be rescheduled from its own callback,
+ * so recurring events don't allocate.
+ */
+public abstract class SimulationEvent {
+
+    long time;
+    long sequence;
+    int heapIndex = -1;
+
+    public boolean isScheduled() {
+        return heapIndex >= 0;
+    }
+
+    public long getTime() {
+        return time;
+    }
+
+    protected abstract void onEvent(final SimulationKernel kernel);
+}
@@ -0,0 +1,204 @@
+package simulation;
+
+import model.Vwap;
+import model.VwapListener;
+
+import java.util.Arrays;
+
+/**
+ * Discrete event simulation kernel.
+ *
+ * Events sit in a binary heap ordered by time, then by scheduling order. The kernel pops the next
+ * event, moves the {@link SimulationClock} straight to its time and fires it; nothing runs between
+ * events. Registered Vwap orders are events themselves: they run at their own deadlines
+ * (order start, crossing start, interval rollover) and at the current time when marked dirty
+ * by a market update, trade print or fill.
+ */
+public class SimulationKernel {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final SimulationClock clock;
+    private SimulationEvent[] heap = new SimulationEvent[INITIAL_CAPACITY];
+    private int size;
+    private long nextSequence;
+    private long eventCount;
+    private long algoRunCount;
+
+    public SimulationKernel(final SimulationClock clock) {
+        this.clock = clock;
+    }
+
+    public SimulationClock getClock() {
+        return clock;
+    }
+
+    public long now() {
+        return clock.nowMillis();
+    }
+
+    // schedule or move an event, a time in the past runs at the current time
+    public void schedule(final SimulationEvent event, final long timeMillis) {
+
+        if (event.isScheduled()) {
+            remove(event.heapIndex);
+        }
+
+        event.time = Math.max(timeMillis, clock.nowMillis());
+        event.sequence = nextSequence++;
+
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+        }
+        heap[size] = event;
+        event.heapIndex = size;
+        siftUp(size++);
+    }
+
+    // convenience for scripted scenario steps, allocates one event per call
+    public void schedule(final long timeMillis, final Runnable action) {
+        schedule(new SimulationEvent() {
+            @Override
+            protected void onEvent(final SimulationKernel kernel) {
+                action.run();
+            }
+        }, timeMillis);
+    }
+
+    public void cancel(final SimulationEvent event) {
+        if (event.isScheduled()) {
+            remove(event.heapIndex);
+        }
+    }
+
+    // drive the order from its deadlines and dirty marks until it is done
+    public void register(final Vwap vwap) {
+        final AlgoEvent event = new AlgoEvent(vwap);
+        vwap.addListener(event);
+        schedule(event, vwap.getNextDeadlineMillis(clock.nowMillis()));
+    }
+
+    // process events up to and including end time, then leave the clock at end time
+    public void run(final long endMillis) {
+
+        while (size > 0 && heap[0].time <= endMillis) {
+
+            final SimulationEvent event = heap[0];
+            remove(0);
+            clock.setTime(event.time);
+            eventCount++;
+            event.onEvent(this);
+        }
+        clock.setTime(Math.max(endMillis, clock.nowMillis()));
+    }
+
+    public int getPendingCount() {
+        return size;
+    }
+
+    public long getEventCount() {
+        return eventCount;
+    }
+
+    public long getAlgoRunCount() {
+        return algoRunCount;
+    }
+
+    private final class AlgoEvent extends SimulationEvent implements VwapListener {
+
+        private final Vwap vwap;
+        private boolean done;
+
+        private AlgoEvent(final Vwap vwap) {
+            this.vwap = vwap;
+        }
+
+        @Override
+        protected void onEvent(final SimulationKernel kernel) {
+
+            algoRunCount++;
+            vwap.run();
+
+            final long deadline = vwap.getNextDeadlineMillis(clock.nowMillis());
+            if (deadline == Long.MAX_VALUE) {
+                done = true;
+                cancel(this);
+                return;
+            }
+            // keep an earlier run requested by a dirty mark during this run
+            if (!isScheduled() || deadline < getTime()) {
+                schedule(this, deadline);
+            }
+        }
+
+        @Override
+        public void onIntervalCreated(final long dueTimeMillis, final double targetQuantity) {
+        }
+
+        @Override
+        public void onDirty() {
+            if (!done && (!isScheduled() || getTime() > clock.nowMillis())) {
+                schedule(this, clock.nowMillis());
+            }
+        }
+    }
+
+    private void remove(final int index) {
+
+        final SimulationEvent removed = heap[index];
+        removed.heapIndex = -1;
+
+        final int last = --size;
+        if (index != last) {
+            final SimulationEvent moved = heap[last];
+            heap[index] = moved;
+            moved.heapIndex = index;
+            siftDown(index);
+            if (heap[index] == moved) {
+                siftUp(index);
+            }
+        }
+        heap[last] = null;
+    }
+
+    private void siftUp(int index) {
+
+        final SimulationEvent event = heap[index];
+        while (index > 0) {
+            final int parent = (index - 1) >>> 1;
+            if (!isBefore(event, heap[parent])) {
+                break;
+            }
+            heap[index] = heap[parent];
+            heap[index].heapIndex = index;
+            index = parent;
+        }
+        heap[index] = event;
+        event.heapIndex = index;
+    }
+
+    private void siftDown(int index) {
+
+        final SimulationEvent event = heap[index];
+        final int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            final int right = child + 1;
+            if (right < size && isBefore(heap[right], heap[child])) {
+                child = right;
+            }
+            if (!isBefore(heap[child], event)) {
+                break;
+            }
+            heap[index] = heap[child];
+            heap[index].heapIndex = index;
+            index = child;
+        }
+        heap[index] = event;
+        event.heapIndex = index;
+    }
+
+    private static boolean isBefore(final SimulationEvent a, final SimulationEvent b) {
+        return a.time < b.time || (a.time == b.time && a.sequence < b.sequence);
+    }
+}
@@ -10,5 +10,17 @@ public interface Slice {
 
     double getFilledQuantity();
 
+    // fixed point views of the above, price in ticks of the slice manager and quantities in shares
+    long getPriceTicks();
+
+    long getSliceShares();
+
+    long getFilledShares();
+
+    // exchange acknowledged the slice
+    boolean isAcked();
+
+    long getSliceId();
+
     String getSliceRef();
-}
\ No newline at end of file
+}
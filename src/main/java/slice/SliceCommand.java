@@ -0,0 +1,31 @@
+package slice;
+
+/**
+ * Preallocated slot of {@link SliceCommandQueue}, filled in by a producer and applied by the owner thread.
+ */
+final class SliceCommand {
+
+    static final int ENTRY = 1;
+    static final int AMEND = 2;
+    static final int FILL = 3;
+    static final int ACK = 4;
+    static final int REJECT = 5;
+
+    volatile long sequence = -1;
+    long claimed;
+    int type;
+    long sliceId;
+    long quantity;
+    long priceTicks;
+    // slice ref prefix of an entry or reason of a reject
+    String text;
+
+    SliceCommand set(final int type, final long sliceId, final long quantity, final long priceTicks, final String text) {
+        this.type = type;
+        this.sliceId = sliceId;
+        this.quantity = quantity;
+        this.priceTicks = priceTicks;
+        this.text = text;
+        return this;
+    }
+}
@@ -0,0 +1,73 @@
+package slice;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded multi-producer, single consumer ring of preallocated slice commands.
+ *
+ * Producers claim a sequence, fill the slot and publish it; the thread owning the {@link SliceManager}
+ * drains everything published in one batch. When the ring is full, producers spin until the owner
+ * frees a slot, so no fill is lost.
+ *
+ * Each command is copied out and its slot freed before it is applied, so a listener that enqueues one
+ * command from the owner thread while a command is applied never waits on a full ring.
+ */
+final class SliceCommandQueue {
+
+    private final SliceCommand[] commands;
+    private final int mask;
+    private final AtomicLong claimSequence = new AtomicLong();
+    private final AtomicLong consumedSequence = new AtomicLong();
+    // owner's copy of the command being applied, its slot is already free
+    private final SliceCommand current = new SliceCommand();
+    private long next;
+
+    SliceCommandQueue(final int capacity) {
+
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+
+        this.commands = new SliceCommand[capacity];
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            commands[i] = new SliceCommand();
+        }
+    }
+
+    SliceCommand claim() {
+
+        final long sequence = claimSequence.getAndIncrement();
+        while (sequence - commands.length >= consumedSequence.get()) {
+            Thread.yield();
+        }
+
+        final SliceCommand command = commands[(int) (sequence & mask)];
+        command.claimed = sequence;
+        return command;
+    }
+
+    void publish(final SliceCommand command) {
+        command.sequence = command.claimed;
+    }
+
+    // owner thread only
+    boolean hasPending() {
+        return commands[(int) (next & mask)].sequence == next;
+    }
+
+    // owner thread only, apply every published command, return how many
+    int drain(final SliceManager target) {
+
+        final long start = next;
+        SliceCommand command;
+        while ((command = commands[(int) (next & mask)]).sequence == next) {
+            current.set(command.type, command.sliceId, command.quantity, command.priceTicks, command.text);
+            command.text = null;
+            consumedSequence.lazySet(++next);
+            target.apply(current);
+        }
+        current.text = null;
+        return (int) (next - start);
+    }
+}
@@ -1,6 +1,13 @@
 package slice;
 
+/**
+ * Execution reports from the exchange gateway. Implementations must accept them from any thread.
+ */
 public interface SliceEvent {
 
-    void onSliceFill();
+    void onSliceAck(final long sliceId);
+
+    void onSliceFill(final long sliceId, final double filledQuantity, final double filledPrice);
+
+    void onSliceReject(final long sliceId, final String reason);
 }
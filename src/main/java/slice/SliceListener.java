@@ -0,0 +1,21 @@
+package slice;
+
+public interface SliceListener {
+
+    void onEntry(final Slice slice);
+
+    void onAmend(final Slice slice);
+
+    void onFill(final Slice slice, final double filledQuantity, final double filledPrice);
+
+    default void onAck(final Slice slice) {
+    }
+
+    // the slice is no longer open, its open quantity is released
+    default void onReject(final Slice slice, final String reason) {
+    }
+
+    // called on the producer thread when a command is queued, the owner thread should drain the queue soon
+    default void onCommandQueued() {
+    }
+}
@@ -1,178 +1,357 @@
 package slice;
 
+import util.LatencyHistogram;
 import util.Logger;
-
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
-
+import util.MathUtil;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Slices of one order and their running totals.
+ *
+ * State is owned by a single thread, the one running the algo. entry(), amend() and fill() must be called on it.
+ * Other threads, like the exchange gateway, report through {@link SliceEvent} or submit algo commands;
+ * those go through a preallocated command ring and are applied when the owner calls {@link #drainCommands()}.
+ * Entry, amend and fill are timed including their listeners, see {@link #getEntryLatency()}.
+ */
 public class SliceManager implements SliceEvent {
 
-    private final Map<String, Slice> slices;
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int COMMAND_QUEUE_CAPACITY = 1024;
+
+    private final SliceStore slices;
+    private final SliceCommandQueue commands = new SliceCommandQueue(COMMAND_QUEUE_CAPACITY);
     private final Logger logger;
-    private int counter = 1;
+    private final double tickSize;
+    private long counter = 1;
+    private volatile SliceListener[] listeners = new SliceListener[0];
+    // recorded on the owning (algo) thread only, gateway threads go through the command queue
+    private final LatencyHistogram entryLatency = new LatencyHistogram();
+    private final LatencyHistogram amendLatency = new LatencyHistogram();
+    private final LatencyHistogram fillLatency = new LatencyHistogram();
+
+    // running totals across all slices, in shares and price ticks so fill accounting is exact
+    private long openQty;
+    private long filledQty;
+    private long filledNotional;
 
     public SliceManager(final Logger logger) {
-        slices = new HashMap<>();
+        this(logger, MathUtil.FIXED_POINT_TICK);
+    }
+
+    public SliceManager(final Logger logger, final double tickSize) {
+        slices = new SliceStore(INITIAL_CAPACITY);
         this.logger = logger;
+        this.tickSize = tickSize;
     }
 
-    public double getOpenQty() {
+    public synchronized void addListener(final SliceListener listener) {
+        final SliceListener[] updated = Arrays.copyOf(listeners, listeners.length + 1);
+        updated[listeners.length] = listener;
+        listeners = updated;
+    }
 
-        return slices.values()
-                .stream()
-                .mapToDouble(Slice::getOpenQuantity)
-                .sum();
+    public double getTickSize() {
+        return tickSize;
     }
 
-    public double getFilledQty() {
+    public long toTicks(final double price) {
+        return MathUtil.toTicks(price, tickSize);
+    }
 
-        return slices.values()
-                .stream()
-                .mapToDouble(Slice::getFilledQuantity)
-                .sum();
+    public double getOpenQty() {
+        return openQty;
     }
 
-    public void entry(final double quantity, final double price, final String sliceRef) {
+    public double getFilledQty() {
+        return filledQty;
+    }
 
-        final String effectiveSliceRef = sliceRef + " " + String.valueOf(counter++);
+    public long getOpenShares() {
+        return openQty;
+    }
 
-        final Slice slice = new Slice() {
-            @Override
-            public double getSlicePrice() {
-                return price;
-            }
+    public long getFilledShares() {
+        return filledQty;
+    }
 
-            @Override
-            public double getSliceQuantity() {
-                return quantity;
-            }
+    // return slice id of the new slice, or 0 when nothing is sent
+    public long entry(final double quantity, final double price, final String sliceRef) {
+        return entryTicks(Math.round(quantity), toTicks(price), sliceRef);
+    }
 
-            @Override
-            public double getOpenQuantity() {
-                return quantity;
-            }
+    // fixed point entry, quantity in shares and price in ticks
+    public long entryTicks(final long quantity, final long priceTicks, final String sliceRef) {
 
-            @Override
-            public double getFilledQuantity() {
-                return 0;
-            }
+        if (quantity <= 0) {
+            return 0L;
+        }
 
-            @Override
-            public String getSliceRef() {
-                return effectiveSliceRef;
-            }
-        };
+        final long startNanos = System.nanoTime();
+        final double price = MathUtil.toPrice(priceTicks, tickSize);
+        final SliceRecord slice = slices.allocate(counter++, sliceRef, quantity, priceTicks, price);
+        openQty += quantity;
 
-        if (Double.compare(quantity, 0.0) > 0) {
+        logger.atDebug().append("Send ").append(slice.getSliceRef())
+                .append(" : ").append((double) quantity).append('@').append(price).commit();
 
-            logger.debug("Send " + effectiveSliceRef + " : " + quantity + "@" + slice.getSlicePrice());
-            slices.put(effectiveSliceRef, slice);
+        for (SliceListener listener : listeners) {
+            listener.onEntry(slice);
         }
+        entryLatency.record(System.nanoTime() - startNanos);
+        return slice.getSliceId();
     }
 
     public void printInfo() {
 
-        logger.debug("Slice total open Qty = " + getOpenQty() + ", Slice total filled Qty = " + getFilledQty());
+        logger.atDebug().append("Slice total open Qty = ").append(getOpenQty())
+                .append(", Slice total filled Qty = ").append(getFilledQty()).commit();
     }
 
-    public List<Slice> getOpenSlice() {
-        return slices.values()
-                .stream()
-                .filter(slice -> Double.compare(slice.getOpenQuantity(), 0.0) > 0)
-                .collect(Collectors.toList());
+    public int getOpenSliceCount() {
+        return slices.getOpenCount();
     }
 
-    public void amend(Slice slice, double newPrice) {
+    // index based access for allocation free iteration, fill() may move the last open slice into the filled index
+    public Slice getOpenSlice(final int index) {
+        return slices.getOpen(index);
+    }
 
-        slices.remove(slice);
+    public Slice getSlice(final long sliceId) {
+        return slices.get(sliceId);
+    }
 
-        slices.put(slice.getSliceRef(), new Slice() {
-            @Override
-            public double getSlicePrice() {
-                return newPrice;
-            }
+    public void amend(final Slice slice, final double newPrice) {
+        amendTicks(slice.getSliceId(), toTicks(newPrice));
+    }
 
-            @Override
-            public double getSliceQuantity() {
-                return slice.getSliceQuantity();
-            }
+    public void amend(final long sliceId, final double newPrice) {
+        amendTicks(sliceId, toTicks(newPrice));
+    }
 
-            @Override
-            public double getOpenQuantity() {
-                return slice.getOpenQuantity();
-            }
+    public void amendTicks(final long sliceId, final long newPriceTicks) {
 
-            @Override
-            public double getFilledQuantity() {
-                return slice.getFilledQuantity();
-            }
+        final SliceRecord slice = slices.get(sliceId);
+        if (slice == null) {
+            return;
+        }
 
-            @Override
-            public String getSliceRef() {
-                return slice.getSliceRef();
-            }
-        });
+        final long startNanos = System.nanoTime();
+        slice.priceTicks = newPriceTicks;
+        slice.price = MathUtil.toPrice(newPriceTicks, tickSize);
+        logger.atDebug().append("Amend ").append(slice.getSliceRef())
+                .append(" : ").append(slice.getSliceQuantity()).append('@').append(slice.price).commit();
 
-        logger.debug("Amend " + slice.getSliceRef() + " : " + slice.getSliceQuantity() + "@" + newPrice);
+        for (SliceListener listener : listeners) {
+            listener.onAmend(slice);
+        }
+        amendLatency.record(System.nanoTime() - startNanos);
     }
 
-    public double getAvgFilledPrice() {
+    public LatencyHistogram getEntryLatency() {
+        return entryLatency;
+    }
 
-        double avgFilledPrice = 0.0;
-        double totalFilledQty = 0.0;
+    public LatencyHistogram getAmendLatency() {
+        return amendLatency;
+    }
 
-        for (Slice slice : slices.values()) {
+    public LatencyHistogram getFillLatency() {
+        return fillLatency;
+    }
 
-            final double sliceFilledQty = slice.getFilledQuantity();
-            final double sliceFilledPrice = slice.getSlicePrice();
+    // small dense number of a slice id, to index per slice arrays outside the manager; reused once the slice is done
+    public static int slotOf(final long sliceId) {
+        return (int) (sliceId & SliceStore.SLOT_MASK);
+    }
 
-            avgFilledPrice = (avgFilledPrice * totalFilledQty + sliceFilledPrice * sliceFilledQty)
-                    / (totalFilledQty + sliceFilledQty);
-            totalFilledQty += sliceFilledQty;
-        }
-        return avgFilledPrice;
+    // number of slices sent so far
+    public long getSliceCount() {
+        return counter - 1;
     }
 
+    public double getAvgFilledPrice() {
+        return filledQty > 0 ? MathUtil.toPrice((double) filledNotional / filledQty, tickSize) : 0.0;
+    }
 
     public void fill(final Slice slice, final double filledQuantity, final double filledPrice) {
+        fillTicks(slice.getSliceId(), Math.round(filledQuantity), toTicks(filledPrice));
+    }
 
-        slices.remove(slice);
+    public void fill(final long sliceId, final double filledQuantity, final double filledPrice) {
+        fillTicks(sliceId, Math.round(filledQuantity), toTicks(filledPrice));
+    }
 
-        slices.put(slice.getSliceRef(), new Slice() {
+    // a fill without positive quantity and price is ignored, a fill beyond the open quantity is capped to it
+    public void fillTicks(final long sliceId, final long filledQuantity, final long filledPriceTicks) {
 
-            @Override
-            public double getSlicePrice() {
-                return filledPrice;
-            }
+        final SliceRecord slice = slices.get(sliceId);
+        if (slice == null) {
+            return;
+        }
+        if (filledQuantity <= 0 || filledPriceTicks <= 0) {
+            logger.atWarn().append(slice.getSliceRef()).append(" ignores invalid fill ")
+                    .append((double) filledQuantity).append('@').append(filledPriceTicks).commit();
+            return;
+        }
 
-            @Override
-            public double getSliceQuantity() {
-                return slice.getSliceQuantity();
-            }
+        final long startNanos = System.nanoTime();
+        final long quantity = Math.min(filledQuantity, slice.quantity - slice.filledQuantity);
+        final double filledPrice = MathUtil.toPrice(filledPriceTicks, tickSize);
+        slice.filledQuantity += quantity;
+        openQty -= quantity;
+        filledQty += quantity;
+        filledNotional += quantity * filledPriceTicks;
 
-            @Override
-            public double getOpenQuantity() {
-                return slice.getSliceQuantity() - filledQuantity;
-            }
+        logger.atDebug().append(slice.getSliceRef())
+                .append(" is filled with ").append((double) quantity).append('@').append(filledPrice).commit();
 
-            @Override
-            public double getFilledQuantity() {
-                return filledQuantity;
-            }
+        for (SliceListener listener : listeners) {
+            listener.onFill(slice, quantity, filledPrice);
+        }
 
-            @Override
-            public String getSliceRef() {
-                return slice.getSliceRef();
-            }
-        });
+        if (slice.filledQuantity >= slice.quantity) {
+            slices.release(slice);
+        }
+        fillLatency.record(System.nanoTime() - startNanos);
+    }
 
-        logger.debug(slice.getSliceRef() + " is filled with " + filledQuantity + "@" + filledPrice);
+    // owner thread only, write counter, totals and open slices; queued commands are not part of the checkpoint
+    public void writeCheckpoint(final ByteBuffer buffer) {
+
+        buffer.putLong(counter).putLong(openQty).putLong(filledQty).putLong(filledNotional);
+        buffer.putInt(slices.getOpenCount());
+        for (int i = 0; i < slices.getOpenCount(); i++) {
+            final SliceRecord slice = slices.getOpen(i);
+            final byte[] prefix = slice.prefix.getBytes(StandardCharsets.UTF_8);
+            buffer.putLong(slice.sliceId).putLong(slice.quantity).putLong(slice.filledQuantity)
+                    .putLong(slice.priceTicks).put((byte) (slice.acked ? 1 : 0));
+            buffer.putShort((short) prefix.length).put(prefix);
+        }
+    }
+
+    // rebuild state of a fresh manager from writeCheckpoint, slices keep their ids
+    public void readCheckpoint(final ByteBuffer buffer) {
+
+        if (counter != 1 || slices.getOpenCount() > 0) {
+            throw new IllegalStateException("Checkpoint must be restored into an unused SliceManager");
+        }
+
+        counter = buffer.getLong();
+        openQty = buffer.getLong();
+        filledQty = buffer.getLong();
+        filledNotional = buffer.getLong();
+        final int openCount = buffer.getInt();
+        for (int i = 0; i < openCount; i++) {
+            final long sliceId = buffer.getLong();
+            final long quantity = buffer.getLong();
+            final long filledQuantity = buffer.getLong();
+            final long priceTicks = buffer.getLong();
+            final boolean acked = buffer.get() != 0;
+            final byte[] prefix = new byte[buffer.getShort()];
+            buffer.get(prefix);
+
+            final SliceRecord slice = slices.restore(sliceId, new String(prefix, StandardCharsets.UTF_8), quantity,
+                    priceTicks, MathUtil.toPrice(priceTicks, tickSize));
+            slice.filledQuantity = filledQuantity;
+            slice.acked = acked;
+        }
+    }
+
+    @Override
+    public void onSliceAck(final long sliceId) {
+        enqueue(SliceCommand.ACK, sliceId, 0L, 0L, null);
+    }
+
+    @Override
+    public void onSliceFill(final long sliceId, final double filledQuantity, final double filledPrice) {
+        enqueue(SliceCommand.FILL, sliceId, Math.round(filledQuantity), toTicks(filledPrice), null);
     }
 
     @Override
-    public void onSliceFill() {
-        //todo : invoke fill() based on fill event
+    public void onSliceReject(final long sliceId, final String reason) {
+        enqueue(SliceCommand.REJECT, sliceId, 0L, 0L, reason);
+    }
+
+    // algo commands from a thread other than the owner, the slice id of an entry is reported through onEntry
+    public void submitEntry(final double quantity, final double price, final String sliceRef) {
+        enqueue(SliceCommand.ENTRY, 0L, Math.round(quantity), toTicks(price), sliceRef);
+    }
+
+    public void submitAmend(final long sliceId, final double newPrice) {
+        enqueue(SliceCommand.AMEND, sliceId, 0L, toTicks(newPrice), null);
+    }
+
+    public boolean hasPendingCommands() {
+        return commands.hasPending();
+    }
+
+    // owner thread only, apply queued reports and commands in arrival order, return how many were applied
+    public int drainCommands() {
+        return commands.drain(this);
+    }
+
+    void apply(final SliceCommand command) {
+
+        switch (command.type) {
+            case SliceCommand.ENTRY:
+                entryTicks(command.quantity, command.priceTicks, command.text);
+                break;
+            case SliceCommand.AMEND:
+                amendTicks(command.sliceId, command.priceTicks);
+                break;
+            case SliceCommand.FILL:
+                fillTicks(command.sliceId, command.quantity, command.priceTicks);
+                break;
+            case SliceCommand.ACK:
+                ack(command.sliceId);
+                break;
+            case SliceCommand.REJECT:
+                reject(command.sliceId, command.text);
+                break;
+            default:
+                throw new IllegalStateException("Unknown slice command " + command.type);
+        }
+    }
+
+    private void ack(final long sliceId) {
+
+        final SliceRecord slice = slices.get(sliceId);
+        if (slice == null) {
+            return;
+        }
+
+        slice.acked = true;
+        for (SliceListener listener : listeners) {
+            listener.onAck(slice);
+        }
+    }
+
+    private void reject(final long sliceId, final String reason) {
+
+        final SliceRecord slice = slices.get(sliceId);
+        if (slice == null) {
+            return;
+        }
+
+        openQty -= slice.quantity - slice.filledQuantity;
+        logger.atWarn().append(slice.getSliceRef()).append(" is rejected: ").append(reason).commit();
+
+        for (SliceListener listener : listeners) {
+            listener.onReject(slice, reason);
+        }
+        slices.release(slice);
+    }
+
+    private void enqueue(final int type, final long sliceId, final long quantity, final long priceTicks, final String text) {
+
+        final SliceCommand command = commands.claim();
+        commands.publish(command.set(type, sliceId, quantity, priceTicks, text));
+
+        for (SliceListener listener : listeners) {
+            listener.onCommandQueued();
+        }
     }
-}
\ No newline at end of file
+}
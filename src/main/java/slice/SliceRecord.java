@@ -0,0 +1,91 @@
+package slice;
+
+/**
+ * Mutable slice record owned by {@link SliceStore}.
+ * Price and quantities are updated in place and the record is recycled once the slice is done,
+ * so callers must not keep a reference after the slice has been fully filled.
+ */
+final class SliceRecord implements Slice {
+
+    final int slot;
+    long sliceId;
+    long sequence;
+    String prefix;
+    String sliceRef;
+    long priceTicks;
+    double price;
+    long quantity;
+    long filledQuantity;
+    boolean acked;
+    int openIndex = -1;
+
+    SliceRecord(final int slot) {
+        this.slot = slot;
+    }
+
+    void reset(final long sliceId, final long sequence, final String prefix, final long quantity, final long priceTicks, final double price) {
+        this.sliceId = sliceId;
+        this.sequence = sequence;
+        this.prefix = prefix;
+        this.sliceRef = null;
+        this.quantity = quantity;
+        this.priceTicks = priceTicks;
+        this.price = price;
+        this.filledQuantity = 0L;
+        this.acked = false;
+    }
+
+    @Override
+    public double getSlicePrice() {
+        return price;
+    }
+
+    @Override
+    public double getSliceQuantity() {
+        return quantity;
+    }
+
+    @Override
+    public double getOpenQuantity() {
+        return quantity - filledQuantity;
+    }
+
+    @Override
+    public double getFilledQuantity() {
+        return filledQuantity;
+    }
+
+    @Override
+    public long getPriceTicks() {
+        return priceTicks;
+    }
+
+    @Override
+    public long getSliceShares() {
+        return quantity;
+    }
+
+    @Override
+    public long getFilledShares() {
+        return filledQuantity;
+    }
+
+    @Override
+    public boolean isAcked() {
+        return acked;
+    }
+
+    @Override
+    public long getSliceId() {
+        return sliceId;
+    }
+
+    // built on first use only, the hot path works with slice id
+    @Override
+    public String getSliceRef() {
+        if (sliceRef == null) {
+            sliceRef = prefix + " " + sequence;
+        }
+        return sliceRef;
+    }
+}
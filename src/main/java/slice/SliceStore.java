@@ -0,0 +1,114 @@
+package slice;
+
+import java.util.Arrays;
+
+/**
+ * Flat store of slice records keyed by primitive slice id.
+ *
+ * Slice id packs a running sequence with the record slot, so lookup is an array index
+ * and a stale id (slot already recycled) is detected by comparing the stored id.
+ * Open slices are kept in a dense index array with swap-remove, records of done slices
+ * go back to a free list. Nothing is allocated once the store has grown to its working size.
+ */
+final class SliceStore {
+
+    static final int SLOT_BITS = 24;
+    static final long SLOT_MASK = (1L << SLOT_BITS) - 1;
+
+    private SliceRecord[] records;
+    private int[] freeSlots;
+    private int freeCount;
+    private int[] openSlots;
+    private int openCount;
+    private int size;
+
+    SliceStore(final int initialCapacity) {
+        records = new SliceRecord[initialCapacity];
+        freeSlots = new int[initialCapacity];
+        openSlots = new int[initialCapacity];
+    }
+
+    SliceRecord allocate(final long sequence, final String prefix, final long quantity, final long priceTicks, final double price) {
+
+        final int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            if (size == records.length) {
+                grow();
+            }
+            slot = size++;
+            records[slot] = new SliceRecord(slot);
+        }
+
+        final SliceRecord record = records[slot];
+        record.reset((sequence << SLOT_BITS) | slot, sequence, prefix, quantity, priceTicks, price);
+
+        record.openIndex = openCount;
+        openSlots[openCount++] = slot;
+        return record;
+    }
+
+    // recreate a checkpointed open slice under its original id, slots skipped on the way go to the free list
+    SliceRecord restore(final long sliceId, final String prefix, final long quantity, final long priceTicks, final double price) {
+
+        final int slot = (int) (sliceId & SLOT_MASK);
+        while (size <= slot) {
+            if (size == records.length) {
+                grow();
+            }
+            records[size] = new SliceRecord(size);
+            freeSlots[freeCount++] = size;
+            size++;
+        }
+        for (int i = 0; i < freeCount; i++) {
+            if (freeSlots[i] == slot) {
+                freeSlots[i] = freeSlots[--freeCount];
+                break;
+            }
+        }
+
+        final SliceRecord record = records[slot];
+        record.reset(sliceId, sliceId >>> SLOT_BITS, prefix, quantity, priceTicks, price);
+        record.openIndex = openCount;
+        openSlots[openCount++] = slot;
+        return record;
+    }
+
+    // return null when id is unknown or the slice is already done
+    SliceRecord get(final long sliceId) {
+
+        final int slot = (int) (sliceId & SLOT_MASK);
+        if (slot >= size) {
+            return null;
+        }
+        final SliceRecord record = records[slot];
+        return record.sliceId == sliceId && record.openIndex >= 0 ? record : null;
+    }
+
+    void release(final SliceRecord record) {
+
+        final int index = record.openIndex;
+        final int lastSlot = openSlots[--openCount];
+        openSlots[index] = lastSlot;
+        records[lastSlot].openIndex = index;
+
+        record.openIndex = -1;
+        freeSlots[freeCount++] = record.slot;
+    }
+
+    int getOpenCount() {
+        return openCount;
+    }
+
+    SliceRecord getOpen(final int index) {
+        return records[openSlots[index]];
+    }
+
+    private void grow() {
+        final int capacity = Math.max(16, records.length * 2);
+        records = Arrays.copyOf(records, capacity);
+        freeSlots = Arrays.copyOf(freeSlots, capacity);
+        openSlots = Arrays.copyOf(openSlots, capacity);
+    }
+}
@@ -0,0 +1,61 @@
+package tca;
+
+import java.util.Arrays;
+
+/**
+ * Append-only record of every fill of one order in primitive columns.
+ * Unlike the slice, which only keeps its filled quantity, each partial fill keeps its own time and price.
+ * Totals are kept by the owner, not here. Appended and read on the algo thread.
+ * Not part of the order checkpoint, after a restore it is rebuilt from the journal, see OrderJournal#replayFills.
+ */
+public class FillLedger {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private long[] timeMillis = new long[INITIAL_CAPACITY];
+    private long[] sliceIds = new long[INITIAL_CAPACITY];
+    private long[] quantities = new long[INITIAL_CAPACITY];
+    private long[] priceTicks = new long[INITIAL_CAPACITY];
+    private int count;
+
+    public void append(final long time, final long sliceId, final long quantity, final long ticks) {
+
+        if (quantity <= 0 || ticks <= 0) {
+            throw new IllegalArgumentException("Fill must have positive quantity and price: " + quantity + "@" + ticks);
+        }
+
+        if (count == timeMillis.length) {
+            final int capacity = count * 2;
+            timeMillis = Arrays.copyOf(timeMillis, capacity);
+            sliceIds = Arrays.copyOf(sliceIds, capacity);
+            quantities = Arrays.copyOf(quantities, capacity);
+            priceTicks = Arrays.copyOf(priceTicks, capacity);
+        }
+
+        timeMillis[count] = time;
+        sliceIds[count] = sliceId;
+        quantities[count] = quantity;
+        priceTicks[count] = ticks;
+        count++;
+    }
+
+    public int getFillCount() {
+        return count;
+    }
+
+    public long getTimeMillis(final int index) {
+        return timeMillis[index];
+    }
+
+    public long getSliceId(final int index) {
+        return sliceIds[index];
+    }
+
+    public long getQuantity(final int index) {
+        return quantities[index];
+    }
+
+    public long getPriceTicks(final int index) {
+        return priceTicks[index];
+    }
+}
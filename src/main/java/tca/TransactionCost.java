@@ -0,0 +1,270 @@
+package tca;
+
+import market.OrderBookQuery;
+import market.TopOfBook;
+import slice.Slice;
+import slice.SliceListener;
+import slice.SliceManager;
+import util.MathUtil;
+import util.TimerService;
+import volume.VolumeSnapshot;
+import volume.VolumeTracker;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Transaction cost of one order, kept up to date fill by fill instead of recomputed at the end.
+ *
+ * Fills are appended to a {@link FillLedger} on the algo thread as a listener of the order's SliceManager, and
+ * the totals the metrics need are published under a StampedLock, so any thread can poll them in O(1).
+ * Arrival price (mid) and the market volume and notional are taken when the first slice is sent,
+ * every market figure is then measured from arrival, so trading before the order does not count.
+ *
+ * Costs are in basis points and signed so that a positive number is worse for the order:
+ * slippage against the market VWAP since arrival, and implementation shortfall against the arrival price.
+ * Shortfall is split as usual: the execution cost of the filled shares ({@link #getShortfallBps()}) and the
+ * opportunity cost of the unfilled shares marked at the current mid; both are weighted to the whole order in
+ * {@link #getTotalShortfallBps()}. Participation is the order's share of market volume since arrival.
+ * Fills without positive quantity and price are ignored.
+ */
+public class TransactionCost implements SliceListener {
+
+    private final boolean isBuy;
+    private final long orderShares;
+    private final SliceManager sliceManager;
+    private final TimerService timerService;
+    private final OrderBookQuery orderBook;
+    private final VolumeTracker volumeTracker;
+    private final FillLedger ledger = new FillLedger();
+    private final TopOfBook touch = new TopOfBook();
+    private final ThreadLocal<TopOfBook> markTouch = ThreadLocal.withInitial(TopOfBook::new);
+    private final ThreadLocal<VolumeSnapshot> scratch = ThreadLocal.withInitial(VolumeSnapshot::new);
+
+    private final StampedLock lock = new StampedLock();
+    private long filledShares;
+    private long filledNotional;
+    private double arrivalPrice = Double.NaN;
+    private long arrivalVolume;
+    private long arrivalNotional;
+
+    public TransactionCost(final boolean isBuy,
+                           final long orderShares,
+                           final SliceManager sliceManager,
+                           final TimerService timerService,
+                           final OrderBookQuery orderBook,
+                           final VolumeTracker volumeTracker) {
+        this.isBuy = isBuy;
+        this.orderShares = orderShares;
+        this.sliceManager = sliceManager;
+        this.timerService = timerService;
+        this.orderBook = orderBook;
+        this.volumeTracker = volumeTracker;
+        sliceManager.addListener(this);
+    }
+
+    @Override
+    public void onEntry(final Slice slice) {
+
+        if (!Double.isNaN(arrivalPrice)) {
+            return;
+        }
+        orderBook.read(touch);
+        final double mid = (touch.getBid() + touch.getAsk()) / 2;
+        final VolumeSnapshot market = scratch.get();
+        volumeTracker.getSnapshot(market);
+
+        final long stamp = lock.writeLock();
+        try {
+            arrivalPrice = mid;
+            arrivalVolume = market.getVolume();
+            arrivalNotional = market.getNotional();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public void onAmend(final Slice slice) {
+    }
+
+    @Override
+    public void onFill(final Slice slice, final double filledQuantity, final double filledPrice) {
+
+        final long quantity = Math.round(filledQuantity);
+        final long ticks = sliceManager.toTicks(filledPrice);
+        if (quantity <= 0 || ticks <= 0) {
+            return;
+        }
+        ledger.append(timerService.nowMillis(), slice.getSliceId(), quantity, ticks);
+
+        final long stamp = lock.writeLock();
+        try {
+            filledShares += quantity;
+            filledNotional += quantity * ticks;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // algo thread only
+    public FillLedger getLedger() {
+        return ledger;
+    }
+
+    public long getFilledShares() {
+        long stamp = lock.tryOptimisticRead();
+        long shares = filledShares;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                shares = filledShares;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return shares;
+    }
+
+    // 0 before the first fill
+    public double getAvgFilledPrice() {
+
+        long stamp = lock.tryOptimisticRead();
+        long shares = filledShares;
+        long notional = filledNotional;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                shares = filledShares;
+                notional = filledNotional;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return shares > 0 ? MathUtil.toPrice((double) notional / shares, sliceManager.getTickSize()) : 0.0;
+    }
+
+    // NaN before the first slice
+    public double getArrivalPrice() {
+
+        long stamp = lock.tryOptimisticRead();
+        double price = arrivalPrice;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                price = arrivalPrice;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return price;
+    }
+
+    // market VWAP since arrival, 0 before arrival or when nothing traded since
+    public double getBenchmarkPrice() {
+
+        long stamp = lock.tryOptimisticRead();
+        double price = arrivalPrice;
+        long volume = arrivalVolume;
+        long notional = arrivalNotional;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                price = arrivalPrice;
+                volume = arrivalVolume;
+                notional = arrivalNotional;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        if (Double.isNaN(price)) {
+            return 0.0;
+        }
+
+        final VolumeSnapshot market = scratch.get();
+        volumeTracker.getSnapshot(market);
+        final long marketVolume = market.getVolume() - volume;
+        return marketVolume > 0
+                ? MathUtil.toPrice((double) (market.getNotional() - notional) / marketVolume, volumeTracker.getTickSize())
+                : 0.0;
+    }
+
+    public double getSlippageBps() {
+        return toCostBps(getAvgFilledPrice(), getBenchmarkPrice());
+    }
+
+    // execution cost of the filled shares only
+    public double getShortfallBps() {
+        return toCostBps(getAvgFilledPrice(), getArrivalPrice());
+    }
+
+    // unfilled shares marked at the current mid against arrival, in basis points of the whole order
+    public double getOpportunityCostBps() {
+
+        final long unfilled = orderShares - getFilledShares();
+        if (unfilled <= 0 || orderShares <= 0) {
+            return 0.0;
+        }
+        final TopOfBook mark = orderBook.read(markTouch.get());
+        return toCostBps((mark.getBid() + mark.getAsk()) / 2, getArrivalPrice()) * unfilled / orderShares;
+    }
+
+    // execution cost weighted by the filled fraction plus opportunity cost, in basis points of the whole order
+    public double getTotalShortfallBps() {
+        if (orderShares <= 0) {
+            return 0.0;
+        }
+        return getShortfallBps() * Math.min(getFilledShares(), orderShares) / orderShares + getOpportunityCostBps();
+    }
+
+    // filled shares in percent of market volume since arrival, 0 before any market volume
+    public double getParticipationPct() {
+
+        long stamp = lock.tryOptimisticRead();
+        long shares = filledShares;
+        long volume = arrivalVolume;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                shares = filledShares;
+                volume = arrivalVolume;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        final long marketVolume = volumeTracker.getCumulativeVolume() - volume;
+        return marketVolume > 0 ? shares * 100.0 / marketVolume : 0.0;
+    }
+
+    // running totals and arrival only, fixed size; the ledger is rebuilt from the journal
+    public void writeCheckpoint(final ByteBuffer buffer) {
+        buffer.putLong(filledShares);
+        buffer.putLong(filledNotional);
+        buffer.putDouble(arrivalPrice);
+        buffer.putLong(arrivalVolume);
+        buffer.putLong(arrivalNotional);
+    }
+
+    public void readCheckpoint(final ByteBuffer buffer) {
+
+        final long stamp = lock.writeLock();
+        try {
+            filledShares = buffer.getLong();
+            filledNotional = buffer.getLong();
+            arrivalPrice = buffer.getDouble();
+            arrivalVolume = buffer.getLong();
+            arrivalNotional = buffer.getLong();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private double toCostBps(final double price, final double reference) {
+
+        if (Double.isNaN(price) || Double.compare(price, 0.0) <= 0 || Double.isNaN(reference) || Double.compare(reference, 0.0) <= 0) {
+            return 0.0;
+        }
+        final double cost = isBuy ? price - reference : reference - price;
+        return cost / reference * 10_000;
+    }
+}
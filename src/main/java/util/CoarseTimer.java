@@ -0,0 +1,67 @@
+package util;
+
+import java.time.Instant;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Live clock for algo threads that read the time many times per tick.
+ * A daemon thread refreshes the time every resolution, nowMillis() and nowNanos() are a volatile read.
+ */
+public class CoarseTimer implements TimerService, AutoCloseable {
+
+    public static final long DEFAULT_RESOLUTION_MILLIS = 1L;
+
+    private final long resolutionNanos;
+    private final long epochNanosOffset = System.currentTimeMillis() * 1_000_000L - System.nanoTime();
+    private final Thread updater;
+    private volatile long nowNanos;
+    private volatile boolean running = true;
+
+    public CoarseTimer() {
+        this(DEFAULT_RESOLUTION_MILLIS);
+    }
+
+    public CoarseTimer(final long resolutionMillis) {
+
+        if (resolutionMillis <= 0) {
+            throw new IllegalArgumentException("Resolution must be positive: " + resolutionMillis);
+        }
+        this.resolutionNanos = resolutionMillis * 1_000_000L;
+        this.nowNanos = epochNanosOffset + System.nanoTime();
+        this.updater = new Thread(this::update, "coarse-timer");
+        this.updater.setDaemon(true);
+        this.updater.start();
+    }
+
+    private void update() {
+        while (running) {
+            LockSupport.parkNanos(resolutionNanos);
+            nowNanos = epochNanosOffset + System.nanoTime();
+        }
+    }
+
+    public long getResolutionMillis() {
+        return resolutionNanos / 1_000_000L;
+    }
+
+    @Override
+    public Instant now() {
+        return Instant.ofEpochSecond(0L, nowNanos);
+    }
+
+    @Override
+    public long nowMillis() {
+        return nowNanos / 1_000_000L;
+    }
+
+    @Override
+    public long nowNanos() {
+        return nowNanos;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(updater);
+    }
+}
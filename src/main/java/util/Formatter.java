@@ -2,25 +2,141 @@ package util;
 
 import java.text.DecimalFormat;
 import java.time.Instant;
-import java.time.ZoneId;
 import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.TimeZone;
 
 public class Formatter {
 
+    // DecimalFormat is not thread safe, keep one per thread instead of one per call
+    private static final ThreadLocal<DecimalFormat> QUANTITY_FORMAT = ThreadLocal.withInitial(() -> new DecimalFormat("###.##"));
+    private static final ThreadLocal<DecimalFormat> PRICE_FORMAT = ThreadLocal.withInitial(() -> new DecimalFormat("#.##"));
+    private static final TimeZone TIME_ZONE = TimeZone.getDefault();
+
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+    private static final double TWO_POW_52 = 4503599627370496.0;
+    private static final double SPLITTER = 134217729.0; // 2^27 + 1
+
     public static String formatQuantity(final double decimal) {
-        final String pattern = "###.##";
-        final DecimalFormat decimalFormat = new DecimalFormat(pattern);
-        return decimalFormat.format(decimal);
+        return QUANTITY_FORMAT.get().format(decimal);
     }
 
     public static String formatPrice(final double price) {
-        final DecimalFormat decimalFormat = new DecimalFormat("#.##");
-        return decimalFormat.format(price);
+        return PRICE_FORMAT.get().format(price);
     }
 
     public static String formatInstant(final Instant instant) {
         return ZonedDateTime.ofInstant(instant, TimeZone.getDefault().toZoneId()).toString();
     }
+
+    // garbage free equivalent of formatQuantity
+    public static StringBuilder appendQuantity(final StringBuilder sb, final double quantity) {
+        return appendTwoDecimals(sb, quantity);
+    }
+
+    // garbage free equivalent of formatPrice
+    public static StringBuilder appendPrice(final StringBuilder sb, final double price) {
+        return appendTwoDecimals(sb, price);
+    }
+
+    // append local date time with millisecond and offset, e.g. 2020-03-29T09:00:01.000+08:00
+    public static StringBuilder appendInstant(final StringBuilder sb, final long epochMillis) {
+
+        final int offsetMillis = TIME_ZONE.getOffset(epochMillis);
+        final long localMillis = epochMillis + offsetMillis;
+        final long epochDay = Math.floorDiv(localMillis, MILLIS_PER_DAY);
+        final int millisOfDay = (int) Math.floorMod(localMillis, MILLIS_PER_DAY);
+
+        appendDate(sb, epochDay);
+        sb.append('T');
+        appendTwoDigits(sb, millisOfDay / 3_600_000);
+        sb.append(':');
+        appendTwoDigits(sb, millisOfDay / 60_000 % 60);
+        sb.append(':');
+        appendTwoDigits(sb, millisOfDay / 1000 % 60);
+        sb.append('.');
+        final int millis = millisOfDay % 1000;
+        appendTwoDigits(sb.append((char) ('0' + millis / 100)), millis % 100);
+
+        if (offsetMillis == 0) {
+            return sb.append('Z');
+        }
+        final int offsetMinutes = Math.abs(offsetMillis) / 60_000;
+        sb.append(offsetMillis < 0 ? '-' : '+');
+        appendTwoDigits(sb, offsetMinutes / 60);
+        sb.append(':');
+        return appendTwoDigits(sb, offsetMinutes % 60);
+    }
+
+    // round half even to 2 decimals and drop trailing zeros, same output as pattern "#.##"
+    private static StringBuilder appendTwoDecimals(final StringBuilder sb, final double value) {
+
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return sb.append(value);
+        }
+
+        // DecimalFormat keeps the sign of a value rounded to zero, e.g. -0
+        if (Double.doubleToRawLongBits(value) < 0) {
+            sb.append('-');
+        }
+        final long hundredths = roundHundredths(Math.abs(value));
+        sb.append(hundredths / 100);
+
+        final int fraction = (int) (hundredths % 100);
+        if (fraction != 0) {
+            sb.append('.').append((char) ('0' + fraction / 10));
+            if (fraction % 10 != 0) {
+                sb.append((char) ('0' + fraction % 10));
+            }
+        }
+        return sb;
+    }
+
+    // half even on the exact binary value like DecimalFormat, not on the rounded product:
+    // value * 100 = product + error exactly (Dekker two product), the error decides near a half
+    private static long roundHundredths(final double value) {
+
+        final double product = value * 100.0;
+        if (product >= TWO_POW_52) {
+            return Math.round(product);
+        }
+
+        final double split = SPLITTER * value;
+        final double high = split - (split - value);
+        final double low = value - high;
+        final double error = (high * 100.0 - product) + low * 100.0;
+
+        final double floor = Math.floor(product);
+        final double half = (product - floor) - 0.5;
+        final long hundredths = (long) floor;
+        if (half > 0 || (half == 0 && error > 0)) {
+            return hundredths + 1;
+        }
+        if (half < 0 || error < 0) {
+            return hundredths;
+        }
+        return (hundredths & 1) == 0 ? hundredths : hundredths + 1;
+    }
+
+    // civil date from epoch day, see http://howardhinnant.github.io/date_algorithms.html
+    private static void appendDate(final StringBuilder sb, final long epochDay) {
+
+        final long z = epochDay + 719468;
+        final long era = Math.floorDiv(z, 146097);
+        final long doe = z - era * 146097;
+        final long yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        final long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        final long mp = (5 * doy + 2) / 153;
+        final int day = (int) (doy - (153 * mp + 2) / 5 + 1);
+        final int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+        final long year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+
+        sb.append(year).append('-');
+        appendTwoDigits(sb, month);
+        sb.append('-');
+        appendTwoDigits(sb, day);
+    }
+
+    private static StringBuilder appendTwoDigits(final StringBuilder sb, final int value) {
+        return sb.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
 }
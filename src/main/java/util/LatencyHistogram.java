@@ -0,0 +1,104 @@
+package util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed bucket latency histogram in nanoseconds.
+ *
+ * Buckets are log linear, four per power of two, so a percentile is reported within 25% of the
+ * recorded value. Recording is lock free and without allocation.
+ *
+ * Single writer: values are recorded by one thread at a time, so each counter is bumped with a plain read
+ * and an ordered lazySet, as in OrderMetrics. Any thread may read. Sources with several writers keep one
+ * histogram per writer and merge them on read with {@link #add}.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(final long nanos) {
+        final long value = Math.max(0L, nanos);
+        final int index = indexOf(value);
+        counts.lazySet(index, counts.get(index) + 1);
+        count.lazySet(count.get() + 1);
+        total.lazySet(total.get() + value);
+        if (value > max.get()) {
+            max.lazySet(value);
+        }
+    }
+
+    // add the recorded values of another histogram, used to aggregate orders and writers; this histogram's writer
+    public void add(final LatencyHistogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            final long bucketCount = other.counts.get(i);
+            if (bucketCount > 0) {
+                counts.lazySet(i, counts.get(i) + bucketCount);
+            }
+        }
+        count.lazySet(count.get() + other.count.get());
+        total.lazySet(total.get() + other.total.get());
+        final long otherMax = other.max.get();
+        if (otherMax > max.get()) {
+            max.lazySet(otherMax);
+        }
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public long getMean() {
+        final long n = count.get();
+        return n > 0 ? total.get() / n : 0L;
+    }
+
+    // upper bound of the bucket holding the given percentile, 0 when nothing was recorded
+    public long getPercentile(final double percentile) {
+
+        final long n = count.get();
+        if (n == 0) {
+            return 0L;
+        }
+
+        final long target = Math.max(1L, (long) Math.ceil(percentile / 100.0 * n));
+        long cumulative = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            cumulative += counts.get(i);
+            if (cumulative >= target) {
+                return Math.min(upperBoundOf(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    static int indexOf(final long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        final int exponent = 63 - Long.numberOfLeadingZeros(value);
+        final int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return ((exponent - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS) + subBucket;
+    }
+
+    static long upperBoundOf(final int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        final int exponent = (index >>> SUB_BUCKET_BITS) + SUB_BUCKET_BITS - 1;
+        final long subBucket = index & (SUB_BUCKETS - 1);
+        final long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return ((SUB_BUCKETS + subBucket) * width) + width - 1;
+    }
+}
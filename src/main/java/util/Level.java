@@ -0,0 +1,9 @@
+package util;
+
+public enum Level {
+    DEBUG, INFO, WARN, ERROR, OFF;
+
+    public boolean isEnabled(final Level threshold) {
+        return this != OFF && compareTo(threshold) >= 0;
+    }
+}
@@ -0,0 +1,91 @@
+package util;
+
+/**
+ * Preallocated slot of the {@link LogWriter} ring buffer.
+ * Message is built in place with the append methods and handed to the writer thread on {@link #commit()}.
+ * An entry obtained from a logger must always be committed, otherwise the writer waits on the slot.
+ */
+public final class LogEntry {
+
+    // returned when the level is disabled, every call is a no-op
+    static final LogEntry DISABLED = new LogEntry(null, 0);
+
+    private final LogWriter writer;
+    private final StringBuilder message;
+    // published sequence, read by the writer thread
+    volatile long sequence;
+    long claimed;
+    long timestamp;
+    Level level;
+
+    LogEntry(final LogWriter writer, final int capacity) {
+        this.writer = writer;
+        this.message = new StringBuilder(capacity);
+    }
+
+    void start(final Level level, final long timestamp, final long claimed) {
+        this.level = level;
+        this.timestamp = timestamp;
+        this.claimed = claimed;
+        message.setLength(0);
+    }
+
+    StringBuilder getMessage() {
+        return message;
+    }
+
+    public LogEntry append(final CharSequence value) {
+        if (writer != null) {
+            message.append(value);
+        }
+        return this;
+    }
+
+    public LogEntry append(final char value) {
+        if (writer != null) {
+            message.append(value);
+        }
+        return this;
+    }
+
+    public LogEntry append(final long value) {
+        if (writer != null) {
+            message.append(value);
+        }
+        return this;
+    }
+
+    public LogEntry append(final double value) {
+        if (writer != null) {
+            message.append(value);
+        }
+        return this;
+    }
+
+    public LogEntry appendPrice(final double price) {
+        if (writer != null) {
+            Formatter.appendPrice(message, price);
+        }
+        return this;
+    }
+
+    public LogEntry appendQuantity(final double quantity) {
+        if (writer != null) {
+            Formatter.appendQuantity(message, quantity);
+        }
+        return this;
+    }
+
+    public LogEntry appendInstant(final long epochMillis) {
+        if (writer != null) {
+            Formatter.appendInstant(message, epochMillis);
+        }
+        return this;
+    }
+
+    public void commit() {
+        if (writer != null) {
+            writer.publish(this);
+        }
+    }
+}
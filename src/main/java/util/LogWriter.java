@@ -0,0 +1,167 @@
+package util;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Background log writer fed by a preallocated multi-producer ring buffer.
+ *
+ * Producers claim a sequence, build the message in the slot and publish it;
+ * a single daemon thread encodes published entries and writes them to the output stream.
+ * When the ring is full, producers spin until the writer frees a slot, so no record is lost.
+ * {@link #close()} writes what was logged before it and stops the thread; nothing may be logged after it.
+ */
+public class LogWriter implements Runnable, AutoCloseable {
+
+    private static final int DEFAULT_CAPACITY = 8192;
+    private static final int ENTRY_CAPACITY = 256;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private static volatile LogWriter defaultWriter;
+
+    private final LogEntry[] entries;
+    private final int mask;
+    private final AtomicLong claimSequence = new AtomicLong();
+    private final AtomicLong consumedSequence = new AtomicLong();
+    private final OutputStream out;
+    private final Thread thread;
+    private volatile boolean running = true;
+    private final StringBuilder line = new StringBuilder(ENTRY_CAPACITY * 2);
+    private byte[] bytes = new byte[ENTRY_CAPACITY * 2];
+
+    public LogWriter(final OutputStream out, final int capacity) {
+
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+
+        this.out = out;
+        this.entries = new LogEntry[capacity];
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            entries[i] = new LogEntry(this, ENTRY_CAPACITY);
+            entries[i].sequence = -1;
+        }
+
+        thread = new Thread(this, "log-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // process wide writer to stdout, closed on JVM shutdown
+    public static LogWriter getDefault() {
+
+        if (defaultWriter == null) {
+            synchronized (LogWriter.class) {
+                if (defaultWriter == null) {
+                    final LogWriter writer = new LogWriter(System.out, DEFAULT_CAPACITY);
+                    Runtime.getRuntime().addShutdownHook(new Thread(writer::close, "log-writer-shutdown"));
+                    defaultWriter = writer;
+                }
+            }
+        }
+        return defaultWriter;
+    }
+
+    LogEntry claim(final Level level, final long timestamp) {
+
+        final long sequence = claimSequence.getAndIncrement();
+        while (sequence - entries.length >= consumedSequence.get()) {
+            Thread.yield();
+        }
+
+        final LogEntry entry = entries[(int) (sequence & mask)];
+        entry.start(level, timestamp, sequence);
+        return entry;
+    }
+
+    void publish(final LogEntry entry) {
+        entry.sequence = entry.claimed;
+    }
+
+    // block until every entry claimed before this call has been written
+    public void flush() {
+
+        final long target = claimSequence.get();
+        while (consumedSequence.get() < target) {
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+    }
+
+    // flush, then stop and join the writer thread
+    @Override
+    public void close() {
+
+        if (!running) {
+            return;
+        }
+        flush();
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void run() {
+
+        long next = 0;
+        while (running) {
+
+            final LogEntry entry = entries[(int) (next & mask)];
+            if (entry.sequence != next) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+
+            write(entry);
+            next++;
+
+            // flush the stream once the batch is drained, before flush() callers are released
+            if (entries[(int) (next & mask)].sequence != next) {
+                flushStream();
+            }
+            consumedSequence.lazySet(next);
+        }
+        flushStream();
+    }
+
+    private void write(final LogEntry entry) {
+
+        line.setLength(0);
+        Formatter.appendInstant(line, entry.timestamp);
+        line.append(" : ");
+        if (entry.level != Level.DEBUG) {
+            line.append(entry.level.name()).append(' ');
+        }
+        line.append(entry.getMessage()).append('\n');
+
+        final int length = line.length();
+        if (bytes.length < length) {
+            bytes = new byte[length * 2];
+        }
+        for (int i = 0; i < length; i++) {
+            final char c = line.charAt(i);
+            bytes[i] = c < 0x80 ? (byte) c : (byte) '?';
+        }
+
+        try {
+            out.write(bytes, 0, length);
+        } catch (Exception e) {
+            // nothing sensible to do when the log stream itself fails
+        }
+    }
+
+    private void flushStream() {
+        try {
+            out.flush();
+        } catch (Exception e) {
+            // ignore, see write()
+        }
+    }
+}
@@ -1,18 +1,91 @@
 package util;
 
-import java.time.ZoneId;
-import java.time.format.DateTimeFormatter;
+import java.util.function.Supplier;
 
+/**
+ * Level gated logger, records are written asynchronously by a {@link LogWriter}.
+ *
+ * Level is checked before anything is built, a logger created at {@link Level#OFF} can be enabled later with {@link #setLevel}. Use {@link #atDebug()} to build a message
+ * in place without intermediate strings, or the {@link Supplier} overloads for lazy messages.
+ */
 public class Logger {
 
     private final TimerService timerService;
+    private final LogWriter writer;
+    private volatile Level level;
 
     public Logger(TimerService timerService) {
+        this(timerService, Level.DEBUG);
+    }
+
+    public Logger(TimerService timerService, Level level) {
+        this(timerService, level, LogWriter.getDefault());
+    }
+
+    public Logger(TimerService timerService, Level level, LogWriter writer) {
         this.timerService = timerService;
+        this.level = level;
+        this.writer = writer;
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    public void setLevel(final Level level) {
+        this.level = level;
+    }
+
+    public boolean isEnabled(final Level threshold) {
+        return writer != null && threshold.isEnabled(level);
+    }
+
+    public boolean isDebugEnabled() {
+        return isEnabled(Level.DEBUG);
+    }
+
+    public LogEntry at(final Level threshold) {
+
+        if (!isEnabled(threshold)) {
+            return LogEntry.DISABLED;
+        }
+        return writer.claim(threshold, timerService.nowMillis());
+    }
+
+    public LogEntry atDebug() {
+        return at(Level.DEBUG);
+    }
+
+    public LogEntry atInfo() {
+        return at(Level.INFO);
+    }
+
+    public LogEntry atWarn() {
+        return at(Level.WARN);
     }
 
     public void debug(String log) {
+        at(Level.DEBUG).append(log).commit();
+    }
+
+    public void debug(Supplier<String> log) {
+        if (isDebugEnabled()) {
+            debug(log.get());
+        }
+    }
+
+    public void info(String log) {
+        at(Level.INFO).append(log).commit();
+    }
+
+    public void warn(String log) {
+        at(Level.WARN).append(log).commit();
+    }
 
-        System.out.println(Formatter.formatInstant(timerService.now()) +" : " + log);
+    // wait until every record logged so far has been written
+    public void flush() {
+        if (writer != null) {
+            writer.flush();
+        }
     }
 }
@@ -2,18 +2,46 @@ package util;
 
 public class MathUtil {
 
+    // fixed point increment used where no instrument tick size is known, holds any price quoted to four decimals exactly
+    public static final double FIXED_POINT_TICK = 0.0001;
+
     public static boolean isAggressive(final boolean isBuy, final double price1, final double price2) {
         return isBuy
                 ? Double.compare(price1, price2) > 0
                 : Double.compare(price2, price1) > 0;
     }
 
+    public static boolean isAggressive(final boolean isBuy, final long ticks1, final long ticks2) {
+        return isBuy ? ticks1 > ticks2 : ticks2 > ticks1;
+    }
+
+    public static boolean isAggressiveOrEqual(final boolean isBuy, final long ticks1, final long ticks2) {
+        return isBuy ? ticks1 >= ticks2 : ticks2 >= ticks1;
+    }
+
     public static boolean isAggressiveOrEqual(final boolean isBuy, final double price1, final double price2) {
         return isBuy
                 ? Double.compare(price1, price2) >= 0
                 : Double.compare(price2, price1) >= 0;
     }
 
+    // nearest whole number of ticks for a price
+    public static long toTicks(final double price, final double tickSize) {
+        return Math.round(price / tickSize);
+    }
+
+    // price of a tick count; divide by the integral ticks per unit where possible since 101 / 10.0 is exactly 10.1 where 101 * 0.1 is not
+    public static double toPrice(final long ticks, final double tickSize) {
+        return toPrice((double) ticks, tickSize);
+    }
+
+    // price of a fractional tick count, e.g. an average
+    public static double toPrice(final double ticks, final double tickSize) {
+        final double ticksPerUnit = 1.0 / tickSize;
+        final double rounded = Math.rint(ticksPerUnit);
+        return Math.abs(ticksPerUnit - rounded) < 1e-9 ? ticks / rounded : ticks * tickSize;
+    }
+
     public static double getRandomIntegerBetweenRange(double min, double max) {
         double x = (int) (Math.random() * ((max - min) + 1)) + min;
         return x;
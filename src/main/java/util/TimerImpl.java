@@ -4,8 +4,21 @@ import java.time.Instant;
 
 public class TimerImpl implements TimerService {
 
+    // epoch nanos are derived from System.nanoTime(), anchored to the wall clock once
+    private final long epochNanosOffset = System.currentTimeMillis() * 1_000_000L - System.nanoTime();
+
     @Override
     public Instant now() {
         return Instant.now();
     }
+
+    @Override
+    public long nowMillis() {
+        return System.currentTimeMillis();
+    }
+
+    @Override
+    public long nowNanos() {
+        return epochNanosOffset + System.nanoTime();
+    }
 }
@@ -5,4 +5,14 @@ import java.time.Instant;
 public interface TimerService {
 
     Instant now();
+
+    // current time without creating an Instant
+    default long nowMillis() {
+        return now().toEpochMilli();
+    }
+
+    // current time in epoch nanos, no better than millisecond precision unless the clock overrides it
+    default long nowNanos() {
+        return nowMillis() * 1_000_000L;
+    }
 }
@@ -0,0 +1,104 @@
+package volume;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Volume profile read from a cumulative bucket curve in a {@link ProfileStore}.
+ * Lookup is a bucket index plus linear interpolation between the bucket boundaries,
+ * rescaled so that the order window runs from 0 to 1.
+ */
+public class HistoricalProfile implements VolumeProfile {
+
+    private final ByteBuffer curves;
+    private final int curveOffset;
+    private final int bucketCount;
+    private final long bucketMillis;
+    private final long sessionOpenMillis;
+    private final long startMillis;
+    private final long endMillis;
+    private final double startVolume;
+    private final double windowVolume;
+
+    HistoricalProfile(final ByteBuffer curves,
+                      final int curveOffset,
+                      final int bucketCount,
+                      final long bucketMillis,
+                      final long sessionOpenMillis,
+                      final long startMillis,
+                      final long endMillis) {
+
+        this.curves = curves;
+        this.curveOffset = curveOffset;
+        this.bucketCount = bucketCount;
+        this.bucketMillis = bucketMillis;
+        this.sessionOpenMillis = sessionOpenMillis;
+        this.startMillis = startMillis;
+        this.endMillis = endMillis;
+        this.startVolume = getSessionVolume(startMillis);
+        this.windowVolume = getSessionVolume(endMillis) - startVolume;
+    }
+
+    @Override
+    public double getVolume(final Instant time) {
+        return getVolume(time.toEpochMilli());
+    }
+
+    @Override
+    public double getVolume(final long epochMillis) {
+
+        if (epochMillis <= startMillis) {
+            return 0.0;
+        }
+        if (epochMillis >= endMillis) {
+            return 1.0;
+        }
+        // no historical volume in the order window, fall back to linear
+        if (windowVolume <= 0.0) {
+            return (double) (epochMillis - startMillis) / (endMillis - startMillis);
+        }
+        return (getSessionVolume(epochMillis) - startVolume) / windowVolume;
+    }
+
+    // same curve of the same store and same window, lets orders share a compiled schedule
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof HistoricalProfile)) {
+            return false;
+        }
+        final HistoricalProfile that = (HistoricalProfile) o;
+        return curves == that.curves
+                && curveOffset == that.curveOffset
+                && sessionOpenMillis == that.sessionOpenMillis
+                && startMillis == that.startMillis
+                && endMillis == that.endMillis;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(System.identityHashCode(curves), curveOffset, sessionOpenMillis, startMillis, endMillis);
+    }
+
+    // cumulative fraction of the session volume traded by epoch millis
+    private double getSessionVolume(final long epochMillis) {
+
+        final long elapsed = epochMillis - sessionOpenMillis;
+        if (elapsed <= 0) {
+            return 0.0;
+        }
+
+        final long bucket = elapsed / bucketMillis;
+        if (bucket >= bucketCount) {
+            return 1.0;
+        }
+
+        final int offset = curveOffset + (int) bucket * Float.BYTES;
+        final double from = curves.getFloat(offset);
+        final double to = curves.getFloat(offset + Float.BYTES);
+        return from + (to - from) * (elapsed - bucket * bucketMillis) / bucketMillis;
+    }
+}
@@ -4,24 +4,49 @@ import java.time.Instant;
 
 public class LinearProfile implements VolumeProfile{
 
-    private final Instant startTime;
-    private final Instant endTime;
+    private final long startMillis;
+    private final long endMillis;
+    private final double lengthMillis;
 
     public LinearProfile(Instant startTime, Instant endTime) {
-        this.startTime = startTime;
-        this.endTime = endTime;
+        this.startMillis = startTime.toEpochMilli();
+        this.endMillis = endTime.toEpochMilli();
+        this.lengthMillis = endMillis - startMillis;
     }
 
     @Override
     public double getVolume(final Instant time) {
+        return getVolume(time.toEpochMilli());
+    }
+
+    @Override
+    public double getVolume(final long epochMillis) {
 
-        if (!time.isAfter(startTime)) {
+        if (epochMillis <= startMillis) {
             return 0.0;
         }
 
-        if (!time.isBefore(endTime)) {
+        if (epochMillis >= endMillis) {
             return 1.0;
         }
-        return (double)(time.toEpochMilli() - startTime.toEpochMilli()) / (endTime.toEpochMilli() - startTime.toEpochMilli());
+        return (epochMillis - startMillis) / lengthMillis;
+    }
+
+    // equal profiles let orders share a compiled schedule
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof LinearProfile)) {
+            return false;
+        }
+        final LinearProfile that = (LinearProfile) o;
+        return startMillis == that.startMillis && endMillis == that.endMillis;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(startMillis) * 31 + Long.hashCode(endMillis);
     }
 }
@@ -0,0 +1,102 @@
+package volume;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Memory mapped store of historical intraday volume curves, one per symbol.
+ *
+ * Layout (big endian):
+ *   header  : int magic, int version, int symbol count, int bucket count, long bucket millis, long reserved
+ *   index   : per symbol, 12 byte ascii symbol (zero padded) and int curve number
+ *   curves  : per curve, bucket count + 1 floats of cumulative volume fraction at bucket boundaries,
+ *             starting at 0 on session open and ending at 1 on session close
+ *
+ * The file is mapped once and shared by every {@link HistoricalProfile} created from it.
+ * Use {@link ProfileStoreWriter} to build a file.
+ */
+public class ProfileStore implements Closeable {
+
+    public static final int MAGIC = 0x56505246; // "VPRF"
+    public static final int VERSION = 1;
+    public static final int HEADER_LENGTH = 32;
+    public static final int SYMBOL_LENGTH = 12;
+    public static final int INDEX_ENTRY_LENGTH = SYMBOL_LENGTH + 4;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final int bucketCount;
+    private final long bucketMillis;
+    private final int curvesOffset;
+    private final Map<String, Integer> curveBySymbol = new HashMap<>();
+
+    public ProfileStore(final Path path) throws IOException {
+
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            channel.close();
+            throw new IOException("Not a volume profile store: " + path);
+        }
+
+        final int symbolCount = buffer.getInt(8);
+        bucketCount = buffer.getInt(12);
+        bucketMillis = buffer.getLong(16);
+        curvesOffset = HEADER_LENGTH + symbolCount * INDEX_ENTRY_LENGTH;
+
+        final byte[] symbol = new byte[SYMBOL_LENGTH];
+        for (int i = 0; i < symbolCount; i++) {
+            final int entry = HEADER_LENGTH + i * INDEX_ENTRY_LENGTH;
+            for (int j = 0; j < SYMBOL_LENGTH; j++) {
+                symbol[j] = buffer.get(entry + j);
+            }
+            int length = SYMBOL_LENGTH;
+            while (length > 0 && symbol[length - 1] == 0) {
+                length--;
+            }
+            curveBySymbol.put(new String(symbol, 0, length, StandardCharsets.US_ASCII), buffer.getInt(entry + SYMBOL_LENGTH));
+        }
+    }
+
+    public boolean contains(final String symbol) {
+        return curveBySymbol.containsKey(symbol);
+    }
+
+    public int getBucketCount() {
+        return bucketCount;
+    }
+
+    public long getBucketMillis() {
+        return bucketMillis;
+    }
+
+    // profile of the symbol rescaled to run from 0 at order start to 1 at order end
+    public VolumeProfile getProfile(final String symbol,
+                                    final Instant sessionOpen,
+                                    final Instant orderStart,
+                                    final Instant orderEnd) {
+
+        final Integer curve = curveBySymbol.get(symbol);
+        if (curve == null) {
+            throw new IllegalArgumentException("No volume profile for " + symbol);
+        }
+
+        final int curveOffset = curvesOffset + curve * (bucketCount + 1) * Float.BYTES;
+        return new HistoricalProfile(buffer, curveOffset, bucketCount, bucketMillis,
+                sessionOpen.toEpochMilli(), orderStart.toEpochMilli(), orderEnd.toEpochMilli());
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
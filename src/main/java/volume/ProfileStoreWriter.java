@@ -0,0 +1,65 @@
+package volume;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+import static volume.ProfileStore.*;
+
+/**
+ * Builds a {@link ProfileStore} file from per symbol bucket volumes.
+ */
+public class ProfileStoreWriter {
+
+    // volumes per symbol must all have the same number of buckets, each bucket covering bucket millis from session open
+    public static void write(final Path path, final long bucketMillis, final Map<String, double[]> bucketVolumes) throws IOException {
+
+        final int symbolCount = bucketVolumes.size();
+        final int bucketCount = bucketVolumes.isEmpty() ? 0 : bucketVolumes.values().iterator().next().length;
+        final int curveLength = (bucketCount + 1) * Float.BYTES;
+        final ByteBuffer buffer = ByteBuffer.allocate(HEADER_LENGTH + symbolCount * (INDEX_ENTRY_LENGTH + curveLength));
+
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(symbolCount).putInt(bucketCount).putLong(bucketMillis).putLong(0L);
+
+        int curve = 0;
+        for (String symbol : bucketVolumes.keySet()) {
+            final byte[] bytes = symbol.getBytes(StandardCharsets.US_ASCII);
+            if (bytes.length > SYMBOL_LENGTH) {
+                throw new IllegalArgumentException("Symbol longer than " + SYMBOL_LENGTH + " characters: " + symbol);
+            }
+            buffer.put(bytes).put(new byte[SYMBOL_LENGTH - bytes.length]).putInt(curve++);
+        }
+
+        for (Map.Entry<String, double[]> entry : bucketVolumes.entrySet()) {
+
+            final double[] volumes = entry.getValue();
+            if (volumes.length != bucketCount) {
+                throw new IllegalArgumentException("Expected " + bucketCount + " buckets for " + entry.getKey());
+            }
+
+            double total = 0.0;
+            for (double volume : volumes) {
+                total += volume;
+            }
+
+            double cumulative = 0.0;
+            buffer.putFloat(0.0f);
+            for (int i = 0; i < bucketCount; i++) {
+                cumulative += volumes[i];
+                buffer.putFloat(i == bucketCount - 1 || total <= 0.0 ? (float) ((i + 1.0) / bucketCount) : (float) (cumulative / total));
+            }
+        }
+
+        buffer.flip();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+}
@@ -5,4 +5,9 @@ import java.time.Instant;
 public interface VolumeProfile {
 
     double getVolume(final Instant time);
+
+    // cumulative volume fraction at epoch millis, implementations override to avoid the Instant
+    default double getVolume(final long epochMillis) {
+        return getVolume(Instant.ofEpochMilli(epochMillis));
+    }
 }
@@ -0,0 +1,46 @@
+package volume;
+
+import util.MathUtil;
+
+/**
+ * Consistent view of traded volume, notional and trade count, filled in by {@link VolumeTracker}.
+ * Mutable so a reader can reuse one instance per thread and read without allocation.
+ */
+public class VolumeSnapshot {
+
+    private long volume;
+    private long notional;
+    private long tradeCount;
+    private double tickSize = MathUtil.FIXED_POINT_TICK;
+
+    public long getVolume() {
+        return volume;
+    }
+
+    // notional in shares * price ticks
+    public long getNotional() {
+        return notional;
+    }
+
+    public long getTradeCount() {
+        return tradeCount;
+    }
+
+    // 0 when nothing traded
+    public double getVwap() {
+        return volume > 0 ? MathUtil.toPrice((double) notional / volume, tickSize) : 0.0;
+    }
+
+    void clear(final double tickSize) {
+        this.tickSize = tickSize;
+        volume = 0L;
+        notional = 0L;
+        tradeCount = 0L;
+    }
+
+    void add(final long volume, final long notional, final long tradeCount) {
+        this.volume += volume;
+        this.notional += notional;
+        this.tradeCount += tradeCount;
+    }
+}
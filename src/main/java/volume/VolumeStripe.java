@@ -0,0 +1,140 @@
+package volume;
+
+import util.LatencyHistogram;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Volume totals and rolling windows updated by one publishing thread at a time.
+ * Readers take an optimistic stamp and only fall back to the read lock when a write raced with them,
+ * so a price is never paired with the volume of another print.
+ */
+final class VolumeStripe {
+
+    private final StampedLock lock = new StampedLock();
+    private final VolumeWindow[] windows;
+    // written under the write lock, so it keeps a single writer when publishers share the stripe
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private long volume;
+    private long notional;
+    private long tradeCount;
+
+    VolumeStripe(final long[] windowMillis, final int bucketsPerWindow) {
+        windows = new VolumeWindow[windowMillis.length];
+        for (int i = 0; i < windowMillis.length; i++) {
+            windows[i] = new VolumeWindow(windowMillis[i], bucketsPerWindow);
+        }
+    }
+
+    // startNanos is when the publisher took the print
+    void add(final long nowMillis, final long size, final long tradeNotional, final long startNanos) {
+
+        final long stamp = lock.writeLock();
+        try {
+            volume += size;
+            notional += tradeNotional;
+            tradeCount++;
+            for (VolumeWindow window : windows) {
+                window.add(nowMillis, size, tradeNotional);
+            }
+            latency.record(System.nanoTime() - startNanos);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // replace totals, windows start empty
+    void setTotals(final long newVolume, final long newNotional, final long newTradeCount) {
+
+        final long stamp = lock.writeLock();
+        try {
+            volume = newVolume;
+            notional = newNotional;
+            tradeCount = newTradeCount;
+            for (VolumeWindow window : windows) {
+                window.clear();
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // add to one window only, the totals are restored separately
+    void addToWindow(final int index, final long timeMillis, final long size, final long tradeNotional) {
+
+        final long stamp = lock.writeLock();
+        try {
+            windows[index].add(timeMillis, size, tradeNotional);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    void writeWindow(final int index, final ByteBuffer buffer) {
+
+        final long stamp = lock.readLock();
+        try {
+            windows[index].writeCheckpoint(buffer);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    void readLatency(final LatencyHistogram into) {
+        into.add(latency);
+    }
+
+    void readTotals(final VolumeSnapshot into) {
+
+        long stamp = lock.tryOptimisticRead();
+        long readVolume = volume;
+        long readNotional = notional;
+        long readCount = tradeCount;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                readVolume = volume;
+                readNotional = notional;
+                readCount = tradeCount;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        into.add(readVolume, readNotional, readCount);
+    }
+
+    void readWindow(final int index, final long nowMillis, final VolumeSnapshot into) {
+
+        final VolumeWindow window = windows[index];
+        long stamp = lock.tryOptimisticRead();
+        long readVolume = window.getVolume(nowMillis);
+        long readNotional = window.getNotional(nowMillis);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                readVolume = window.getVolume(nowMillis);
+                readNotional = window.getNotional(nowMillis);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        into.add(readVolume, readNotional, 0L);
+    }
+
+    long readWindowVolume(final int index, final long nowMillis) {
+
+        final VolumeWindow window = windows[index];
+        long stamp = lock.tryOptimisticRead();
+        long readVolume = window.getVolume(nowMillis);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                readVolume = window.getVolume(nowMillis);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return readVolume;
+    }
+}
@@ -1,25 +1,208 @@
 package volume;
 
+import util.LatencyHistogram;
+import util.MathUtil;
+import util.TimerImpl;
+import util.TimerService;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Market volume of one symbol: the cumulative VWAP used as benchmark, and rolling volume windows
+ * (1 and 5 minutes by default) used to enforce participation limits.
+ * Each print updates every window in O(1) amortised time without allocation.
+ *
+ * Prints are published from market data threads and read from algo threads. Readers get a consistent
+ * volume and notional pair without blocking the publisher, see {@link VolumeStripe}. By default one thread
+ * publishes; use {@link #striped} when several feed handlers publish for the same symbol, each thread then
+ * writes its own stripe and readers sum the stripes.
+ */
 public class VolumeTracker implements BenchmarkPrice, TradeEventNotifier {
 
-    private double intervalVolume;
-    private double benchmarkPrice;
+    public static final long ONE_MINUTE = 60_000L;
+    public static final long FIVE_MINUTES = 5 * ONE_MINUTE;
+    private static final long[] DEFAULT_WINDOWS = {ONE_MINUTE, FIVE_MINUTES};
+    private static final int BUCKETS_PER_WINDOW = 60;
+
+    private final TimerService timerService;
+    private final double tickSize;
+    private final long[] windowMillis;
+    private final VolumeStripe[] stripes;
+    private final ThreadLocal<VolumeSnapshot> scratch = ThreadLocal.withInitial(VolumeSnapshot::new);
+    private volatile TradeEventNotifier[] listeners = new TradeEventNotifier[0];
+
+    public VolumeTracker() {
+        this(new TimerImpl());
+    }
+
+    public VolumeTracker(final TimerService timerService) {
+        this(timerService, MathUtil.FIXED_POINT_TICK, 1, DEFAULT_WINDOWS);
+    }
 
-    public VolumeTracker() {}
+    public VolumeTracker(final TimerService timerService, final double tickSize, final int stripeCount, final long[] windowMillis) {
+        this.timerService = timerService;
+        this.tickSize = tickSize;
+        this.windowMillis = windowMillis.clone();
+        this.stripes = new VolumeStripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new VolumeStripe(windowMillis, BUCKETS_PER_WINDOW);
+        }
+    }
+
+    // tracker for several publishing threads, stripes should be at least the number of feed handlers
+    public static VolumeTracker striped(final TimerService timerService, final int stripeCount) {
+        return new VolumeTracker(timerService, MathUtil.FIXED_POINT_TICK, stripeCount, DEFAULT_WINDOWS);
+    }
+
+    // listeners are called after the benchmark is updated, on the thread publishing the trade
+    public synchronized void addListener(final TradeEventNotifier listener) {
+        final TradeEventNotifier[] updated = Arrays.copyOf(listeners, listeners.length + 1);
+        updated[listeners.length] = listener;
+        listeners = updated;
+    }
 
     // return VSOT price for benchmark use
     @Override
     public double getBenchmarkPrice() {
-        return benchmarkPrice;
+        final VolumeSnapshot snapshot = scratch.get();
+        getSnapshot(snapshot);
+        return snapshot.getVwap();
+    }
+
+    // price tick of the notional totals
+    public double getTickSize() {
+        return tickSize;
+    }
+
+    // volume since the tracker started, see getRecentVolume for a window
+    public long getCumulativeVolume() {
+        final VolumeSnapshot snapshot = scratch.get();
+        getSnapshot(snapshot);
+        return snapshot.getVolume();
+    }
+
+    // consistent cumulative volume, notional and trade count
+    public void getSnapshot(final VolumeSnapshot into) {
+        into.clear(tickSize);
+        for (VolumeStripe stripe : stripes) {
+            stripe.readTotals(into);
+        }
+    }
+
+    // totals and rolling windows of every stripe, write once per symbol as the tracker is shared by its orders
+    public void writeCheckpoint(final ByteBuffer buffer) {
+        final VolumeSnapshot snapshot = scratch.get();
+        getSnapshot(snapshot);
+        buffer.putLong(snapshot.getVolume()).putLong(snapshot.getNotional()).putLong(snapshot.getTradeCount());
+        buffer.putInt(windowMillis.length).putInt(stripes.length);
+        for (int i = 0; i < windowMillis.length; i++) {
+            buffer.putLong(windowMillis[i]);
+            for (VolumeStripe stripe : stripes) {
+                stripe.writeWindow(i, buffer);
+            }
+        }
+    }
+
+    // restore into a tracker no feed publishes to yet, the buckets of every stripe are merged into the first
+    // stripe and windows this tracker does not have are skipped; the windows age from the current time on
+    public void readCheckpoint(final ByteBuffer buffer) {
+        final long volume = buffer.getLong();
+        final long notional = buffer.getLong();
+        final long tradeCount = buffer.getLong();
+        stripes[0].setTotals(volume, notional, tradeCount);
+        for (int i = 1; i < stripes.length; i++) {
+            stripes[i].setTotals(0L, 0L, 0L);
+        }
+
+        final int windowCount = buffer.getInt();
+        final int stripeCount = buffer.getInt();
+        for (int i = 0; i < windowCount; i++) {
+            final int index = findWindowIndex(buffer.getLong());
+            for (int s = 0; s < stripeCount; s++) {
+                final int buckets = buffer.getInt();
+                for (int b = 0; b < buckets; b++) {
+                    final long timeMillis = buffer.getLong();
+                    final long shares = buffer.getLong();
+                    final long bucketNotional = buffer.getLong();
+                    if (index >= 0) {
+                        stripes[0].addToWindow(index, timeMillis, shares, bucketNotional);
+                    }
+                }
+            }
+        }
+    }
+
+    // volume and notional over the last windowMillis, the window must be one the tracker was created with
+    public void getRecentSnapshot(final long windowMillis, final VolumeSnapshot into) {
+        final int index = getWindowIndex(windowMillis);
+        final long nowMillis = timerService.nowMillis();
+        into.clear(tickSize);
+        for (VolumeStripe stripe : stripes) {
+            stripe.readWindow(index, nowMillis, into);
+        }
+    }
+
+    public long getRecentVolume(final long windowMillis) {
+        final int index = getWindowIndex(windowMillis);
+        final long nowMillis = timerService.nowMillis();
+        long volume = 0L;
+        for (VolumeStripe stripe : stripes) {
+            volume += stripe.readWindowVolume(index, nowMillis);
+        }
+        return volume;
+    }
+
+    // VWAP over the last windowMillis, 0 when nothing traded
+    public double getRecentVwap(final long windowMillis) {
+        final VolumeSnapshot snapshot = scratch.get();
+        getRecentSnapshot(windowMillis, snapshot);
+        return snapshot.getVwap();
+    }
+
+    // time spent updating totals and windows per print, merged from the histogram of each stripe
+    public LatencyHistogram getTradeLatency() {
+        final LatencyHistogram merged = new LatencyHistogram();
+        for (VolumeStripe stripe : stripes) {
+            stripe.readLatency(merged);
+        }
+        return merged;
     }
 
     @Override
     public void onTradeEvent(TradeEvent trade) {
 
-        // update benchmark price
-        benchmarkPrice = ( benchmarkPrice * intervalVolume + trade.getTradePrice() * trade.getTradeSize() )  /
-                (intervalVolume + trade.getTradeSize());
+        final long startNanos = System.nanoTime();
+        final long size = Math.round(trade.getTradeSize());
+        if (size > 0) {
+            // update benchmark price
+            final long notional = size * MathUtil.toTicks(trade.getTradePrice(), tickSize);
+            getStripe().add(timerService.nowMillis(), size, notional, startNanos);
+        }
+
+        for (TradeEventNotifier listener : listeners) {
+            listener.onTradeEvent(trade);
+        }
+    }
+
+    private VolumeStripe getStripe() {
+        return stripes.length == 1 ? stripes[0] : stripes[(int) (Thread.currentThread().getId() % stripes.length)];
+    }
+
+    private int getWindowIndex(final long windowMillis) {
+        final int index = findWindowIndex(windowMillis);
+        if (index < 0) {
+            throw new IllegalArgumentException("No " + windowMillis + "ms volume window");
+        }
+        return index;
+    }
 
-        intervalVolume += trade.getTradeSize();
+    private int findWindowIndex(final long windowMillis) {
+        for (int i = 0; i < this.windowMillis.length; i++) {
+            if (this.windowMillis[i] == windowMillis) {
+                return i;
+            }
+        }
+        return -1;
     }
 }
@@ -0,0 +1,144 @@
+package volume;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Rolling window of traded volume and notional kept in a ring of fixed length time buckets.
+ *
+ * Adding a print is O(1) amortised: buckets that fall out of the window are cleared as time advances.
+ * Reads compute the window as of any time from the running totals and do not modify the ring.
+ * Single writer, the notional is in shares * price ticks.
+ */
+public class VolumeWindow {
+
+    private final long windowMillis;
+    private final long bucketMillis;
+    private final int bucketCount;
+    private final long[] volumes;
+    private final long[] notionals;
+    private long volume;
+    private long notional;
+    // newest bucket number (time / bucketMillis) held in the ring
+    private long headBucket = Long.MIN_VALUE;
+
+    public VolumeWindow(final long windowMillis, final int bucketCount) {
+
+        if (windowMillis % bucketCount != 0) {
+            throw new IllegalArgumentException("Window " + windowMillis + "ms is not a multiple of " + bucketCount + " buckets");
+        }
+        this.windowMillis = windowMillis;
+        this.bucketMillis = windowMillis / bucketCount;
+        this.bucketCount = bucketCount;
+        this.volumes = new long[bucketCount];
+        this.notionals = new long[bucketCount];
+    }
+
+    public void add(final long timeMillis, final long shares, final long notionalTicks) {
+
+        final long bucket = timeMillis / bucketMillis;
+        advance(bucket);
+        if (bucket <= headBucket - bucketCount) {
+            // late print already out of the window
+            return;
+        }
+        final int slot = slot(bucket);
+        volumes[slot] += shares;
+        notionals[slot] += notionalTicks;
+        volume += shares;
+        notional += notionalTicks;
+    }
+
+    // volume traded in the window ending at the given time
+    public long getVolume(final long nowMillis) {
+        return volume - stale(volumes, nowMillis);
+    }
+
+    public long getNotional(final long nowMillis) {
+        return notional - stale(notionals, nowMillis);
+    }
+
+    public long getWindowMillis() {
+        return windowMillis;
+    }
+
+    // non empty buckets of the ring as (bucket start time, volume, notional), oldest first
+    public void writeCheckpoint(final ByteBuffer buffer) {
+
+        int buckets = 0;
+        if (headBucket != Long.MIN_VALUE) {
+            for (long b = headBucket - bucketCount + 1; b <= headBucket; b++) {
+                if (volumes[slot(b)] != 0L) {
+                    buckets++;
+                }
+            }
+        }
+        buffer.putInt(buckets);
+        for (long b = headBucket - bucketCount + 1; buckets > 0 && b <= headBucket; b++) {
+            final int slot = slot(b);
+            if (volumes[slot] != 0L) {
+                buffer.putLong(b * bucketMillis).putLong(volumes[slot]).putLong(notionals[slot]);
+            }
+        }
+    }
+
+    // replace the content with the buckets of writeCheckpoint
+    public void readCheckpoint(final ByteBuffer buffer) {
+        clear();
+        final int buckets = buffer.getInt();
+        for (int i = 0; i < buckets; i++) {
+            add(buffer.getLong(), buffer.getLong(), buffer.getLong());
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(volumes, 0L);
+        Arrays.fill(notionals, 0L);
+        volume = 0L;
+        notional = 0L;
+        headBucket = Long.MIN_VALUE;
+    }
+
+    private void advance(final long bucket) {
+
+        if (headBucket == Long.MIN_VALUE) {
+            headBucket = bucket;
+            return;
+        }
+        if (bucket <= headBucket) {
+            return;
+        }
+
+        // clear at most one full turn of the ring
+        final long steps = Math.min(bucket - headBucket, bucketCount);
+        for (long b = bucket - steps + 1; b <= bucket; b++) {
+            final int slot = slot(b);
+            volume -= volumes[slot];
+            notional -= notionals[slot];
+            volumes[slot] = 0L;
+            notionals[slot] = 0L;
+        }
+        headBucket = bucket;
+    }
+
+    // sum of buckets that are still in the ring but out of the window ending at now
+    private long stale(final long[] values, final long nowMillis) {
+
+        final long bucket = nowMillis / bucketMillis;
+        if (headBucket == Long.MIN_VALUE || bucket <= headBucket) {
+            return 0L;
+        }
+
+        final long steps = Math.min(bucket - headBucket, bucketCount);
+        final long oldest = headBucket - bucketCount + 1;
+        long sum = 0L;
+        for (long b = oldest; b < oldest + steps; b++) {
+            sum += values[slot(b)];
+        }
+        return sum;
+    }
+
+    private int slot(final long bucket) {
+        return (int) Math.floorMod(bucket, (long) bucketCount);
+    }
+}
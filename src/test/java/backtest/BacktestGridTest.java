@@ -0,0 +1,44 @@
+package backtest;
+
+import model.VwapConfig;
+import order.Urgency;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class BacktestGridTest {
+
+    @Test
+    public void testCartesianExpansionWithDefaults() {
+
+        final List<VwapConfig> defaults = new BacktestGrid().getConfigs();
+        assertEquals(1, defaults.size());
+        assertEquals(VwapConfig.DEFAULT, defaults.get(0));
+        assertEquals(Arrays.asList(Urgency.HIGH), new BacktestGrid().getUrgencies());
+
+        final BacktestGrid grid = new BacktestGrid()
+                .intervalLengths(Duration.ofMinutes(30), Duration.ofMinutes(60))
+                .lowerCurveDelays(Duration.ofMinutes(5), Duration.ofMinutes(10), Duration.ofMinutes(15))
+                .crossingDivisors(6, 3, 2)
+                .crossingDivisors(4, 2, 1)
+                .urgencies(Urgency.LOW, Urgency.MEDIUM);
+
+        // 2 lengths x 3 delays x 1 default ahead x 2 divisor sets, in nesting order
+        final List<VwapConfig> configs = grid.getConfigs();
+        assertEquals(12, configs.size());
+        assertEquals(Duration.ofMinutes(30), configs.get(0).getIntervalLength());
+        assertEquals(Duration.ofMinutes(5), configs.get(0).getLowerCurveDelay());
+        assertEquals(VwapConfig.DEFAULT.getUpperCurveAhead(), configs.get(0).getUpperCurveAhead());
+        assertEquals(6, configs.get(0).getCrossingDivisor(Urgency.LOW));
+        assertEquals(4, configs.get(1).getCrossingDivisor(Urgency.LOW));
+        assertEquals(1, configs.get(1).getCrossingDivisor(Urgency.HIGH));
+        assertEquals(Duration.ofMinutes(10), configs.get(2).getLowerCurveDelay());
+        assertEquals(Duration.ofMinutes(60), configs.get(11).getIntervalLength());
+        assertEquals(Duration.ofMinutes(15), configs.get(11).getLowerCurveDelay());
+        assertEquals(Arrays.asList(Urgency.LOW, Urgency.MEDIUM), grid.getUrgencies());
+    }
+}
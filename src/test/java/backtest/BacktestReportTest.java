@@ -0,0 +1,57 @@
+package backtest;
+
+import model.VwapConfig;
+import order.Urgency;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class BacktestReportTest {
+
+    private final VwapConfig slow = new VwapConfig(Duration.ofMinutes(60), Duration.ofMinutes(10),
+            Duration.ofMinutes(5), 6, 3, 2);
+    private final VwapConfig fast = new VwapConfig(Duration.ofMinutes(30), Duration.ofMinutes(10),
+            Duration.ofMinutes(5), 6, 3, 2);
+
+    @Test
+    public void testAggregatesPerSetting() {
+
+        final BacktestReport report = new BacktestReport(Arrays.asList(
+                result("a", slow, 1000, 2.0, 4),
+                result("b", slow, 1000, 4.0, 6),
+                result("a", fast, 1000, -1.0, 10),
+                result("b", fast, 500, -3.0, 20)));
+
+        assertEquals(4, report.getResults().size());
+        assertEquals(2, report.getRows().size());
+
+        final BacktestReport.Row slowRow = report.getRows().get(0);
+        assertSame(slow, slowRow.getConfig());
+        assertEquals(Urgency.HIGH, slowRow.getUrgency());
+        assertEquals(2, slowRow.getRuns());
+        assertEquals(1.0, slowRow.getMeanFillRate(), 1e-12);
+        assertEquals(3.0, slowRow.getMeanSlippageBps(), 1e-12);
+        assertEquals(1.0, slowRow.getSlippageStdDevBps(), 1e-12);
+        assertEquals(4.0, slowRow.getWorstSlippageBps(), 1e-12);
+        assertEquals(5.0, slowRow.getMeanSliceCount(), 1e-12);
+
+        // the fast setting costs less but did not fill every scenario
+        final BacktestReport.Row fastRow = report.getRows().get(1);
+        assertEquals(0.75, fastRow.getMeanFillRate(), 1e-12);
+        assertEquals(-2.0, fastRow.getMeanSlippageBps(), 1e-12);
+        assertEquals(-1.0, fastRow.getWorstSlippageBps(), 1e-12);
+        assertSame(slowRow, report.getBestRow());
+
+        assertNull(new BacktestReport(Arrays.asList(result("a", fast, 500, 0.0, 1))).getBestRow());
+    }
+
+    private static BacktestResult result(final String scenario, final VwapConfig config, final double filled,
+                                         final double slippageBps, final long slices) {
+        return new BacktestResult(scenario, config, Urgency.HIGH, 1000, filled, 10.0, 10.0, slippageBps, slices, 1);
+    }
+}
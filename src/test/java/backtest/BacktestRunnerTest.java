@@ -0,0 +1,69 @@
+package backtest;
+
+import model.VwapConfig;
+import order.Urgency;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BacktestRunnerTest {
+
+    @Test
+    public void testParallelRunsMatchSerialRuns() {
+
+        final List<BacktestScenario> scenarios = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            scenarios.add(scenario("s" + i, i % 2 == 0, 10.0 + i));
+        }
+        final BacktestGrid grid = new BacktestGrid()
+                .intervalLengths(Duration.ofMinutes(30), Duration.ofMinutes(60))
+                .urgencies(Urgency.LOW, Urgency.HIGH);
+
+        final BacktestRunner runner = new BacktestRunner(4);
+        final BacktestReport report;
+        try {
+            report = runner.run(grid, scenarios);
+        } finally {
+            runner.shutdown();
+        }
+
+        // runs share nothing, so each parallel result equals the same run on its own
+        assertEquals(16, report.getResults().size());
+        int index = 0;
+        for (VwapConfig config : grid.getConfigs()) {
+            for (Urgency urgency : grid.getUrgencies()) {
+                for (BacktestScenario scenario : scenarios) {
+                    final BacktestResult parallel = report.getResults().get(index++);
+                    final BacktestResult serial = BacktestRunner.runOne(scenario, config, urgency);
+                    assertEquals(scenario.getName(), parallel.getScenario());
+                    assertEquals(serial.getFilledQuantity(), parallel.getFilledQuantity(), 0.0);
+                    assertEquals(serial.getAvgFilledPrice(), parallel.getAvgFilledPrice(), 0.0);
+                    assertEquals(serial.getSlippageBps(), parallel.getSlippageBps(), 0.0);
+                    assertEquals(serial.getSliceCount(), parallel.getSliceCount());
+                    assertEquals(serial.getAlgoRunCount(), parallel.getAlgoRunCount());
+                    assertTrue(parallel.getFilledQuantity() > 0);
+                }
+            }
+        }
+        assertEquals(4, report.getRows().size());
+    }
+
+    private static BacktestScenario scenario(final String name, final boolean isBuy, final double bid) {
+
+        final Instant start = Instant.ofEpochMilli(9 * 3_600_000L);
+        final Instant end = Instant.ofEpochMilli(12 * 3_600_000L);
+        final BacktestScenario scenario = new BacktestScenario(name, start, end, 10_000, isBuy ? bid + 1 : bid - 1,
+                isBuy, bid, bid + 0.1);
+        scenario.addMarketMove(Duration.ofMinutes(20), bid - 0.1, bid);
+        for (int minute = 5; minute < 180; minute += 5) {
+            scenario.addMarketTrade(Duration.ofMinutes(minute), isBuy ? bid - 0.1 : bid, 400);
+        }
+        return scenario;
+    }
+}
@@ -0,0 +1,185 @@
+package checkpoint;
+
+import market.OrderBook;
+import model.Vwap;
+import model.VwapConfig;
+import order.Order;
+import order.Parameter;
+import order.Urgency;
+import org.junit.Test;
+import outbound.VenueThrottle;
+import slice.Slice;
+import slice.SliceManager;
+import util.Level;
+import util.Logger;
+import util.TimerService;
+import volume.LinearProfile;
+import volume.TradeEvent;
+import volume.VolumeTracker;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+public class CheckpointStoreTest {
+
+    private static final Instant START = Instant.parse("2020-01-02T01:30:00Z");
+    private static final Instant END = START.plusSeconds(7 * 3600);
+
+    private Instant now = START.plusSeconds(60);
+    private final TimerService timer = () -> now;
+    private final Logger logger = new Logger(timer, Level.OFF);
+    private final OrderBook orderBook = new OrderBook(10.0, 10.1);
+
+    @Test
+    public void testRestoreRebuildsSlicesAndTotals() throws IOException {
+
+        final Order order = new Order(42L, START, END, 100000.0, 10.0, true);
+        final SliceManager sliceManager = new SliceManager(logger);
+        final VolumeTracker volumeTracker = new VolumeTracker(timer);
+        final Vwap vwap = newVwap(order, sliceManager, volumeTracker);
+
+        vwap.run();
+        final Slice slice = sliceManager.getOpenSlice(0);
+        sliceManager.fill(slice, 1000.0, 10.0);
+        sliceManager.onSliceAck(slice.getSliceId());
+        volumeTracker.onTradeEvent(trade(10.0, 5000.0));
+
+        final Path file = Files.createTempFile("checkpoint", ".bin");
+        try {
+            final CheckpointStore store = new CheckpointStore(file, 1000L, logger);
+            store.register(vwap);
+            store.register("XYZ", volumeTracker);
+            vwap.run();
+            assertEquals(1, store.write());
+
+            // restart: same order rebuilt from scratch and restored
+            final SliceManager restoredSlices = new SliceManager(logger);
+            final VolumeTracker restoredVolume = new VolumeTracker(timer);
+            final Vwap restored = newVwap(new Order(42L, START, END, 100000.0, 10.0, true), restoredSlices, restoredVolume);
+            assertEquals(1, CheckpointStore.restore(file, Collections.singletonList(restored),
+                    Collections.singletonMap("XYZ", restoredVolume), Collections.emptyList()));
+
+            final Slice restoredSlice = restoredSlices.getSlice(slice.getSliceId());
+            assertEquals(slice.getSliceRef(), restoredSlice.getSliceRef());
+            assertEquals(slice.getOpenQuantity(), restoredSlice.getOpenQuantity(), 0.0);
+            assertEquals(slice.isAcked(), restoredSlice.isAcked());
+            assertEquals(sliceManager.getFilledShares(), restoredSlices.getFilledShares());
+            assertEquals(sliceManager.getOpenShares(), restoredSlices.getOpenShares());
+            assertEquals(sliceManager.getSliceCount(), restoredSlices.getSliceCount());
+            assertEquals(10.0, restoredVolume.getBenchmarkPrice(), 0.0);
+            assertEquals(5000L, restoredVolume.getRecentVolume(VolumeTracker.FIVE_MINUTES));
+            assertEquals(vwap.getNextDeadlineMillis(now.toEpochMilli()), restored.getNextDeadlineMillis(now.toEpochMilli()));
+
+            // the restored order carries on with the same interval instead of layering again
+            restored.run();
+            assertEquals(sliceManager.getSliceCount(), restoredSlices.getSliceCount());
+            restoredSlices.entry(100.0, 10.0, "Slice");
+            assertEquals(sliceManager.getSliceCount() + 1, restoredSlices.getSliceCount());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testRestoreTwoOrdersSharingTracker() throws IOException {
+
+        final VolumeTracker volumeTracker = new VolumeTracker(timer);
+        final VenueThrottle throttle = new VenueThrottle("XNAS", 10, 5);
+        final SliceManager firstSlices = new SliceManager(logger);
+        final SliceManager secondSlices = new SliceManager(logger);
+        final Vwap first = newVwap(new Order(42L, START, END, 100000.0, 10.0, true), firstSlices, volumeTracker, throttle);
+        final Vwap second = newVwap(new Order(43L, START, END, 50000.0, 10.0, true), secondSlices, volumeTracker, throttle);
+
+        volumeTracker.onTradeEvent(trade(10.0, 5000.0));
+        first.run();
+        second.run();
+        firstSlices.fill(firstSlices.getOpenSlice(0), 1000.0, 10.0);
+        secondSlices.fill(secondSlices.getOpenSlice(0), 400.0, 10.0);
+        now = now.plusSeconds(120);
+        volumeTracker.onTradeEvent(trade(10.2, 1000.0));
+
+        final Path file = Files.createTempFile("checkpoint", ".bin");
+        try {
+            final CheckpointStore store = new CheckpointStore(file, 1000L, logger);
+            store.register(first);
+            store.register(second);
+            store.register("XYZ", volumeTracker);
+            store.register(throttle);
+            first.run();
+            second.run();
+            assertEquals(2, store.write());
+
+            final VolumeTracker restoredVolume = new VolumeTracker(timer);
+            final VenueThrottle restoredThrottle = new VenueThrottle("XNAS", 10, 5);
+            final SliceManager restoredFirstSlices = new SliceManager(logger);
+            final SliceManager restoredSecondSlices = new SliceManager(logger);
+            final Vwap restoredFirst = newVwap(new Order(42L, START, END, 100000.0, 10.0, true),
+                    restoredFirstSlices, restoredVolume, restoredThrottle);
+            final Vwap restoredSecond = newVwap(new Order(43L, START, END, 50000.0, 10.0, true),
+                    restoredSecondSlices, restoredVolume, restoredThrottle);
+            assertEquals(2, CheckpointStore.restore(file, Arrays.asList(restoredFirst, restoredSecond),
+                    Collections.singletonMap("XYZ", restoredVolume), Collections.singletonList(restoredThrottle)));
+
+            // the tracker is restored once, not once per order, windows included
+            assertEquals(volumeTracker.getCumulativeVolume(), restoredVolume.getCumulativeVolume());
+            assertEquals(volumeTracker.getBenchmarkPrice(), restoredVolume.getBenchmarkPrice(), 0.0);
+            assertEquals(6000L, restoredVolume.getRecentVolume(VolumeTracker.FIVE_MINUTES));
+            assertEquals(1000L, restoredVolume.getRecentVolume(VolumeTracker.ONE_MINUTE));
+            assertEquals(1000L, restoredFirstSlices.getFilledShares());
+            assertEquals(400L, restoredSecondSlices.getFilledShares());
+            assertEquals(1000L, restoredFirst.getTransactionCost().getFilledShares());
+            assertEquals(400L, restoredSecond.getTransactionCost().getFilledShares());
+
+            // the venue budget spent before the restart still counts
+            final long nowMillis = now.toEpochMilli();
+            assertEquals(throttle.getNextPermitMillis(nowMillis), restoredThrottle.getNextPermitMillis(nowMillis));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private Vwap newVwap(final Order order, final SliceManager sliceManager, final VolumeTracker volumeTracker) {
+        return newVwap(order, sliceManager, volumeTracker, VenueThrottle.UNLIMITED);
+    }
+
+    private Vwap newVwap(final Order order, final SliceManager sliceManager, final VolumeTracker volumeTracker,
+                         final VenueThrottle throttle) {
+        return new Vwap(new LinearProfile(START, END), order, timer, volumeTracker, sliceManager, orderBook,
+                new Parameter() {
+                    @Override
+                    public boolean getDone() {
+                        return true;
+                    }
+
+                    @Override
+                    public Urgency getUrgency() {
+                        return Urgency.MEDIUM;
+                    }
+
+                    @Override
+                    public double getMaxPct() {
+                        return 100.0;
+                    }
+                }, logger, VwapConfig.DEFAULT, throttle);
+    }
+
+    private static TradeEvent trade(final double price, final double size) {
+        return new TradeEvent() {
+            @Override
+            public double getTradePrice() {
+                return price;
+            }
+
+            @Override
+            public double getTradeSize() {
+                return size;
+            }
+        };
+    }
+}
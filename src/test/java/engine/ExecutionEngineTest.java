@@ -0,0 +1,153 @@
+package engine;
+
+import market.OrderBook;
+import model.Vwap;
+import order.Order;
+import order.Parameter;
+import order.Urgency;
+import org.junit.Test;
+import slice.SliceManager;
+import util.Level;
+import util.Logger;
+import util.CoarseTimer;
+import util.TimerService;
+import volume.LinearProfile;
+import volume.VolumeTracker;
+
+import java.time.Instant;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ExecutionEngineTest {
+
+    private static final long START_MILLIS = Instant.parse("2024-01-02T09:00:00Z").toEpochMilli();
+    private static final long END_MILLIS = Instant.parse("2024-01-02T16:00:00Z").toEpochMilli();
+    private static final long POLL_MILLIS = 1000;
+
+    private final long[] now = {START_MILLIS - 60_000};
+    private final TimerService timer = () -> Instant.ofEpochMilli(now[0]);
+    private final Logger logger = new Logger(timer, Level.OFF);
+
+    private final Parameter parameter = new Parameter() {
+        @Override
+        public boolean getDone() {
+            return false;
+        }
+
+        @Override
+        public Urgency getUrgency() {
+            return Urgency.HIGH;
+        }
+
+        @Override
+        public double getMaxPct() {
+            return 100.0;
+        }
+    };
+
+    @Test
+    public void testOrdersAreShardedByOrderId() {
+
+        final ExecutionEngine engine = new ExecutionEngine(3, timer, logger);
+        for (long orderId = 0; orderId < 7; orderId++) {
+            engine.register(createVwap(orderId));
+        }
+
+        assertEquals(3, engine.getLoop(0).getActiveCount());
+        assertEquals(2, engine.getLoop(1).getActiveCount());
+        assertEquals(2, engine.getLoop(2).getActiveCount());
+        assertEquals(7, engine.getActiveOrderCount());
+    }
+
+    @Test
+    public void testLiveEngineRunsOnACoarseTimer() throws InterruptedException {
+
+        final ExecutionEngine engine = new ExecutionEngine(1);
+        assertTrue(engine.getTimerService() instanceof CoarseTimer);
+        assertEquals(System.currentTimeMillis(), engine.getTimerService().nowMillis(), 1000.0);
+
+        engine.start();
+        engine.stop();
+    }
+
+    @Test
+    public void testDirtyOrderRunsBeforeItsPollInterval() {
+
+        final EventLoop loop = createLoop(ExecutionEngine.DEFAULT_OVERRUN_THRESHOLD_NANOS);
+        final Vwap vwap = createVwap(1L);
+        loop.register(vwap);
+
+        loop.tick(now[0]);
+        assertEquals(1, loop.getRunCount());
+
+        // rescheduled one poll interval ahead, nothing runs before that
+        now[0] += 10;
+        loop.tick(now[0]);
+        assertEquals(1, loop.getRunCount());
+
+        // the current tick has been expired already, the dirty order runs on the next one
+        vwap.markDirty();
+        vwap.markDirty();
+        now[0] += ExecutionEngine.DEFAULT_TICK_MILLIS;
+        loop.tick(now[0]);
+        assertEquals(2, loop.getRunCount());
+
+        // the dirty bit is cleared by the run
+        now[0] += 10;
+        loop.tick(now[0]);
+        assertEquals(2, loop.getRunCount());
+
+        now[0] += POLL_MILLIS;
+        loop.tick(now[0]);
+        assertEquals(3, loop.getRunCount());
+    }
+
+    @Test
+    public void testEveryRunOverTheThresholdIsCounted() {
+
+        final EventLoop loop = createLoop(0L);
+        loop.register(createVwap(1L));
+
+        for (int i = 0; i < 5; i++) {
+            loop.tick(now[0]);
+            now[0] += POLL_MILLIS;
+        }
+
+        assertEquals(5, loop.getRunCount());
+        assertEquals(5, loop.getOverrunCount());
+    }
+
+    @Test
+    public void testDoneOrderLeavesTheSchedule() {
+
+        final EventLoop loop = createLoop(ExecutionEngine.DEFAULT_OVERRUN_THRESHOLD_NANOS);
+        final Vwap vwap = createVwap(1L);
+        loop.register(vwap);
+        assertEquals(1, loop.getActiveCount());
+
+        now[0] = END_MILLIS + 1;
+        loop.tick(now[0]);
+        assertEquals(1, loop.getRunCount());
+        assertEquals(0, loop.getActiveCount());
+
+        // neither time nor a dirty mark runs a done order again
+        vwap.markDirty();
+        now[0] += 10 * POLL_MILLIS;
+        loop.tick(now[0]);
+        assertEquals(1, loop.getRunCount());
+    }
+
+    private EventLoop createLoop(final long overrunThresholdNanos) {
+        return new EventLoop(0, timer, logger, ExecutionEngine.DEFAULT_TICK_MILLIS, POLL_MILLIS,
+                overrunThresholdNanos, 64);
+    }
+
+    private Vwap createVwap(final long orderId) {
+
+        final Order order = new Order(orderId, Instant.ofEpochMilli(START_MILLIS), Instant.ofEpochMilli(END_MILLIS),
+                10000.0, 10.0, true);
+        return new Vwap(new LinearProfile(order.getStartTime(), order.getEndTime()), order, timer,
+                new VolumeTracker(timer), new SliceManager(logger), new OrderBook(10.0, 10.1), parameter, logger);
+    }
+}
@@ -0,0 +1,86 @@
+package engine;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class TimerWheelTest {
+
+    private final List<Long> fired = new ArrayList<>();
+
+    private class RecordingTimer extends TimerWheel.Timer {
+        @Override
+        protected void onExpiry(final long now) {
+            fired.add(getDeadline());
+        }
+    }
+
+    @Test
+    public void testTimersFireInDeadlineOrderAcrossLevels() {
+
+        final TimerWheel wheel = new TimerWheel(1, 16, 3, 0);
+        final long[] deadlines = {5, 17, 300, 4000, 16, 255, 256, 9000};
+        for (long deadline : deadlines) {
+            wheel.schedule(new RecordingTimer(), deadline);
+        }
+
+        for (long now = 0; now <= 10000; now += 7) {
+            wheel.advance(now);
+            for (Long deadline : fired) {
+                assertFalse("fired before deadline", deadline > now);
+            }
+        }
+
+        assertEquals(deadlines.length, fired.size());
+        for (int i = 1; i < fired.size(); i++) {
+            assertFalse(fired.get(i) < fired.get(i - 1));
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testCancelAndReschedule() {
+
+        final TimerWheel wheel = new TimerWheel(10, 16, 2, 1000);
+        final RecordingTimer cancelled = new RecordingTimer();
+        final RecordingTimer moved = new RecordingTimer();
+        wheel.schedule(cancelled, 1100);
+        wheel.schedule(moved, 1200);
+
+        wheel.cancel(cancelled);
+        wheel.schedule(moved, 1050);
+        assertEquals(1, wheel.size());
+
+        wheel.advance(1060);
+        assertEquals(1, fired.size());
+        assertEquals(1050L, (long) fired.get(0));
+
+        wheel.advance(2000);
+        assertEquals(1, fired.size());
+    }
+
+    @Test
+    public void testRescheduleFromExpiryWaitsForNextTick() {
+
+        final TimerWheel wheel = new TimerWheel(1, 16, 2, 0);
+        final TimerWheel.Timer periodic = new TimerWheel.Timer() {
+            @Override
+            protected void onExpiry(final long now) {
+                fired.add(now);
+                wheel.schedule(this, now);
+            }
+        };
+        wheel.schedule(periodic, 0);
+
+        wheel.advance(0);
+        assertEquals(1, fired.size());
+        wheel.advance(0);
+        assertEquals(1, fired.size());
+        wheel.advance(1);
+        assertEquals(2, fired.size());
+    }
+}
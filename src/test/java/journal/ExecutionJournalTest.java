@@ -0,0 +1,143 @@
+package journal;
+
+import market.OrderBookQuery;
+import org.junit.Test;
+import slice.SliceManager;
+import tca.FillLedger;
+import util.Level;
+import util.Logger;
+import util.TimerService;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class ExecutionJournalTest {
+
+    private final TimerService timer = () -> Instant.ofEpochMilli(1000L);
+
+    private final OrderBookQuery orderBook = new OrderBookQuery() {
+        @Override
+        public double getBid() {
+            return 10.0;
+        }
+
+        @Override
+        public double getAsk() {
+            return 10.1;
+        }
+    };
+
+    @Test
+    public void testSliceLifecycleRoundTrip() throws IOException {
+
+        final Path file = Files.createTempFile("journal", ".bin");
+        try {
+            // small segment so that appending crosses segment boundaries
+            try (ExecutionJournal journal = new ExecutionJournal(file, 4 * ExecutionJournal.RECORD_LENGTH)) {
+
+                final SliceManager sliceManager = new SliceManager(new Logger(timer, Level.OFF));
+                sliceManager.addListener(new OrderJournal(journal, 7L, timer, orderBook));
+
+                final long sliceId = sliceManager.entry(500.0, 10.0, "Slice");
+                sliceManager.amend(sliceId, 10.1);
+                sliceManager.fill(sliceId, 200.0, 10.1);
+                sliceManager.fill(sliceId, 300.0, 10.1);
+                for (int i = 0; i < 10; i++) {
+                    sliceManager.entry(100.0, 9.9, "Slice");
+                }
+                assertEquals(14, journal.getRecordCount());
+            }
+
+            final List<JournalAction> actions = new ArrayList<>();
+            final double[] filled = new double[1];
+            try (JournalReader reader = new JournalReader(file)) {
+                final long count = reader.forEach(record -> {
+                    assertEquals(7L, record.getOrderId());
+                    assertEquals(1000L, record.getTimestamp());
+                    assertEquals(10.1, record.getAsk(), 0.00001);
+                    actions.add(record.getAction());
+                    if (record.getAction() == JournalAction.FILL) {
+                        filled[0] += record.getQuantity();
+                    }
+                });
+                assertEquals(14, count);
+            }
+
+            assertEquals(JournalAction.ENTRY, actions.get(0));
+            assertEquals(JournalAction.AMEND, actions.get(1));
+            assertEquals(JournalAction.FILL, actions.get(2));
+            assertEquals(500.0, filled[0], 0.00001);
+
+            // fill ledger of the order rebuilt after a restore
+            final SliceManager restored = new SliceManager(new Logger(timer, Level.OFF));
+            final FillLedger ledger = new FillLedger();
+            try (JournalReader reader = new JournalReader(file)) {
+                OrderJournal.replayFills(reader, 7L, restored, ledger);
+            }
+            assertEquals(2, ledger.getFillCount());
+            assertEquals(200L, ledger.getQuantity(0));
+            assertEquals(300L, ledger.getQuantity(1));
+            assertEquals(restored.toTicks(10.1), ledger.getPriceTicks(1));
+            assertEquals(1000L, ledger.getTimeMillis(1));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testReopenAppendsAfterLastRecord() throws IOException {
+
+        final Path file = Files.createTempFile("journal", ".bin");
+        try {
+            final int segmentLength = 4 * ExecutionJournal.RECORD_LENGTH;
+            try (ExecutionJournal journal = new ExecutionJournal(file, segmentLength)) {
+
+                final SliceManager sliceManager = new SliceManager(new Logger(timer, Level.OFF));
+                final OrderJournal orderJournal = new OrderJournal(journal, 7L, timer, orderBook);
+                sliceManager.addListener(orderJournal);
+
+                orderJournal.onIntervalCreated(3_600_001L, 1000.0);
+                final long sliceId = sliceManager.entry(500.0, 10.0, "Slice");
+                sliceManager.onSliceAck(sliceId);
+                sliceManager.onSliceReject(sliceManager.entry(100.0, 9.9, "Slice"), "rejected");
+                sliceManager.drainCommands();
+                assertEquals(5, journal.getRecordCount());
+            }
+
+            // the resumed journal continues in its last segment and then maps the next one
+            try (ExecutionJournal journal = new ExecutionJournal(file, segmentLength)) {
+                assertEquals(5, journal.getRecordCount());
+                journal.append(2000L, 7L, 1L, JournalAction.FILL, 500.0, 10.0, 10.0, 10.1);
+                journal.append(2000L, 7L, 1L, JournalAction.FILL, 0.0, 10.0, 10.0, 10.1);
+                journal.append(2000L, 7L, 1L, JournalAction.FILL, 0.0, 10.0, 10.0, 10.1);
+                assertEquals(8, journal.getRecordCount());
+            }
+
+            final List<JournalAction> actions = new ArrayList<>();
+            try (JournalReader reader = new JournalReader(file)) {
+                assertEquals(8, reader.forEach(record -> {
+                    if (record.getAction() == JournalAction.INTERVAL) {
+                        assertEquals(3_600_001L, record.getDueTimeMillis());
+                        assertEquals(1000.0, record.getQuantity(), 0.00001);
+                    }
+                    actions.add(record.getAction());
+                }));
+            }
+
+            assertEquals(JournalAction.INTERVAL, actions.get(0));
+            assertEquals(JournalAction.ENTRY, actions.get(1));
+            assertEquals(JournalAction.ENTRY, actions.get(2));
+            assertEquals(JournalAction.ACK, actions.get(3));
+            assertEquals(JournalAction.REJECT, actions.get(4));
+            assertEquals(JournalAction.FILL, actions.get(5));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
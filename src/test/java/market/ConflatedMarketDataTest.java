@@ -0,0 +1,44 @@
+package market;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ConflatedMarketDataTest {
+
+    @Test
+    public void testReaderSeesConsistentLatestTouch() throws InterruptedException {
+
+        final ConflatedMarketData marketData = new ConflatedMarketData();
+        final OrderBook book = marketData.getBook("VOD.L");
+        assertSame(book, marketData.getBook("VOD.L"));
+
+        final int updates = 200_000;
+        final Thread feed = new Thread(() -> {
+            for (int i = 1; i <= updates; i++) {
+                book.update(i, i + 1.0);
+            }
+        });
+        feed.start();
+
+        // every snapshot is one update, never a bid of one and an ask of another
+        final TopOfBook snapshot = new TopOfBook();
+        long lastSequence = 0L;
+        while (lastSequence < updates) {
+            book.read(snapshot);
+            assertTrue(snapshot.getSequence() >= lastSequence);
+            if (snapshot.getSequence() > 0) {
+                assertEquals(snapshot.getBid() + 1.0, snapshot.getAsk(), 0.0);
+                assertEquals(snapshot.getSequence(), (long) snapshot.getBid());
+            }
+            lastSequence = snapshot.getSequence();
+        }
+        feed.join();
+
+        assertEquals(updates, book.getSequence());
+        assertEquals(updates, book.getBid(), 0.0);
+        assertEquals(1, marketData.getSymbolCount());
+    }
+}
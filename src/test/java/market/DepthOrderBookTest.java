@@ -0,0 +1,106 @@
+package market;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DepthOrderBookTest {
+
+    @Test
+    public void testDepthAndQueuePosition() {
+
+        final DepthOrderBook book = new DepthOrderBook(9.0, 0.01, 200);
+        assertTrue(Double.isNaN(book.getBid()));
+
+        book.updateBid(10.00, 500);
+        book.updateBid(9.99, 300);
+        book.updateAsk(10.01, 400);
+        book.updateAsk(10.03, 100);
+        book.updateAsk(11.50, 100);
+
+        assertEquals(10.0, book.getBid(), 0.0);
+        assertEquals(10.01, book.getAsk(), 0.0);
+        assertEquals(9.99, book.getBidPrice(1), 0.0);
+        assertEquals(10.03, book.getAskPrice(1), 0.0);
+        assertEquals(800, book.getBidDepth(5));
+
+        final TopOfBook touch = book.read(new TopOfBook());
+        assertEquals(10.0, touch.getBid(), 0.0);
+        assertEquals(10.01, touch.getAsk(), 0.0);
+        assertEquals(500, touch.getBidSize());
+        assertEquals(400, touch.getAskSize());
+        assertEquals(1, book.getDroppedUpdates());
+
+        // join behind 500, trades and a shrinking level move us up the queue
+        book.addOwnSlice(1L, true, 10.00, 100);
+        book.updateBid(10.00, 600);
+        assertEquals(500, book.getQueueAhead(1L));
+        book.onTrade(10.00, 200, false);
+        assertEquals(300, book.getQueueAhead(1L));
+        book.updateBid(10.00, 150);
+        assertEquals(150, book.getQueueAhead(1L));
+
+        // touch level removed, next level becomes best
+        book.updateBid(10.00, 0);
+        assertEquals(9.99, book.getBid(), 0.0);
+        book.updateAsk(10.01, 0);
+        assertEquals(10.03, book.getAsk(), 0.0);
+
+        book.amendOwnSlice(1L, 9.99);
+        assertEquals(300, book.getQueueAhead(1L));
+        book.removeOwnSlice(1L);
+        assertEquals(-1, book.getQueueAhead(1L));
+    }
+
+    @Test
+    public void testTradesOnlyConsumeThePassiveSide() {
+
+        final DepthOrderBook book = new DepthOrderBook(9.0, 0.01, 200);
+        book.updateBid(10.00, 500);
+        book.updateAsk(10.01, 400);
+        book.addOwnSlice(1L, true, 10.00, 100);
+        book.addOwnSlice(2L, false, 10.01, 100);
+
+        // a buyer lifting the offer does not move our bid
+        book.onTrade(10.00, 200, true);
+        assertEquals(500, book.getQueueAhead(1L));
+        book.onTrade(10.01, 150, true);
+        assertEquals(250, book.getQueueAhead(2L));
+
+        book.onTrade(10.00, 200, false);
+        assertEquals(300, book.getQueueAhead(1L));
+        assertEquals(250, book.getQueueAhead(2L));
+    }
+
+    @Test
+    public void testOwnEarlierSlicesAreAhead() {
+
+        final DepthOrderBook book = new DepthOrderBook(9.0, 0.01, 200);
+        book.updateBid(10.00, 500);
+        book.updateBid(9.99, 300);
+        book.addOwnSlice(1L, true, 10.00, 200);
+        book.addOwnSlice(2L, true, 9.99, 50);
+        book.addOwnSlice(3L, true, 10.00, 100);
+
+        assertEquals(500, book.getQueueAhead(1L));
+        assertEquals(300, book.getQueueAhead(2L));
+        assertEquals(700, book.getQueueAhead(3L));
+
+        // the market queue trades away, then our first slice is partly filled
+        book.onTrade(10.00, 500, false);
+        assertEquals(0, book.getQueueAhead(1L));
+        assertEquals(200, book.getQueueAhead(3L));
+        book.fillOwnSlice(1L, 150);
+        assertEquals(50, book.getQueueAhead(3L));
+
+        // joining another level goes behind our slice already there
+        book.amendOwnSlice(1L, 9.99);
+        assertEquals(350, book.getQueueAhead(1L));
+        assertEquals(0, book.getQueueAhead(3L));
+
+        book.fillOwnSlice(2L, 50);
+        assertEquals(-1, book.getQueueAhead(2L));
+        assertEquals(300, book.getQueueAhead(1L));
+    }
+}
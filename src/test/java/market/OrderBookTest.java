@@ -0,0 +1,34 @@
+package market;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class OrderBookTest {
+
+    @Test
+    public void testSnapshotIsNeverTorn() throws InterruptedException {
+
+        final OrderBook book = new OrderBook(0.0, 1.0);
+        final int updates = 200_000;
+        final Thread feed = new Thread(() -> {
+            for (int i = 1; i <= updates; i++) {
+                book.update(i, i + 1.0, i, 2L * i);
+            }
+        });
+        feed.start();
+
+        // bid, ask and sizes always come from the same update, so the book never looks crossed
+        final TopOfBook snapshot = new TopOfBook();
+        while (snapshot.getSequence() < updates) {
+            book.read(snapshot);
+            assertTrue(snapshot.getBid() < snapshot.getAsk());
+            assertEquals(snapshot.getBid() + 1.0, snapshot.getAsk(), 0.0);
+            assertEquals((long) snapshot.getBid(), snapshot.getBidSize());
+            assertEquals(2L * snapshot.getBidSize(), snapshot.getAskSize());
+        }
+        feed.join();
+        assertEquals(updates, book.getSequence());
+    }
+}
@@ -0,0 +1,69 @@
+package metrics;
+
+import org.junit.Test;
+import slice.SliceManager;
+import util.LatencyHistogram;
+import util.Level;
+import util.Logger;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import java.time.Instant;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MetricsRegistryTest {
+
+    @Test
+    public void testOrderMetricsAreAggregatedOverJmx() throws Exception {
+
+        final MBeanServer server = MBeanServerFactory.newMBeanServer();
+        final MetricsRegistry registry = new MetricsRegistry(server);
+
+        for (long orderId = 1; orderId <= 2; orderId++) {
+            final SliceManager sliceManager = new SliceManager(new Logger(() -> Instant.EPOCH, Level.OFF));
+            final OrderMetrics metrics = new OrderMetrics(orderId, sliceManager);
+            registry.register(metrics);
+
+            final long sliceId = sliceManager.entry(100.0, 10.0, "Slice");
+            sliceManager.amend(sliceId, 10.1);
+            sliceManager.fill(sliceId, 100.0, 10.1);
+            assertEquals(1L, sliceManager.getEntryLatency().getCount());
+            assertEquals(1L, sliceManager.getAmendLatency().getCount());
+            assertEquals(1L, sliceManager.getFillLatency().getCount());
+            for (int i = 1; i <= 100; i++) {
+                metrics.onRun(i * 1000L, i % 10 == 0);
+            }
+        }
+
+        final ObjectName order = new ObjectName("vwap:type=Order,orderId=1");
+        assertEquals(1L, server.getAttribute(order, "EntryCount"));
+        assertEquals(10L, server.getAttribute(order, "EvaluationCount"));
+        assertTrue((Long) server.getAttribute(order, "FillLatencyMaxNanos") > 0L);
+
+        final ObjectName orders = new ObjectName("vwap:type=Orders");
+        assertEquals(2, server.getAttribute(orders, "OrderCount"));
+        assertEquals(200L, server.getAttribute(orders, "RunCount"));
+        assertEquals(2L, server.getAttribute(orders, "FillCount"));
+        assertEquals(100_000L, server.getAttribute(orders, "RunLatencyMaxNanos"));
+
+        // p99 of 1..100us lands in the bucket of 99us, reported within 25%
+        final long p99 = (Long) server.getAttribute(orders, "RunLatencyP99Nanos");
+        assertEquals(99_000.0, p99, 99_000 * 0.25);
+    }
+
+    @Test
+    public void testHistogramBucketsCoverRecordedValues() {
+
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(3);
+        histogram.record(1_000);
+        histogram.record(Long.MAX_VALUE);
+
+        assertEquals(3L, histogram.getPercentile(1.0));
+        assertEquals(1_000.0, histogram.getPercentile(50.0), 250.0);
+        assertEquals(Long.MAX_VALUE, histogram.getPercentile(100.0));
+    }
+}
@@ -0,0 +1,62 @@
+package model;
+
+import order.Urgency;
+import org.junit.Test;
+import volume.LinearProfile;
+
+import java.time.Instant;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class ExecutionScheduleTest {
+
+    private static final long HOUR = 3_600_000L;
+
+    @Test
+    public void testIntervalsAlignedOnOrderStartAndShared() {
+
+        final Instant start = Instant.ofEpochMilli(0L);
+        final Instant end = Instant.ofEpochMilli(7 * HOUR);
+        final ScheduleCache cache = new ScheduleCache();
+        final ExecutionSchedule schedule = cache.get(new LinearProfile(start, end), 0L, 7 * HOUR,
+                VwapConfig.DEFAULT, Urgency.MEDIUM, false);
+
+        assertEquals(7, schedule.getIntervalCount());
+        assertEquals(0, schedule.getIntervalIndex(0L));
+        assertEquals(0, schedule.getIntervalIndex(HOUR));
+        assertEquals(1, schedule.getIntervalIndex(HOUR + 1));
+        assertEquals(6, schedule.getIntervalIndex(7 * HOUR));
+
+        assertEquals(2 * HOUR, schedule.getDueMillis(1));
+        assertEquals(2 * HOUR - HOUR / 3, schedule.getCrossingMillis(1));
+        assertEquals(2.0 / 7, schedule.getTargetFraction(1), 1e-12);
+        assertEquals((2 * HOUR - 600_000.0) / (7 * HOUR), schedule.getLowerFraction(1), 1e-12);
+
+        // equal inputs share one compiled schedule, another urgency does not
+        assertSame(schedule, cache.get(new LinearProfile(start, end), 0L, 7 * HOUR,
+                VwapConfig.DEFAULT, Urgency.MEDIUM, false));
+        assertNotSame(schedule, cache.get(new LinearProfile(start, end), 0L, 7 * HOUR,
+                VwapConfig.DEFAULT, Urgency.LOW, false));
+    }
+
+    @Test
+    public void testCacheEvictsLeastRecentlyUsed() {
+
+        final LinearProfile profile = new LinearProfile(Instant.ofEpochMilli(0L), Instant.ofEpochMilli(7 * HOUR));
+        final ScheduleCache cache = new ScheduleCache(2);
+        final ExecutionSchedule low = cache.get(profile, 0L, 7 * HOUR, VwapConfig.DEFAULT, Urgency.LOW, false);
+        final ExecutionSchedule medium = cache.get(profile, 0L, 7 * HOUR, VwapConfig.DEFAULT, Urgency.MEDIUM, false);
+
+        // low is used again, so adding a third schedule evicts medium
+        assertSame(low, cache.get(profile, 0L, 7 * HOUR, VwapConfig.DEFAULT, Urgency.LOW, false));
+        cache.get(profile, 0L, 7 * HOUR, VwapConfig.DEFAULT, Urgency.HIGH, false);
+        assertEquals(2, cache.size());
+        assertSame(low, cache.get(profile, 0L, 7 * HOUR, VwapConfig.DEFAULT, Urgency.LOW, false));
+        assertNotSame(medium, cache.get(profile, 0L, 7 * HOUR, VwapConfig.DEFAULT, Urgency.MEDIUM, false));
+
+        // another cache shares nothing
+        assertNotSame(low, new ScheduleCache().get(profile, 0L, 7 * HOUR, VwapConfig.DEFAULT, Urgency.LOW, false));
+    }
+}
@@ -1,16 +1,18 @@
 package model;
 
-import market.OrderBookQuery;
+import market.OrderBook;
 import order.Order;
 import order.Parameter;
 import order.Urgency;
 import org.junit.Test;
-import slice.Slice;
+import simulation.SimulatedExchange;
+import simulation.SimulationClock;
+import simulation.SimulationEvent;
+import simulation.SimulationKernel;
 import slice.SliceManager;
+import tca.TransactionCost;
 import util.Formatter;
 import util.Logger;
-import util.MathUtil;
-import util.TimerService;
 import volume.LinearProfile;
 import volume.TradeEvent;
 import volume.VolumeProfile;
@@ -25,22 +27,23 @@ import static org.junit.Assert.assertTrue;
 
 public class VwapTest {
 
-    public static final int SIMULATION_INTERVAL_SEC = 1;
-    private Instant mockTime = Instant.EPOCH;
-    private double mockBid = 10.0;
-    private double mockAsk = 10.1;
+    public static final int MARKET_MOVE_DELAY_SEC = 1001;
+    public static final long MARKET_TRADE_PERIOD_MILLIS = 300_000L;
+    public static final double MARKET_TRADE_SIZE = 3000.0;
+    public static final long ORDER_ENTRY_LATENCY_MILLIS = 2L;
+    public static final long ACK_LATENCY_MILLIS = 1L;
 
     // fake/mock dependency
     private Order order;
     private VolumeProfile volumeProfile;
     private VolumeTracker volumeTracker;
-    private OrderBookQuery orderBook;
-    private TimerService timerMock;
+    private OrderBook orderBook;
+    private SimulationClock timerMock;
+    private SimulationKernel kernel;
     private Parameter parameter;
     private Logger logger;
     private SliceManager sliceManager;
-
-    boolean isTriggeredMarketMove = false;
+    private SimulatedExchange exchange;
 
     @Test
     public void testVwap() {
@@ -51,26 +54,13 @@ public class VwapTest {
 
         order = new Order(orderStartTime, orderEndTime, 100000.0, 10.0, true);
         volumeProfile = new LinearProfile(orderStartTime, orderEndTime);
-        volumeTracker = new VolumeTracker();
-        orderBook = new OrderBookQuery() {
+        orderBook = new OrderBook(10.0, 10.1);
 
-            @Override
-            public double getBid() {
-                return mockBid;
-            }
-
-            @Override
-            public double getAsk() {
-                return mockAsk;
-            }
-        };
-
-        timerMock = new TimerService() {
-            @Override
-            public Instant now() {
-                return mockTime;
-            }
-        };
+        final Instant simulationStartTime = orderStartTime.minusSeconds(60);
+        final Instant simulationEndTime = orderEndTime.plusSeconds(60);
+        timerMock = new SimulationClock(simulationStartTime.toEpochMilli());
+        kernel = new SimulationKernel(timerMock);
+        volumeTracker = new VolumeTracker(timerMock);
 
         parameter = new Parameter() {
 
@@ -96,10 +86,21 @@ public class VwapTest {
         // construct vwap
         final Vwap vwap = new Vwap(volumeProfile, order, timerMock, volumeTracker
                 , sliceManager, orderBook, parameter, logger);
+        orderBook.addListener(vwap);
+        volumeTracker.addListener(vwap);
+        kernel.register(vwap);
 
-        final Instant simulationStartTime = orderStartTime.minusSeconds(60);
-        final Instant simulationEndTime = orderEndTime.plusSeconds(60);
-        mockTime = simulationStartTime;
+        // slices go through a simulated exchange, it receives market trades from the volume tracker
+        exchange = new SimulatedExchange(kernel, sliceManager, orderBook, volumeTracker, order.isBuy(),
+                ORDER_ENTRY_LATENCY_MILLIS, ACK_LATENCY_MILLIS);
+        orderBook.addListener(exchange);
+        volumeTracker.addListener(exchange);
+
+        // Precondition
+        updateOrderBook(orderStartTime);
+
+        // Simulate Market activities
+        tradeOnPassiveTouch(orderStartTime.toEpochMilli(), orderEndTime.toEpochMilli());
 
         System.out.println("====================================================================");
         System.out.println("Start Simulation");
@@ -109,26 +110,14 @@ public class VwapTest {
         System.out.println("====================================================================");
 
 
-        while (!mockTime.isAfter(simulationEndTime)) {
-
-            // Precondition
-            updateOrderBook(orderStartTime);
-
-            // Run core logic
-            vwap.run();
-
-            // Simulate Market activities
-            fillCrossingSlice();
-
-            // move to next evaluation
-            mockTime = mockTime.plusSeconds(SIMULATION_INTERVAL_SEC);
-        }
+        // Run core logic, jumping from one event to the next
+        kernel.run(simulationEndTime.toEpochMilli());
 
         sliceManager.printInfo();
+        logger.debug("Simulated " + kernel.getEventCount() + " events, " + kernel.getAlgoRunCount() + " algo runs");
+        logger.flush();
         final double avgFilledPrice = sliceManager.getAvgFilledPrice();
         final double benchmarkPrice = volumeTracker.getBenchmarkPrice();
-        final double slippage = order.isBuy() ? benchmarkPrice - avgFilledPrice :
-                avgFilledPrice - benchmarkPrice;
 
 
         System.out.println("====================================================================");
@@ -137,51 +126,171 @@ public class VwapTest {
         logger.debug("Benchmark price (VSOT) = " + benchmarkPrice);
         logger.debug("Slippage = " + (avgFilledPrice - benchmarkPrice));
         logger.debug("TODO: need to simulate market trade in order to generate a reasonable analysis");
+        logger.flush();
         System.out.println("====================================================================");
 
         // Assertions
+        // the simulation is deterministic: the exact fills and slippage of this market
         assertEquals(sliceManager.getFilledQty(), order.getQuantity(), 0.00001);
-        assertTrue(slippage < 0.5);
+        assertEquals(93_200L, exchange.getPassiveFilledShares());
+        assertEquals(6_800L, exchange.getAggressiveFilledShares());
+        assertEquals(7L, sliceManager.getSliceCount());
+        assertEquals(9.9158, avgFilledPrice, 1e-9);
+        assertEquals(9.906176700547302, benchmarkPrice, 1e-9);
+
+        // transaction cost is maintained fill by fill and agrees with the end of run figures
+        final TransactionCost transactionCost = vwap.getTransactionCost();
+        assertEquals(avgFilledPrice, transactionCost.getAvgFilledPrice(), 1e-9);
+        assertEquals((avgFilledPrice - benchmarkPrice) / benchmarkPrice * 10_000, transactionCost.getSlippageBps(), 1e-6);
+        assertEquals(9.714443567483407, transactionCost.getSlippageBps(), 1e-6);
+        assertEquals(10.05, transactionCost.getArrivalPrice(), 1e-9);
+        assertEquals(34, transactionCost.getLedger().getFillCount());
+        assertEquals(transactionCost.getLedger().getFillCount(), vwap.getMetrics().getFillCount());
+        assertTrue(transactionCost.getParticipationPct() > 0.0);
     }
 
-    private void updateOrderBook( final Instant refTime) {
+    @Test
+    public void testParticipationCapWithoutMarketVolume() {
+
+        final Vwap vwap = createCappedVwap(10.0);
+        kernel.run(order.getStartTime().toEpochMilli());
+        vwap.run();
+
+        // no print in the window: one lot at a time so the order does not stall
+        assertEquals(1L, sliceManager.getSliceCount());
+        assertEquals(100L, sliceManager.getOpenShares());
+        vwap.markDirty();
+        vwap.run();
+        assertEquals(1L, sliceManager.getSliceCount());
+    }
 
-        // simulate move market at 6000s after order start time
-        if (mockTime.isAfter(refTime.plusSeconds(1000)) && !isTriggeredMarketMove) {
-            mockBid = 9.9;
-            mockAsk = 10.0;
-            isTriggeredMarketMove = true;
-        }
+    @Test
+    public void testParticipationCapLayersAgainAfterTrades() {
+
+        final Vwap vwap = createCappedVwap(10.0);
+        kernel.run(order.getStartTime().toEpochMilli());
+        vwap.run();
+        assertEquals(100L, sliceManager.getOpenShares());
+
+        // 12,345 traded: 10% is 1,234, rounded down to 1,200 in lots with the lot already open
+        kernel.run(order.getStartTime().toEpochMilli() + 1000L);
+        volumeTracker.onTradeEvent(trade(10.0, 12_345.0));
+        vwap.run();
+        assertEquals(2L, sliceManager.getSliceCount());
+        assertEquals(1_200L, sliceManager.getOpenShares());
+
+        // capped while open, more volume allows the difference
+        vwap.run();
+        assertEquals(2L, sliceManager.getSliceCount());
+        volumeTracker.onTradeEvent(trade(10.0, 10_000.0));
+        vwap.run();
+        assertEquals(3L, sliceManager.getSliceCount());
+        assertEquals(2_200L, sliceManager.getOpenShares());
+    }
 
-        //todo: add more movement on order book
+    @Test
+    public void testParticipationCapCountsExecutedVolume() {
+
+        final Vwap vwap = createCappedVwap(10.0);
+        kernel.run(order.getStartTime().toEpochMilli() + 1000L);
+        volumeTracker.onTradeEvent(trade(10.0, 12_345.0));
+        vwap.run();
+        assertEquals(1_200L, sliceManager.getOpenShares());
+
+        // a filled burst does not free the budget of the window
+        sliceManager.fill(sliceManager.getOpenSlice(0), 1_200.0, 10.0);
+        vwap.run();
+        assertEquals(0L, sliceManager.getOpenShares());
+        assertEquals(1L, sliceManager.getSliceCount());
+
+        // once the fills age out of the window the market volume counts again
+        kernel.run(order.getStartTime().toEpochMilli() + 1000L + Vwap.PARTICIPATION_WINDOW_MILLIS);
+        volumeTracker.onTradeEvent(trade(10.0, 5_000.0));
+        vwap.run();
+        assertEquals(500L, sliceManager.getOpenShares());
     }
 
-    private void fillCrossingSlice() {
-        // fill open slice straight away
-        for (Slice slice : sliceManager.getOpenSlice()) {
+    // order run by hand, the kernel only moves the clock
+    private Vwap createCappedVwap(final double maxPct) {
+
+        final Instant start = Instant.ofEpochMilli(9 * 3_600_000L);
+        final Instant end = Instant.ofEpochMilli(16 * 3_600_000L);
+        order = new Order(start, end, 100000.0, 10.0, true);
+        orderBook = new OrderBook(10.0, 10.1);
+        timerMock = new SimulationClock(start.toEpochMilli() - 60_000L);
+        kernel = new SimulationKernel(timerMock);
+        volumeTracker = new VolumeTracker(timerMock);
+        logger = new Logger(timerMock, util.Level.OFF);
+        sliceManager = new SliceManager(logger);
+        parameter = new Parameter() {
+            @Override
+            public boolean getDone() {
+                return true;
+            }
+
+            @Override
+            public Urgency getUrgency() {
+                return Urgency.HIGH;
+            }
 
-            if (MathUtil.isAggressiveOrEqual(order.isBuy(), slice.getSlicePrice(), getFarTouch())) {
+            @Override
+            public double getMaxPct() {
+                return maxPct;
+            }
+        };
 
-                sliceManager.fill(slice, slice.getOpenQuantity(), slice.getSlicePrice());
-                logger.debug(slice.getSliceRef() + " is filled");
+        final Vwap vwap = new Vwap(new LinearProfile(start, end), order, timerMock, volumeTracker, sliceManager,
+                orderBook, parameter, logger);
+        volumeTracker.addListener(vwap);
+        return vwap;
+    }
 
-                // create trade event
-                volumeTracker.onTradeEvent(new TradeEvent() {
-                    @Override
-                    public double getTradePrice() {
-                        return slice.getSlicePrice();
-                    }
+    private static TradeEvent trade(final double price, final double size) {
+        return new TradeEvent() {
+            @Override
+            public double getTradePrice() {
+                return price;
+            }
 
-                    @Override
-                    public double getTradeSize() {
-                        return slice.getOpenQuantity();
-                    }
-                });
+            @Override
+            public double getTradeSize() {
+                return size;
             }
-        }
+        };
+    }
+
+    private void updateOrderBook( final Instant refTime) {
+
+        // simulate move market at 1000s after order start time
+        kernel.schedule(refTime.plusSeconds(MARKET_MOVE_DELAY_SEC).toEpochMilli(), () -> orderBook.update(9.9, 10.0));
+
+        //todo: add more movement on order book
     }
 
-    private double getFarTouch() {
-        return order.isBuy() ? orderBook.getAsk() : orderBook.getBid();
+    // sellers hit the bid every few minutes, passive slices fill once the queue ahead is consumed
+    private void tradeOnPassiveTouch(final long startMillis, final long endMillis) {
+
+        final TradeEvent trade = new TradeEvent() {
+            @Override
+            public double getTradePrice() {
+                return orderBook.getBid();
+            }
+
+            @Override
+            public double getTradeSize() {
+                return MARKET_TRADE_SIZE;
+            }
+        };
+
+        kernel.schedule(new SimulationEvent() {
+            @Override
+            protected void onEvent(final SimulationKernel kernel) {
+                volumeTracker.onTradeEvent(trade);
+                if (kernel.now() + MARKET_TRADE_PERIOD_MILLIS < endMillis) {
+                    kernel.schedule(this, kernel.now() + MARKET_TRADE_PERIOD_MILLIS);
+                }
+            }
+        }, startMillis + MARKET_TRADE_PERIOD_MILLIS);
     }
-}
\ No newline at end of file
+
+}
@@ -0,0 +1,71 @@
+package outbound;
+
+import metrics.OrderMetrics;
+import org.junit.Test;
+import slice.SliceManager;
+import util.Level;
+import util.Logger;
+
+import java.time.Instant;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class OutboundActionsTest {
+
+    private final Logger logger = new Logger(() -> Instant.EPOCH, Level.OFF);
+
+    @Test
+    public void testAmendsCollapseAndCrossWins() {
+
+        final SliceManager sliceManager = new SliceManager(logger, 0.01);
+        final OrderMetrics metrics = new OrderMetrics(1L, sliceManager);
+        final OutboundActions actions = new OutboundActions(sliceManager, VenueThrottle.UNLIMITED, metrics, logger);
+        final long first = sliceManager.entryTicks(100L, 1000L, "Slice");
+        final long second = sliceManager.entryTicks(100L, 1000L, "Slice");
+
+        actions.peg(first, 999L);
+        actions.cross(first, 1001L);
+        actions.peg(first, 998L);
+        actions.peg(second, 1000L);
+        assertEquals(0, actions.flush(0L));
+
+        assertEquals(1001L, sliceManager.getSlice(first).getPriceTicks());
+        assertEquals(1000L, sliceManager.getSlice(second).getPriceTicks());
+        assertEquals(1, actions.getSentCount());
+        assertEquals(3, actions.getCoalescedCount());
+
+        // only the amend actually sent is counted
+        assertEquals(1L, metrics.getCrossCount());
+        assertEquals(0L, metrics.getPegCount());
+    }
+
+    @Test
+    public void testThrottleSendsCrossesFirst() {
+
+        final SliceManager sliceManager = new SliceManager(logger, 0.01);
+        final VenueThrottle throttle = new VenueThrottle("XHKG", 10, 2);
+        final OrderMetrics metrics = new OrderMetrics(1L, sliceManager);
+        final OutboundActions actions = new OutboundActions(sliceManager, throttle, metrics, logger);
+        final long pegged = sliceManager.entryTicks(100L, 1000L, "Slice");
+        final long crossed = sliceManager.entryTicks(100L, 1000L, "Slice");
+
+        actions.peg(pegged, 999L);
+        actions.entry(100L, 999L);
+        actions.cross(crossed, 1001L);
+        assertEquals(1, actions.flush(0L));
+
+        assertEquals(1001L, sliceManager.getSlice(crossed).getPriceTicks());
+        assertEquals(1000L, sliceManager.getSlice(pegged).getPriceTicks());
+        assertEquals(3, sliceManager.getSliceCount());
+        assertEquals(1L, metrics.getCrossCount());
+        assertEquals(1L, metrics.getLayerCount());
+        assertEquals(0L, metrics.getPegCount());
+
+        // one permit every 100ms once the burst is used
+        assertFalse(throttle.tryAcquire(50L));
+        assertEquals(100L, throttle.getNextPermitMillis(50L));
+        assertTrue(throttle.tryAcquire(100L));
+    }
+}
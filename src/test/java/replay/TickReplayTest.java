@@ -0,0 +1,96 @@
+package replay;
+
+import market.OrderBook;
+import market.TopOfBook;
+import org.junit.Test;
+import simulation.SimulatedExchange;
+import simulation.SimulationClock;
+import simulation.SimulationKernel;
+import slice.SliceManager;
+import util.Level;
+import util.Logger;
+import volume.VolumeTracker;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class TickReplayTest {
+
+    @Test
+    public void testReplayDrivesBookAndVolumeTracker() throws IOException {
+
+        final Path file = Files.createTempFile("ticks", ".bin");
+        try {
+            try (TickFileWriter writer = new TickFileWriter(file, 0.01, 1000L)) {
+                writer.quote(1000L, 10.00, 10.01, 500, 700);
+                writer.trade(1500L, 10.01, 300);
+                writer.quote(2000L, 9.98, 10.02, 100, 200);
+                writer.trade(2000L, 9.98, 100);
+                writer.quote(3000L, 10.10, 10.11, 100, 100);
+            }
+
+            final OrderBook book = new OrderBook(0.0, 0.0);
+            final SimulationKernel kernel = new SimulationKernel(new SimulationClock(0L));
+            final VolumeTracker tracker = new VolumeTracker(kernel.getClock());
+
+            try (TickReplay replay = new TickReplay(file, book, tracker)) {
+                assertEquals(5, replay.getRecordCount());
+                replay.attach(kernel);
+
+                kernel.run(2000L);
+                assertEquals(9.98, book.getBid(), 0.0);
+                assertEquals(10.02, book.getAsk(), 0.0);
+                assertEquals(4, replay.getPosition());
+                assertEquals((10.01 * 300 + 9.98 * 100) / 400, tracker.getBenchmarkPrice(), 1e-9);
+
+                kernel.run(5000L);
+                assertEquals(10.1, book.getBid(), 0.0);
+                assertEquals(10.11, book.getAsk(), 0.0);
+                assertFalse(replay.hasNext());
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testReplayedSizesQueueSlicesBehindTheTouch() throws IOException {
+
+        final Path file = Files.createTempFile("ticks", ".bin");
+        try {
+            try (TickFileWriter writer = new TickFileWriter(file, 0.01, 1000L)) {
+                writer.quote(1000L, 10.00, 10.01, 500, 700);
+                writer.trade(3000L, 10.00, 200);
+            }
+
+            final OrderBook book = new OrderBook(0.0, 0.0);
+            final SimulationKernel kernel = new SimulationKernel(new SimulationClock(0L));
+            final VolumeTracker tracker = new VolumeTracker(kernel.getClock());
+            final SliceManager sliceManager = new SliceManager(new Logger(kernel.getClock(), Level.OFF));
+            final SimulatedExchange exchange = new SimulatedExchange(kernel, sliceManager, book, tracker, true, 0L, 0L);
+            book.addListener(exchange);
+            tracker.addListener(exchange);
+
+            try (TickReplay replay = new TickReplay(file, book, tracker)) {
+                replay.attach(kernel);
+                kernel.run(2000L);
+                assertEquals(500L, book.read(new TopOfBook()).getBidSize());
+
+                // the slice joins behind the replayed 500 at the bid, the trade only consumes queue ahead
+                final long sliceId = sliceManager.entry(300.0, 10.00, "Slice");
+                kernel.run(2000L);
+                assertEquals(500L, exchange.getQueueAhead(sliceId));
+
+                kernel.run(5000L);
+                assertEquals(300L, exchange.getQueueAhead(sliceId));
+                assertEquals(0L, exchange.getPassiveFilledShares());
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
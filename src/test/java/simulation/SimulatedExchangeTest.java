@@ -0,0 +1,160 @@
+package simulation;
+
+import market.OrderBook;
+import org.junit.Test;
+import slice.SliceManager;
+import util.Level;
+import util.Logger;
+import volume.TradeEvent;
+import volume.VolumeSnapshot;
+import volume.VolumeTracker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SimulatedExchangeTest {
+
+    @Test
+    public void testLatencyAndQueuePosition() {
+
+        final SimulationClock clock = new SimulationClock(0L);
+        final SimulationKernel kernel = new SimulationKernel(clock);
+        final SliceManager sliceManager = new SliceManager(new Logger(clock, Level.OFF));
+        final OrderBook orderBook = new OrderBook(10.0, 10.1);
+        orderBook.update(10.0, 10.1, 500L, 400L);
+        final VolumeTracker volumeTracker = new VolumeTracker(clock);
+        final SimulatedExchange exchange = new SimulatedExchange(kernel, sliceManager, orderBook, volumeTracker, true, 5L, 3L);
+        orderBook.addListener(exchange);
+        volumeTracker.addListener(exchange);
+
+        // the entry reaches the exchange after 5 ms and joins behind 500, the ack comes back 3 ms later
+        final long sliceId = sliceManager.entry(300.0, 10.0, "Slice");
+        kernel.run(4L);
+        assertEquals(0, exchange.getRestingCount());
+        kernel.run(5L);
+        assertEquals(500L, exchange.getQueueAhead(sliceId));
+        kernel.run(8L);
+        sliceManager.drainCommands();
+        assertTrue(sliceManager.getSlice(sliceId).isAcked());
+
+        // 600 traded at our price: 500 ahead, then 100 for us, reported 3 ms later
+        volumeTracker.onTradeEvent(trade(10.0, 600.0));
+        assertEquals(0L, exchange.getQueueAhead(sliceId));
+        kernel.run(11L);
+        sliceManager.drainCommands();
+        assertEquals(100L, sliceManager.getFilledShares());
+        assertEquals(100L, exchange.getPassiveFilledShares());
+
+        // the ask comes down to our price and fills the rest, the fill is printed as a market trade
+        orderBook.update(9.9, 10.0, 800L, 200L);
+        kernel.run(14L);
+        sliceManager.drainCommands();
+        assertEquals(300L, sliceManager.getFilledShares());
+        assertEquals(200L, exchange.getAggressiveFilledShares());
+        final VolumeSnapshot snapshot = new VolumeSnapshot();
+        volumeTracker.getSnapshot(snapshot);
+        assertEquals(800L, snapshot.getVolume());
+        assertEquals(0, exchange.getRestingCount());
+
+        // an entry through the far touch fills on arrival, at the far touch
+        sliceManager.entry(100.0, 10.05, "Slice");
+        kernel.run(22L);
+        sliceManager.drainCommands();
+        assertEquals(400L, sliceManager.getFilledShares());
+        assertEquals(10.0, snapshot.getVwap(), 0.0);
+        volumeTracker.getSnapshot(snapshot);
+        assertEquals(10.0 * 800 + 10.0 * 100, snapshot.getVwap() * 900, 1e-6);
+    }
+
+    @Test
+    public void testSlicesAtTheSamePriceKeepTimePriority() {
+
+        final SimulationClock clock = new SimulationClock(0L);
+        final SimulationKernel kernel = new SimulationKernel(clock);
+        final SliceManager sliceManager = new SliceManager(new Logger(clock, Level.OFF));
+        final OrderBook orderBook = new OrderBook(10.0, 10.1);
+        orderBook.update(10.0, 10.1, 500L, 400L);
+        final VolumeTracker volumeTracker = new VolumeTracker(clock);
+        final SimulatedExchange exchange = new SimulatedExchange(kernel, sliceManager, orderBook, volumeTracker, true, 0L, 0L);
+        orderBook.addListener(exchange);
+
+        // the second slice queues behind the market and our first slice
+        final long first = sliceManager.entry(300.0, 10.0, "Slice");
+        final long second = sliceManager.entry(200.0, 10.0, "Slice");
+        kernel.run(0L);
+        assertEquals(500L, exchange.getQueueAhead(first));
+        assertEquals(800L, exchange.getQueueAhead(second));
+
+        // 600 at the bid: 500 market, then 100 of the first slice; the second one only moves up
+        exchange.onTradeEvent(trade(10.0, 600.0));
+        assertEquals(0L, exchange.getQueueAhead(first));
+        assertEquals(200L, exchange.getQueueAhead(second));
+        assertEquals(100L, exchange.getPassiveFilledShares());
+
+        // a third slice joins behind both, the first one leaving the level moves the others up
+        final long third = sliceManager.entry(100.0, 10.0, "Slice");
+        kernel.run(0L);
+        assertEquals(900L, exchange.getQueueAhead(third));
+        sliceManager.amend(first, 9.9);
+        kernel.run(0L);
+        assertEquals(0L, exchange.getQueueAhead(second));
+        assertEquals(700L, exchange.getQueueAhead(third));
+
+        exchange.onTradeEvent(trade(10.0, 250.0));
+        kernel.run(0L);
+        sliceManager.drainCommands();
+        assertEquals(300L, sliceManager.getFilledShares());
+        assertEquals(-1L, exchange.getQueueAhead(second));
+        assertEquals(450L, exchange.getQueueAhead(third));
+    }
+
+    @Test
+    public void testFilledSlicesLeaveOthersInTimePriority() {
+
+        final SimulationClock clock = new SimulationClock(0L);
+        final SimulationKernel kernel = new SimulationKernel(clock);
+        final SliceManager sliceManager = new SliceManager(new Logger(clock, Level.OFF));
+        final OrderBook orderBook = new OrderBook(10.0, 10.1);
+        orderBook.update(10.0, 10.1, 0L, 400L);
+        final VolumeTracker volumeTracker = new VolumeTracker(clock);
+        final SimulatedExchange exchange = new SimulatedExchange(kernel, sliceManager, orderBook, volumeTracker, true, 0L, 0L);
+        orderBook.addListener(exchange);
+
+        final long[] sliceIds = new long[20];
+        for (int i = 0; i < sliceIds.length; i++) {
+            sliceIds[i] = sliceManager.entry(100.0, 10.0, "Slice");
+        }
+        kernel.run(0L);
+        assertEquals(1_900L, exchange.getQueueAhead(sliceIds[19]));
+
+        // the first 15 fill and leave, the last 5 move up in their order
+        exchange.onTradeEvent(trade(10.0, 1_500.0));
+        assertEquals(5, exchange.getRestingCount());
+        assertEquals(-1L, exchange.getQueueAhead(sliceIds[14]));
+        assertEquals(0L, exchange.getQueueAhead(sliceIds[15]));
+        assertEquals(400L, exchange.getQueueAhead(sliceIds[19]));
+
+        // a new slice queues behind them, an amended one goes to the back of its new level
+        final long last = sliceManager.entry(100.0, 10.0, "Slice");
+        sliceManager.amend(sliceIds[16], 9.9);
+        kernel.run(0L);
+        assertEquals(6, exchange.getRestingCount());
+        assertEquals(100L, exchange.getQueueAhead(sliceIds[17]));
+        assertEquals(300L, exchange.getQueueAhead(sliceIds[19]));
+        assertEquals(400L, exchange.getQueueAhead(last));
+    }
+
+    private static TradeEvent trade(final double price, final double size) {
+        return new TradeEvent() {
+            @Override
+            public double getTradePrice() {
+                return price;
+            }
+
+            @Override
+            public double getTradeSize() {
+                return size;
+            }
+        };
+    }
+}
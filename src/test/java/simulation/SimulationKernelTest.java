@@ -0,0 +1,107 @@
+package simulation;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class SimulationKernelTest {
+
+    private final SimulationClock clock = new SimulationClock(1000L);
+    private final SimulationKernel kernel = new SimulationKernel(clock);
+    private final List<String> fired = new ArrayList<>();
+
+    @Test
+    public void testEventsFireInTimeOrderAndMoveTheClock() {
+
+        final Random random = new Random(7);
+        final long[] times = new long[500];
+        for (int i = 0; i < times.length; i++) {
+            times[i] = 1000L + random.nextInt(10_000);
+            final long time = times[i];
+            kernel.schedule(time, () -> {
+                assertEquals(time, clock.nowMillis());
+                fired.add(String.valueOf(time));
+            });
+        }
+
+        kernel.run(20_000L);
+
+        assertEquals(times.length, fired.size());
+        for (int i = 1; i < fired.size(); i++) {
+            assertFalse(Long.parseLong(fired.get(i)) < Long.parseLong(fired.get(i - 1)));
+        }
+        assertEquals(20_000L, clock.nowMillis());
+        assertEquals(times.length, kernel.getEventCount());
+    }
+
+    @Test
+    public void testEqualTimesFireInSchedulingOrder() {
+
+        for (int i = 0; i < 100; i++) {
+            final String name = "e" + i;
+            kernel.schedule(2000L + (i % 3) * 1000L, () -> fired.add(name));
+        }
+
+        kernel.run(2000L);
+        assertEquals(34, fired.size());
+        for (int i = 0; i < fired.size(); i++) {
+            assertEquals("e" + (i * 3), fired.get(i));
+        }
+
+        // a rescheduled event goes behind the others at its new time
+        final List<String> order = new ArrayList<>();
+        final SimulationEvent moved = event(order, "moved");
+        kernel.schedule(moved, 5000L);
+        kernel.schedule(event(order, "first"), 5000L);
+        kernel.schedule(event(order, "second"), 5000L);
+        kernel.schedule(moved, 5000L);
+
+        kernel.run(5000L);
+        assertEquals("first", order.get(0));
+        assertEquals("second", order.get(1));
+        assertEquals("moved", order.get(2));
+    }
+
+    @Test
+    public void testClockStopsAtEndTimeAndPastEventsRunNow() {
+
+        kernel.schedule(1500L, () -> fired.add("due"));
+        kernel.schedule(3000L, () -> fired.add("later"));
+
+        kernel.run(2000L);
+        assertEquals(1, fired.size());
+        assertEquals(2000L, clock.nowMillis());
+        assertEquals(1, kernel.getPendingCount());
+
+        // an event scheduled in the past runs at the current time, before later ones
+        final SimulationEvent late = event(fired, "late");
+        kernel.schedule(late, 500L);
+        assertEquals(2000L, late.getTime());
+
+        final SimulationEvent cancelled = event(fired, "cancelled");
+        kernel.schedule(cancelled, 2500L);
+        kernel.cancel(cancelled);
+        assertFalse(cancelled.isScheduled());
+
+        kernel.run(4000L);
+        assertEquals("late", fired.get(1));
+        assertEquals("later", fired.get(2));
+        assertEquals(3, fired.size());
+        assertEquals(4000L, clock.nowMillis());
+        assertEquals(0, kernel.getPendingCount());
+    }
+
+    private static SimulationEvent event(final List<String> log, final String name) {
+        return new SimulationEvent() {
+            @Override
+            protected void onEvent(final SimulationKernel kernel) {
+                log.add(name);
+            }
+        };
+    }
+}
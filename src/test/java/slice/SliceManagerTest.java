@@ -0,0 +1,218 @@
+package slice;
+
+import org.junit.Test;
+import util.Level;
+import util.Logger;
+
+import java.time.Instant;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SliceManagerTest {
+
+    private final SliceManager sliceManager = new SliceManager(new Logger(() -> Instant.EPOCH));
+
+    @Test
+    public void testRunningTotals() {
+
+        final long first = sliceManager.entry(300.0, 10.0, "Slice");
+        final long second = sliceManager.entry(200.0, 10.0, "Slice");
+        assertEquals(500.0, sliceManager.getOpenQty(), 0.00001);
+        assertEquals(2, sliceManager.getOpenSliceCount());
+
+        sliceManager.amend(first, 10.1);
+        assertEquals(10.1, sliceManager.getSlice(first).getSlicePrice(), 0.00001);
+        assertEquals(500.0, sliceManager.getOpenQty(), 0.00001);
+
+        sliceManager.fill(first, 100.0, 10.1);
+        sliceManager.fill(first, 200.0, 10.2);
+        sliceManager.fill(second, 200.0, 10.0);
+
+        assertEquals(0.0, sliceManager.getOpenQty(), 0.00001);
+        assertEquals(500.0, sliceManager.getFilledQty(), 0.00001);
+        assertEquals((100 * 10.1 + 200 * 10.2 + 200 * 10.0) / 500, sliceManager.getAvgFilledPrice(), 0.00001);
+        assertEquals(0, sliceManager.getOpenSliceCount());
+    }
+
+    @Test
+    public void testTotalsAcrossFillsAndReject() {
+
+        final long first = sliceManager.entry(300.0, 10.0, "Slice");
+        final long second = sliceManager.entry(200.0, 10.0, "Slice");
+        assertEquals(500.0, sliceManager.getOpenQty(), 0.0);
+        assertEquals(0.0, sliceManager.getFilledQty(), 0.0);
+
+        sliceManager.fill(first, 100.0, 10.0);
+        assertEquals(400.0, sliceManager.getOpenQty(), 0.0);
+        assertEquals(100.0, sliceManager.getFilledQty(), 0.0);
+
+        sliceManager.fill(first, 200.0, 10.0);
+        assertEquals(200.0, sliceManager.getOpenQty(), 0.0);
+        assertEquals(300.0, sliceManager.getFilledQty(), 0.0);
+
+        // a partly filled slice is rejected, only its remaining quantity leaves the open total
+        sliceManager.fill(second, 50.0, 10.0);
+        sliceManager.onSliceReject(second, "rejected");
+        sliceManager.drainCommands();
+        assertEquals(0.0, sliceManager.getOpenQty(), 0.0);
+        assertEquals(350.0, sliceManager.getFilledQty(), 0.0);
+        assertEquals(0, sliceManager.getOpenSliceCount());
+    }
+
+    @Test
+    public void testDoneSliceIsRecycled() {
+
+        final long first = sliceManager.entry(100.0, 10.0, "Slice");
+        final Slice record = sliceManager.getSlice(first);
+        sliceManager.fill(first, 100.0, 10.0);
+        assertNull(sliceManager.getSlice(first));
+
+        // record is reused under a new id, stale id is ignored
+        final long second = sliceManager.entry(100.0, 9.9, "Slice");
+        assertSame(record, sliceManager.getSlice(second));
+        assertEquals("Slice 2", sliceManager.getSlice(second).getSliceRef());
+
+        sliceManager.amend(first, 11.0);
+        sliceManager.fill(first, 100.0, 11.0);
+        assertEquals(9.9, sliceManager.getSlice(second).getSlicePrice(), 0.00001);
+        assertEquals(100.0, sliceManager.getFilledQty(), 0.00001);
+    }
+
+    @Test
+    public void testSliceIdPacksSequenceAndSlot() {
+
+        final long a = sliceManager.entry(100.0, 10.0, "Slice");
+        final long b = sliceManager.entry(100.0, 10.0, "Slice");
+        final long c = sliceManager.entry(100.0, 10.0, "Slice");
+        final long d = sliceManager.entry(100.0, 10.0, "Slice");
+        assertEquals(1L, b & SliceStore.SLOT_MASK);
+        assertEquals(2L, b >>> SliceStore.SLOT_BITS);
+
+        // a done slice in the middle is swapped out by the last open one
+        sliceManager.fill(a, 50.0, 10.0);
+        sliceManager.fill(b, 100.0, 10.0);
+        assertEquals(3, sliceManager.getOpenSliceCount());
+        assertEquals(a, sliceManager.getOpenSlice(0).getSliceId());
+        assertEquals(d, sliceManager.getOpenSlice(1).getSliceId());
+        assertEquals(c, sliceManager.getOpenSlice(2).getSliceId());
+
+        // the freed slot comes back under a new sequence, the stale id no longer resolves
+        final long e = sliceManager.entry(100.0, 9.9, "Slice");
+        assertEquals(b & SliceStore.SLOT_MASK, e & SliceStore.SLOT_MASK);
+        assertEquals(5L, e >>> SliceStore.SLOT_BITS);
+        assertNull(sliceManager.getSlice(b));
+        sliceManager.fill(b, 100.0, 9.0);
+        assertEquals(150.0, sliceManager.getFilledQty(), 0.00001);
+        assertEquals(0.0, sliceManager.getSlice(e).getFilledQuantity(), 0.00001);
+
+        // the last open slice leaves without moving the others
+        sliceManager.fill(e, 100.0, 9.9);
+        assertEquals(3, sliceManager.getOpenSliceCount());
+        assertEquals(d, sliceManager.getOpenSlice(1).getSliceId());
+        assertEquals(c, sliceManager.getOpenSlice(2).getSliceId());
+
+        sliceManager.fill(c, 100.0, 10.0);
+        sliceManager.fill(a, 50.0, 10.0);
+        assertEquals(1, sliceManager.getOpenSliceCount());
+        assertEquals(d, sliceManager.getOpenSlice(0).getSliceId());
+    }
+
+    @Test
+    public void testNoSliceForZeroQuantity() {
+
+        assertEquals(0L, sliceManager.entry(0.0, 10.0, "Slice"));
+        assertEquals(0, sliceManager.getOpenSliceCount());
+    }
+
+    @Test
+    public void testFixedPointAccountingIsExact() {
+
+        final SliceManager cents = new SliceManager(new Logger(() -> Instant.EPOCH), 0.01);
+        final long sliceId = cents.entryTicks(300L, 1001L, "Slice");
+        assertEquals(10.01, cents.getSlice(sliceId).getSlicePrice(), 0.0);
+
+        for (int i = 0; i < 3; i++) {
+            cents.fill(sliceId, 100.0, 10.01);
+        }
+        assertEquals(300L, cents.getFilledShares());
+        assertEquals(0L, cents.getOpenShares());
+        assertEquals(10.01, cents.getAvgFilledPrice(), 0.0);
+        assertNull(cents.getSlice(sliceId));
+    }
+
+    @Test
+    public void testGatewayReportsAreAppliedOnDrain() throws InterruptedException {
+
+        final SliceManager sliceManager = new SliceManager(new Logger(() -> Instant.EPOCH, Level.OFF));
+        final long first = sliceManager.entry(100_000.0, 10.0, "Slice");
+        final long second = sliceManager.entry(100.0, 10.0, "Slice");
+
+        final Thread[] gateways = new Thread[4];
+        for (int t = 0; t < gateways.length; t++) {
+            gateways[t] = new Thread(() -> {
+                for (int i = 0; i < 5_000; i++) {
+                    sliceManager.onSliceFill(first, 1.0, 10.0);
+                }
+            });
+            gateways[t].start();
+        }
+
+        int applied = 0;
+        while (sliceManager.getFilledShares() < 20_000) {
+            applied += sliceManager.drainCommands();
+        }
+        for (Thread gateway : gateways) {
+            gateway.join();
+        }
+        assertEquals(20_000, applied);
+
+        sliceManager.onSliceAck(first);
+        sliceManager.onSliceReject(second, "price out of range");
+        assertEquals(2, sliceManager.drainCommands());
+        assertTrue(sliceManager.getSlice(first).isAcked());
+        assertNull(sliceManager.getSlice(second));
+        assertEquals(80_000L, sliceManager.getOpenShares());
+    }
+
+    @Test(timeout = 10_000L)
+    public void testListenerEnqueuesWhileDrainingAFullRing() {
+
+        final SliceManager manager = new SliceManager(new Logger(() -> Instant.EPOCH, Level.OFF));
+        final long sliceId = manager.entry(1000.0, 10.0, "Slice");
+
+        // every ack applied sends a fill back on the owner thread, as a synchronous gateway would
+        manager.addListener(new SliceListener() {
+            private int fills;
+
+            @Override
+            public void onEntry(final Slice slice) {
+            }
+
+            @Override
+            public void onAmend(final Slice slice) {
+            }
+
+            @Override
+            public void onFill(final Slice slice, final double filledQuantity, final double filledPrice) {
+            }
+
+            @Override
+            public void onAck(final Slice slice) {
+                if (fills++ < 10) {
+                    manager.onSliceFill(slice.getSliceId(), 100.0, 10.0);
+                }
+            }
+        });
+
+        // fill the ring to capacity, then drain
+        for (int i = 0; i < 1024; i++) {
+            manager.onSliceAck(sliceId);
+        }
+        assertEquals(1034, manager.drainCommands());
+        assertEquals(1000L, manager.getFilledShares());
+        assertTrue(!manager.hasPendingCommands());
+    }
+}
@@ -0,0 +1,119 @@
+package tca;
+
+import market.OrderBook;
+import org.junit.Test;
+import simulation.SimulationClock;
+import slice.SliceManager;
+import util.Level;
+import util.Logger;
+import volume.TradeEvent;
+import volume.VolumeTracker;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class TransactionCostTest {
+
+    @Test
+    public void testMetricsUpdatedOnEveryFill() {
+
+        final SimulationClock clock = new SimulationClock(1000L);
+        final SliceManager sliceManager = new SliceManager(new Logger(clock, Level.OFF));
+        final OrderBook orderBook = new OrderBook(10.0, 10.2);
+        final VolumeTracker volumeTracker = new VolumeTracker(clock);
+        volumeTracker.onTradeEvent(trade(10.0, 1000.0));
+
+        // a sell order, arrival is the mid when the first slice is sent
+        final TransactionCost cost = new TransactionCost(false, 500L, sliceManager, clock, orderBook, volumeTracker);
+        assertEquals(0.0, cost.getAvgFilledPrice(), 0.0);
+        assertEquals(0.0, cost.getSlippageBps(), 0.0);
+
+        final long sliceId = sliceManager.entry(300.0, 10.2, "Slice");
+        assertEquals(10.1, cost.getArrivalPrice(), 1e-9);
+
+        // partial fills of one slice are all kept
+        sliceManager.fill(sliceId, 100.0, 10.2);
+        sliceManager.fill(sliceId, 200.0, 10.05);
+        volumeTracker.onTradeEvent(trade(10.2, 100.0));
+        volumeTracker.onTradeEvent(trade(10.05, 200.0));
+
+        final FillLedger ledger = cost.getLedger();
+        assertEquals(2, ledger.getFillCount());
+        assertEquals(sliceId, ledger.getSliceId(1));
+        assertEquals(200L, ledger.getQuantity(1));
+        assertEquals(sliceManager.toTicks(10.05), ledger.getPriceTicks(1));
+        assertEquals(1000L, ledger.getTimeMillis(0));
+
+        // the benchmark counts market trades since arrival only, not the 1000 traded before
+        assertEquals(10.1, cost.getBenchmarkPrice(), 1e-9);
+        volumeTracker.onTradeEvent(trade(9.9, 300.0));
+
+        // sold 300 at 10.1 against a market vwap of 10.0 since arrival and an arrival of 10.1
+        assertEquals(10.0, cost.getBenchmarkPrice(), 1e-9);
+        assertEquals(10.1, cost.getAvgFilledPrice(), 1e-9);
+        assertEquals(-100.0, cost.getSlippageBps(), 1e-6);
+        assertEquals(0.0, cost.getShortfallBps(), 1e-6);
+        assertEquals(50.0, cost.getParticipationPct(), 1e-9);
+
+        // 200 of the 500 shares are unfilled, marked at the mid they cost nothing until the mid moves
+        assertEquals(0.0, cost.getOpportunityCostBps(), 1e-9);
+        orderBook.update(9.9, 10.1);
+        final double opportunity = (10.1 - 10.0) / 10.1 * 10_000 * 200 / 500;
+        assertEquals(opportunity, cost.getOpportunityCostBps(), 1e-6);
+        assertEquals(opportunity, cost.getTotalShortfallBps(), 1e-6);
+        orderBook.update(10.0, 10.2);
+
+        // the totals survive a checkpoint, the ledger is not part of it
+        final ByteBuffer buffer = ByteBuffer.allocate(256);
+        cost.writeCheckpoint(buffer);
+        buffer.flip();
+        final TransactionCost restored = new TransactionCost(false, 500L, new SliceManager(new Logger(clock, Level.OFF)),
+                clock, orderBook, volumeTracker);
+        restored.readCheckpoint(buffer);
+        assertFalse(buffer.hasRemaining());
+        assertEquals(300L, restored.getFilledShares());
+        assertEquals(10.1, restored.getAvgFilledPrice(), 1e-9);
+        assertEquals(10.1, restored.getArrivalPrice(), 1e-9);
+        assertEquals(10.0, restored.getBenchmarkPrice(), 1e-9);
+        assertEquals(0, restored.getLedger().getFillCount());
+    }
+
+    private static TradeEvent trade(final double price, final double size) {
+        return new TradeEvent() {
+            @Override
+            public double getTradePrice() {
+                return price;
+            }
+
+            @Override
+            public double getTradeSize() {
+                return size;
+            }
+        };
+    }
+
+    @Test
+    public void testInvalidAndExcessFillsDoNotCorruptTotals() {
+
+        final SimulationClock clock = new SimulationClock(1000L);
+        final SliceManager sliceManager = new SliceManager(new Logger(clock, Level.OFF));
+        final TransactionCost cost = new TransactionCost(true, 100L, sliceManager, clock, new OrderBook(10.0, 10.2),
+                new VolumeTracker(clock));
+
+        final long sliceId = sliceManager.entry(100.0, 10.0, "Slice");
+        sliceManager.fill(sliceId, 0.0, 10.0);
+        sliceManager.fill(sliceId, -50.0, 10.0);
+        sliceManager.fill(sliceId, 50.0, -10.0);
+        assertEquals(0, cost.getLedger().getFillCount());
+        assertEquals(0.0, sliceManager.getAvgFilledPrice(), 0.0);
+
+        // a fill beyond the slice is capped to its open quantity
+        sliceManager.fill(sliceId, 150.0, 10.0);
+        assertEquals(100L, cost.getFilledShares());
+        assertEquals(100L, sliceManager.getFilledShares());
+        assertEquals(0L, sliceManager.getOpenShares());
+        assertEquals(0.0, cost.getOpportunityCostBps(), 0.0);
+    }
+}
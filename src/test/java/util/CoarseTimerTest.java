@@ -0,0 +1,25 @@
+package util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CoarseTimerTest {
+
+    @Test
+    public void testCachedTimeAdvances() throws InterruptedException {
+
+        try (CoarseTimer timer = new CoarseTimer(1L)) {
+
+            final long wallMillis = System.currentTimeMillis();
+            assertTrue(Math.abs(timer.nowMillis() - wallMillis) < 1_000L);
+            assertEquals(timer.nowMillis(), timer.nowNanos() / 1_000_000L, 1L);
+
+            final long first = timer.nowNanos();
+            Thread.sleep(20L);
+            assertTrue(timer.nowNanos() > first);
+            assertTrue(timer.now().toEpochMilli() >= first / 1_000_000L);
+        }
+    }
+}
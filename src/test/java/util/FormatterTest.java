@@ -0,0 +1,81 @@
+package util;
+
+import org.junit.Test;
+
+import java.text.DecimalFormat;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class FormatterTest {
+
+    private static final DateTimeFormatter INSTANT_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSXXX");
+
+    private final StringBuilder sb = new StringBuilder();
+
+    @Test
+    public void testAppendPriceMatchesDecimalFormat() {
+
+        final DecimalFormat format = new DecimalFormat("#.##");
+        final double[] values = {0, -0.0, 1, 10.1, 9.995, 0.125, 0.135, 0.145, 1.005, 2.675, 0.005, 0.015,
+                -0.001, -0.005, -2.5, 99.99, 99.999, 123456.785, 1e12 + 0.125};
+        for (double value : values) {
+            assertEquals(String.valueOf(value), format.format(value), appendPrice(value));
+        }
+
+        final Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            // mostly values on or near a half hundredth, where the rounding mode shows
+            final double value = (random.nextInt(2_000_000) - 1_000_000 + 0.5) / 100.0
+                    + (i % 2 == 0 ? 0 : random.nextGaussian() * 1e-9);
+            assertEquals(String.valueOf(value), format.format(value), appendPrice(value));
+        }
+    }
+
+    @Test
+    public void testAppendInstantMatchesDateTimeFormatter() {
+
+        final ZoneId zone = ZoneId.systemDefault();
+        final LocalDateTime[] boundaries = {
+                LocalDateTime.of(1970, 1, 1, 0, 0),
+                LocalDateTime.of(2020, 3, 29, 9, 0, 1),
+                LocalDateTime.of(2021, 5, 1, 0, 0),      // month
+                LocalDateTime.of(2024, 1, 1, 0, 0),      // year
+                LocalDateTime.of(2024, 2, 29, 0, 0),     // leap day
+                LocalDateTime.of(2024, 3, 1, 0, 0),
+                LocalDateTime.of(2023, 3, 1, 0, 0),      // no leap day
+                LocalDateTime.of(2000, 3, 1, 0, 0),      // leap century
+                LocalDateTime.of(2100, 3, 1, 0, 0),      // no leap century
+        };
+
+        for (LocalDateTime boundary : boundaries) {
+            final long epochMillis = boundary.atZone(zone).toInstant().toEpochMilli();
+            for (long millis = epochMillis - 1001; millis <= epochMillis + 1001; millis += 13) {
+                assertInstant(zone, millis);
+            }
+            assertInstant(zone, epochMillis - 1);
+            assertInstant(zone, epochMillis);
+        }
+
+        // every day over more than four years, at a different time of day each day
+        final long start = LocalDateTime.of(2019, 12, 31, 0, 0).atZone(zone).toInstant().toEpochMilli();
+        for (long day = 0; day < 1500; day++) {
+            assertInstant(zone, start + day * 86_400_000L + day * 57_611L % 86_400_000L);
+        }
+    }
+
+    private void assertInstant(final ZoneId zone, final long epochMillis) {
+        sb.setLength(0);
+        final String expected = INSTANT_FORMAT.format(Instant.ofEpochMilli(epochMillis).atZone(zone));
+        assertEquals(expected, Formatter.appendInstant(sb, epochMillis).toString());
+    }
+
+    private String appendPrice(final double value) {
+        sb.setLength(0);
+        return Formatter.appendPrice(sb, value).toString();
+    }
+}
@@ -0,0 +1,79 @@
+package util;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import static org.junit.Assert.assertEquals;
+
+public class LogWriterTest {
+
+    private final TimerService timer = () -> Instant.ofEpochMilli(0L);
+
+    @Test
+    public void testFlushWritesInOrder() {
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (LogWriter writer = new LogWriter(out, 4)) {
+            final Logger logger = new Logger(timer, Level.INFO, writer);
+            // ten times the ring capacity, the producer waits for the writer to free slots
+            for (int i = 0; i < 40; i++) {
+                logger.atInfo().append("message ").append(i).commit();
+            }
+            writer.flush();
+
+            final String[] lines = lines(out);
+            assertEquals(40, lines.length);
+            for (int i = 0; i < 40; i++) {
+                assertEquals("INFO message " + i, message(lines[i]));
+            }
+        }
+    }
+
+    @Test
+    public void testConcurrentProducersLoseNothing() throws InterruptedException {
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final LogWriter writer = new LogWriter(out, 8);
+        final Logger logger = new Logger(timer, Level.INFO, writer);
+        final int producers = 4;
+        final int messages = 2_000;
+
+        final Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            final int producer = p;
+            threads[p] = new Thread(() -> {
+                for (int i = 0; i < messages; i++) {
+                    logger.atInfo().append(producer).append(' ').append(i).commit();
+                }
+            });
+            threads[p].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        // close writes everything logged before it
+        writer.close();
+
+        final String[] lines = lines(out);
+        assertEquals(producers * messages, lines.length);
+        // each producer's messages keep their order
+        final int[] next = new int[producers];
+        for (String line : lines) {
+            final String[] fields = message(line).split(" ");
+            final int producer = Integer.parseInt(fields[1]);
+            assertEquals(next[producer]++, Integer.parseInt(fields[2]));
+        }
+    }
+
+    private static String[] lines(final ByteArrayOutputStream out) {
+        return new String(out.toByteArray(), StandardCharsets.US_ASCII).split("\n");
+    }
+
+    // drop the timestamp prefix
+    private static String message(final String line) {
+        return line.substring(line.indexOf(" : ") + 3);
+    }
+}
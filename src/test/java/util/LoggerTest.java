@@ -0,0 +1,22 @@
+package util;
+
+import org.junit.Test;
+
+import java.time.Instant;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LoggerTest {
+
+    @Test
+    public void testLoggerCreatedOffCanBeEnabled() {
+
+        final Logger logger = new Logger(() -> Instant.ofEpochMilli(0L), Level.OFF);
+        assertFalse(logger.isEnabled(Level.WARN));
+
+        logger.setLevel(Level.INFO);
+        assertFalse(logger.isDebugEnabled());
+        assertTrue(logger.isEnabled(Level.WARN));
+    }
+}
@@ -0,0 +1,57 @@
+package volume;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class ProfileStoreTest {
+
+    private static final long MINUTE = 60_000L;
+
+    @Test
+    public void testLookupInterpolatesAndRescalesToOrderWindow() throws IOException {
+
+        final Map<String, double[]> volumes = new LinkedHashMap<>();
+        volumes.put("0005.HK", new double[]{40, 10, 10, 40});
+        volumes.put("0700.HK", new double[]{25, 25, 25, 25});
+
+        final Path file = Files.createTempFile("profile", ".bin");
+        try {
+            ProfileStoreWriter.write(file, MINUTE, volumes);
+
+            try (ProfileStore store = new ProfileStore(file)) {
+
+                final Instant open = Instant.ofEpochMilli(0);
+                assertEquals(4, store.getBucketCount());
+                assertFalse(store.contains("0001.HK"));
+
+                // full session
+                final VolumeProfile session = store.getProfile("0005.HK", open, open, open.plusMillis(4 * MINUTE));
+                assertEquals(0.0, session.getVolume(0L), 1e-6);
+                assertEquals(0.2, session.getVolume(MINUTE / 2), 1e-6);
+                assertEquals(0.45, session.getVolume(MINUTE + MINUTE / 2), 1e-6);
+                assertEquals(1.0, session.getVolume(4 * MINUTE), 1e-6);
+                assertEquals(0.5, session.getVolume(Instant.ofEpochMilli(2 * MINUTE)), 1e-6);
+
+                // order over the middle two buckets only
+                final VolumeProfile window = store.getProfile("0005.HK", open,
+                        open.plusMillis(MINUTE), open.plusMillis(3 * MINUTE));
+                assertEquals(0.5, window.getVolume(2 * MINUTE), 1e-6);
+                assertEquals(0.0, window.getVolume(MINUTE), 1e-6);
+
+                final VolumeProfile flat = store.getProfile("0700.HK", open, open, open.plusMillis(4 * MINUTE));
+                assertEquals(0.375, flat.getVolume(MINUTE + MINUTE / 2), 1e-6);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
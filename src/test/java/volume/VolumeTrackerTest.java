@@ -0,0 +1,69 @@
+package volume;
+
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class VolumeTrackerTest {
+
+    @Test
+    public void testStripedPublishersAndConsistentReads() throws InterruptedException {
+
+        final VolumeTracker tracker = VolumeTracker.striped(() -> Instant.EPOCH, 4);
+        final int publishers = 4;
+        final int prints = 50_000;
+        final AtomicBoolean torn = new AtomicBoolean();
+        final AtomicBoolean running = new AtomicBoolean(true);
+
+        // every print is at 10.0, so any volume paired with the wrong notional shows up as another price
+        final Thread reader = new Thread(() -> {
+            final VolumeSnapshot snapshot = new VolumeSnapshot();
+            while (running.get()) {
+                tracker.getSnapshot(snapshot);
+                if (snapshot.getVolume() > 0 && Double.compare(snapshot.getVwap(), 10.0) != 0) {
+                    torn.set(true);
+                }
+            }
+        });
+        reader.start();
+
+        final Thread[] threads = new Thread[publishers];
+        for (int t = 0; t < publishers; t++) {
+            final long size = t + 1;
+            threads[t] = new Thread(() -> {
+                final TradeEvent trade = new TradeEvent() {
+                    @Override
+                    public double getTradePrice() {
+                        return 10.0;
+                    }
+
+                    @Override
+                    public double getTradeSize() {
+                        return size;
+                    }
+                };
+                for (int i = 0; i < prints; i++) {
+                    tracker.onTradeEvent(trade);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        running.set(false);
+        reader.join();
+
+        final VolumeSnapshot snapshot = new VolumeSnapshot();
+        tracker.getSnapshot(snapshot);
+        assertEquals((long) prints * publishers, snapshot.getTradeCount());
+        assertEquals((long) prints * (1 + 2 + 3 + 4), snapshot.getVolume());
+        assertEquals(snapshot.getVolume(), tracker.getRecentVolume(VolumeTracker.ONE_MINUTE));
+        assertEquals(10.0, tracker.getBenchmarkPrice(), 0.0);
+        assertFalse(torn.get());
+    }
+}
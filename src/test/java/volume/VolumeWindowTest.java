@@ -0,0 +1,35 @@
+package volume;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class VolumeWindowTest {
+
+    @Test
+    public void testBucketsRollOutOfWindow() {
+
+        // one minute in 1 second buckets
+        final VolumeWindow window = new VolumeWindow(60_000L, 60);
+
+        window.add(0L, 100, 1000);
+        window.add(30_000L, 200, 2000);
+        window.add(59_999L, 300, 3000);
+        assertEquals(600, window.getVolume(59_999L));
+
+        // first bucket expires on read without touching the ring
+        assertEquals(500, window.getVolume(60_000L));
+        assertEquals(300, window.getVolume(90_000L));
+        assertEquals(0, window.getVolume(200_000L));
+
+        // writing advances the ring, a late print older than the window is ignored
+        window.add(75_000L, 50, 500);
+        window.add(10_000L, 999, 9999);
+        assertEquals(550, window.getVolume(75_000L));
+        assertEquals(5500, window.getNotional(75_000L));
+
+        // a gap longer than the window clears everything
+        window.add(500_000L, 10, 100);
+        assertEquals(10, window.getVolume(500_000L));
+    }
+}